@@ -0,0 +1,39 @@
+package com.example.hotel.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Điểm chạy JMH của profile benchmark (pom.xml), luôn ghi kết quả ra file JSON để so sánh giữa các lần đo.
+ * Đọc các system property:
+ * - jmh.includes: regex tên benchmark (mặc định mọi lớp *Benchmark)
+ * - jmh.params: ghi đè @Param, vd. "size=1000,100000" hoặc "size=5000;bookingsPerRoom=100"
+ * - jmh.result: file kết quả JSON (mặc định target/jmh-result.json)
+ * Tham số dòng lệnh JMH (-wi, -i, -f, ...) vẫn dùng được và được áp dụng trước các giá trị trên.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(System.getProperty("jmh.includes", ".*Benchmark"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"));
+
+        String params = System.getProperty("jmh.params", "");
+        for (String param : params.split(";")) {
+            int eq = param.indexOf('=');
+            if (eq <= 0) {
+                continue; // Bỏ qua phần rỗng / sai định dạng
+            }
+            options.param(param.substring(0, eq).trim(), param.substring(eq + 1).trim().split("\\s*,\\s*"));
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.service.StayIntervalTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh kiểm tra trùng lịch của một phòng:
+ * - intervalTree: StayIntervalTree (đường đi hiện tại của BookingServiceImpl)
+ * - linearScan: đánh giá điều kiện của findConflictingBookings
+ *   (checkInDate < :checkout AND checkOutDate > :checkin) trên mọi booking của phòng,
+ *   tức là phần việc DB phải làm khi không có index phù hợp (chưa tính round trip).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingConflictBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int bookingsPerRoom;
+
+    private StayIntervalTree tree;
+    private long[] starts;
+    private long[] ends;
+    private long[] probeStarts;
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        tree = new StayIntervalTree();
+        starts = new long[bookingsPerRoom];
+        ends = new long[bookingsPerRoom];
+        long day = 0;
+        for (int i = 0; i < bookingsPerRoom; i++) {
+            day += random.nextInt(4);              // khoảng trống giữa hai booking
+            starts[i] = day;
+            day += 1 + random.nextInt(5);          // 1-5 đêm
+            ends[i] = day;
+            tree.insert(i, starts[i], ends[i]);
+        }
+        probeStarts = new long[1024];
+        for (int i = 0; i < probeStarts.length; i++) {
+            probeStarts[i] = random.nextInt((int) Math.max(1, day));
+        }
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        long start = nextProbe();
+        return tree.overlaps(start, start + 2, Long.MIN_VALUE);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        long start = nextProbe();
+        long end = start + 2;
+        boolean conflict = false;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] < end && ends[i] > start) {
+                conflict = true;
+            }
+        }
+        return conflict;
+    }
+
+    private long nextProbe() {
+        probe = (probe + 1) & (probeStarts.length - 1);
+        return probeStarts[probe];
+    }
+}
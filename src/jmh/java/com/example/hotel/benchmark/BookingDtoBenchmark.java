@@ -0,0 +1,84 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.dto.BookingDto;
+import com.example.hotel.entity.BookingStatus;
+import com.example.hotel.repository.BookingListRow;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.service.impl.BookingServiceImpl;
+import com.example.hotel.support.BookingServiceFixture;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chi phí BookingServiceImpl.findBookings phía Java: chuyển một trang size dòng BookingListRow thành BookingDto
+ * (định dạng ngày giờ, số đêm, số tiền còn nợ). Repository được giả lập, không tính thời gian truy vấn DB.
+ * Kết quả tính theo cả trang; chia cho size để ra chi phí mỗi dòng.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingDtoBenchmark {
+
+    @Param({"50", "1000"})
+    public int size;
+
+    private BookingServiceImpl bookingService;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        BookingStatus[] statuses = BookingStatus.values();
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        List<BookingListRow> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDate checkin = start.plusDays(random.nextInt(365));
+            BookingStatus status = statuses[random.nextInt(statuses.length)];
+            BigDecimal price = BigDecimal.valueOf(300_000 + random.nextInt(20) * 50_000L);
+            int nights = 1 + random.nextInt(6);
+            BigDecimal total = price.multiply(BigDecimal.valueOf(nights));
+            rows.add(new BookingListRow(
+                    (long) i, "#BK-" + Integer.toHexString(0x10000000 + i).toUpperCase(), checkin.atStartOfDay().minusDays(7),
+                    status, "Khách " + i, "09" + (10000000 + i), (long) i,
+                    (long) (i % 200), "R" + (i % 200), "Loại " + (i % 8),
+                    checkin, checkin.plusDays(nights), total, price,
+                    status == BookingStatus.CHECKED_IN || status == BookingStatus.CHECKED_OUT ? checkin.atTime(14, 0) : null,
+                    status == BookingStatus.CHECKED_OUT ? checkin.plusDays(nights).atTime(12, 0) : null,
+                    2, random.nextInt(3), total.divide(BigDecimal.valueOf(1 + random.nextInt(3)), 0, RoundingMode.DOWN)));
+        }
+        pageable = PageRequest.of(0, size);
+        Page<BookingListRow> page = new PageImpl<>(rows, pageable, size);
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findBookingRows(any(), any(Pageable.class))).thenReturn(page);
+        bookingService = BookingServiceFixture.create()
+                .repositories(bookingRepository, mock(RoomRepository.class), mock(CustomerRepository.class))
+                .build();
+    }
+
+    @Benchmark
+    public Page<BookingDto> findBookingsPage() {
+        return bookingService.findBookings(null, null, null, null, null, false, pageable);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.entity.Customer;
+import com.example.hotel.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí xác thực JWT cho mỗi request trong AuthTokenFilter:
+ * - validateThenParse: cách cũ, validateJwtToken rồi getUserNameFromJwtToken,
+ *   mỗi lần đều giải mã Base64 secret, dựng parser mới và kiểm tra HMAC (2 lần / request)
+ * - parseValidClaims: JwtUtils hiện tại, một lần parse với khóa và parser dựng sẵn
+ * size là số token khác nhau (số khách hàng) được luân phiên xác thực.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET =
+            "YmV6S29kZXItU2VjcmV0S2V5LUZvci1KV1QtQXV0aGVudGljYXRpb24tU3ByaW5nQm9vdA==";
+
+    @Param({"1", "1000"})
+    public int size;
+
+    private JwtUtils jwtUtils;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", TimeUnit.DAYS.toMillis(1));
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        tokens = new String[size];
+        for (int i = 0; i < size; i++) {
+            Customer customer = new Customer();
+            customer.setId((long) i + 1);
+            customer.setEmail("benchmark" + i + "@example.com");
+            tokens[i] = jwtUtils.generateCustomerToken(customer);
+        }
+    }
+
+    @Benchmark
+    public String validateThenParse() {
+        String token = nextToken();
+        Jwts.parserBuilder().setSigningKey(legacyKey()).build().parse(token);
+        return Jwts.parserBuilder().setSigningKey(legacyKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String parseValidClaims() {
+        Claims claims = jwtUtils.parseValidClaims(nextToken());
+        return claims.getSubject();
+    }
+
+    private String nextToken() {
+        next = next + 1 == tokens.length ? 0 : next + 1;
+        return tokens[next];
+    }
+
+    private static Key legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+}
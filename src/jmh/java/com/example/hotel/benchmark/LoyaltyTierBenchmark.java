@@ -0,0 +1,84 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.entity.LoyaltyTier;
+import com.example.hotel.repository.LoyaltyTierRepository;
+import com.example.hotel.service.LoyaltyTierService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tra hạng thành viên theo điểm (LoyaltyAutomationService.updateCustomerTier) với size hạng:
+ * - resolveTier: LoyaltyTierService hiện tại, tìm nhị phân trên bảng trong bộ nhớ
+ * - linearScan: cách cũ trên danh sách sắp theo điểm giảm dần, lấy hạng đầu tiên có điểm yêu cầu <= điểm của khách
+ *   (chưa tính truy vấn findAllByOrderByPointsRequiredDesc mà cách cũ chạy ở mỗi lần cộng điểm)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoyaltyTierBenchmark {
+
+    @Param({"4", "64"})
+    public int size;
+
+    private LoyaltyTierService loyaltyTierService;
+    private List<LoyaltyTier> tiersDesc;
+    private int[] points;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<LoyaltyTier> tiers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LoyaltyTier tier = new LoyaltyTier();
+            tier.setId((long) i);
+            tier.setName("Hạng " + i);
+            tier.setPointsRequired(i * 500);
+            tiers.add(tier);
+        }
+        LoyaltyTierRepository repository = mock(LoyaltyTierRepository.class);
+        when(repository.findAllByOrderByPointsRequiredAsc()).thenReturn(tiers);
+        loyaltyTierService = new LoyaltyTierService(repository);
+        loyaltyTierService.reloadTiers();
+
+        tiersDesc = new ArrayList<>(tiers);
+        tiersDesc.sort(Comparator.comparing(LoyaltyTier::getPointsRequired).reversed());
+
+        Random random = new Random(42);
+        points = new int[1024];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextInt(size * 500 + 500);
+        }
+    }
+
+    @Benchmark
+    public LoyaltyTier resolveTier() {
+        return loyaltyTierService.resolveTier(nextPoints());
+    }
+
+    @Benchmark
+    public LoyaltyTier linearScan() {
+        int customerPoints = nextPoints();
+        for (LoyaltyTier tier : tiersDesc) {
+            if (customerPoints >= tier.getPointsRequired()) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    private int nextPoints() {
+        next = (next + 1) & (points.length - 1);
+        return points[next];
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.config.RateLimitProperties;
+import com.example.hotel.security.RateLimitFilter;
+import com.example.hotel.security.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí RateLimitFilter cho mỗi request công khai:
+ * - baseline: chỉ tạo request / response giả và gọi chain (không có filter)
+ * - filter: cùng request đi qua RateLimitFilter (khớp route, lấy token từ bucket theo IP và bucket chung)
+ * Giới hạn đặt rất cao để đo đường đi "được phép"; ips là số IP khác nhau luân phiên gửi request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    @Param({"1", "10000"})
+    public int ips;
+
+    private RateLimitFilter filter;
+    private String[] addresses;
+    private int next;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPattern("/api/public/rooms/available");
+        route.setPerIpPerSecond(1_000_000_000);
+        route.setPerIpBurst(1_000_000);
+        route.setGlobalPerSecond(1_000_000_000);
+        route.setGlobalBurst(1_000_000);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        filter = new RateLimitFilter(new RateLimiter(properties, new SimpleMeterRegistry()), properties);
+
+        addresses = new String[ips];
+        for (int i = 0; i < ips; i++) {
+            addresses[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse baseline() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain.doFilter(request, response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filter() throws Exception {
+        MockHttpServletRequest request = request();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/rooms/available");
+        next = next + 1 == addresses.length ? 0 : next + 1;
+        request.setRemoteAddr(addresses[next]);
+        return request;
+    }
+}
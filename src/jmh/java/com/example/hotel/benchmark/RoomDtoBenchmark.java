@@ -0,0 +1,77 @@
+package com.example.hotel.benchmark;
+
+import com.example.hotel.dto.RoomDto;
+import com.example.hotel.entity.Room;
+import com.example.hotel.entity.RoomStatus;
+import com.example.hotel.entity.RoomType;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.service.impl.RoomServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Chi phí RoomServiceImpl.getAllRooms phía Java: chuyển size phòng thành RoomDto,
+ * trong đó phần đáng kể là tách chuỗi tiện nghi bằng regex ("\\s*,\\s*") cho từng phòng.
+ * Repository được giả lập, không tính thời gian truy vấn DB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomDtoBenchmark {
+
+    private static final String[] AMENITIES = {
+            "Wifi", "TV", "Điều hòa", "Minibar", "Bồn tắm", "Ban công", "Két sắt", "Máy sấy tóc"
+    };
+
+    @Param({"100", "5000"})
+    public int size;
+
+    private RoomServiceImpl roomService;
+
+    @Setup
+    public void setUp() {
+        List<RoomType> roomTypes = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            RoomType roomType = new RoomType();
+            roomType.setId((long) t);
+            roomType.setName("Loại " + t);
+            roomType.setCapacity(2 + t % 3);
+            roomType.setBasePrice(BigDecimal.valueOf(400_000 + t * 100_000L));
+            roomType.setDescription("Phòng loại " + t);
+            // Mỗi loại phòng 2-8 tiện nghi, có khoảng trắng quanh dấu phẩy như dữ liệu nhập tay
+            roomType.setAmenities(String.join(" , ", List.of(AMENITIES).subList(0, 2 + t % 7)));
+            roomTypes.add(roomType);
+        }
+        List<Room> rooms = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Room room = new Room();
+            room.setId((long) i);
+            room.setRoomNumber("R" + i);
+            room.setFloor(1 + i / 50);
+            room.setStatus(RoomStatus.AVAILABLE);
+            room.setRoomType(roomTypes.get(i % roomTypes.size()));
+            rooms.add(room);
+        }
+
+        RoomRepository roomRepository = mock(RoomRepository.class);
+        when(roomRepository.findAll()).thenReturn(rooms);
+        roomService = new RoomServiceImpl();
+        ReflectionTestUtils.setField(roomService, "roomRepository", roomRepository);
+    }
+
+    @Benchmark
+    public List<RoomDto> getAllRooms() {
+        return roomService.getAllRooms();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.hotel.loadtest;
+
+import com.example.hotel.repository.UserRepository;
+import com.example.hotel.security.jwt.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra tải đầu-cuối: khởi động toàn bộ ứng dụng trên H2 (chế độ MySQL), nạp dữ liệu giả lập theo loadtest.seed.*
+ * rồi bắn tổ hợp request thật qua HTTP với số luồng cố định. Báo cáo thông lượng và p50 / p95 / p99 cho từng endpoint
+ * ghi ra loadtest.run.resultFile (target/loadtest-result.json).
+ *
+ * Chỉ chạy trong profile Maven loadtest: mvn -Ploadtest test [-Dloadtest.seed.customers=500000 -Dloadtest.run.concurrency=64]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class HotelLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Seeder seeder;
+
+    @Autowired
+    private LoadTestProperties properties;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void mixedTrafficStaysWithinErrorBudget() throws Exception {
+        String adminToken = jwtUtils.generateJwtToken(userRepository.findByUsername(SyntheticDataGenerator.ADMIN_USERNAME)
+                .orElseThrow(() -> new IllegalStateException("Chưa nạp tài khoản admin cho bài kiểm tra tải")));
+
+        LoadDriver.Report report = new LoadDriver("http://localhost:" + port, adminToken, seeder.getData(), properties, objectMapper).run();
+
+        assertThat(report.requests()).isPositive();
+        assertThat(report.errorRate()).isLessThanOrEqualTo(properties.getRun().getMaxErrorRate());
+    }
+
+    @TestConfiguration
+    @EnableConfigurationProperties(LoadTestProperties.class)
+    static class LoadTestConfig {
+
+        @Bean
+        Seeder loadTestSeeder(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                              PasswordEncoder passwordEncoder, LoadTestProperties properties) {
+            return new Seeder(new SyntheticDataGenerator(entityManager, transactionTemplate, passwordEncoder, properties));
+        }
+    }
+
+    /**
+     * Nạp dữ liệu như một ApplicationRunner: chạy trước ApplicationReadyEvent, nên các bước dựng lại lúc khởi động
+     * (chỉ mục phòng trống, tồn phòng, bộ đếm khách hàng...) làm việc trên dữ liệu đã nạp.
+     */
+    static class Seeder implements ApplicationRunner {
+
+        private final SyntheticDataGenerator generator;
+        private volatile SyntheticDataGenerator.SeedData data;
+
+        Seeder(SyntheticDataGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void run(ApplicationArguments args) {
+            data = generator.generate();
+        }
+
+        SyntheticDataGenerator.SeedData getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.hotel.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi thời gian phản hồi và kết quả của một endpoint trong pha đo của bài kiểm tra tải.
+ * Giữ toàn bộ mẫu (vài trăm nghìn long) để tính p50 / p95 / p99 chính xác khi kết thúc.
+ */
+public class LatencyRecorder {
+
+    private final String endpoint;
+    private long[] samples = new long[1024];
+    private int size;
+    private long ok;
+    private long rejected; // 4xx: phòng đã có người đặt, dữ liệu không hợp lệ...
+    private long errors;   // 5xx hoặc lỗi kết nối
+
+    public LatencyRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public synchronized void record(long nanos, int status) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        if (status >= 200 && status < 400) {
+            ok++;
+        } else if (status >= 400 && status < 500) {
+            rejected++;
+        } else {
+            errors++;
+        }
+    }
+
+    public synchronized long errors() {
+        return errors;
+    }
+
+    public synchronized long count() {
+        return size;
+    }
+
+    /**
+     * Tóm tắt cho báo cáo: số request, thông lượng, tỉ lệ từ chối / lỗi và các phân vị (ms).
+     */
+    public synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", endpoint);
+        summary.put("requests", size);
+        summary.put("throughputPerSecond", round(size / seconds));
+        summary.put("ok", ok);
+        summary.put("rejected4xx", rejected);
+        summary.put("errors", errors);
+        summary.put("p50Ms", percentileMillis(sorted, 0.50));
+        summary.put("p95Ms", percentileMillis(sorted, 0.95));
+        summary.put("p99Ms", percentileMillis(sorted, 0.99));
+        summary.put("maxMs", sorted.length > 0 ? toMillis(sorted[sorted.length - 1]) : 0.0);
+        return summary;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1; // Nearest-rank
+        return toMillis(sorted[Math.max(0, rank)]);
+    }
+
+    private static double toMillis(long nanos) {
+        return round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.hotel.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tạo tải HTTP thật lên ứng dụng đang chạy với số luồng cố định (loadtest.run.concurrency).
+ * Mỗi luồng lặp: chọn một loại request theo trọng số (loadtest.mix.*), gửi và chờ phản hồi rồi gửi tiếp.
+ * Pha khởi động (warmupSeconds) không được ghi nhận; pha đo kéo dài durationSeconds.
+ *
+ * Loại request:
+ * - tìm phòng trống / đếm phòng trống theo loại (khách vãng lai, không token)
+ * - đặt phòng công khai bằng khách đã có, kèm Idempotency-Key như trang booking.html
+ * - trang danh sách booking của admin (lọc trạng thái / còn nợ / tìm kiếm ngẫu nhiên)
+ * - lễ tân: trả phòng cho booking đang ở, hết thì nhận phòng booking sắp đến theo thứ tự ngày đến
+ */
+@Slf4j
+public class LoadDriver {
+
+    private static final String ROOM_SEARCH = "GET /api/public/rooms/available";
+    private static final String ROOM_TYPE_SEARCH = "GET /api/public/room-types/available";
+    private static final String PUBLIC_BOOKING = "POST /api/public/bookings";
+    private static final String ADMIN_LIST = "GET /api/admin/bookings";
+    private static final String CHECK_IN = "PATCH /api/admin/bookings/{id}/status (checked-in)";
+    private static final String CHECK_OUT = "PATCH /api/admin/bookings/{id}/status (checked-out)";
+    private static final String[] LIST_STATUSES = {"pending", "confirmed", "checked-in", "checked-out"};
+
+    private final String baseUrl;
+    private final String adminToken;
+    private final SyntheticDataGenerator.SeedData data;
+    private final LoadTestProperties.Run run;
+    private final int[] cumulativeWeights;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client;
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+
+    private volatile long measureFrom;
+
+    public LoadDriver(String baseUrl, String adminToken, SyntheticDataGenerator.SeedData data,
+                      LoadTestProperties properties, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.adminToken = adminToken;
+        this.data = data;
+        this.run = properties.getRun();
+        this.objectMapper = objectMapper;
+        LoadTestProperties.Mix mix = properties.getMix();
+        int[] weights = {mix.getRoomSearch(), mix.getRoomTypeSearch(), mix.getPublicBooking(), mix.getAdminList(), mix.getFrontDesk()};
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += Math.max(0, weights[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Tổng trọng số loadtest.mix.* phải lớn hơn 0.");
+        }
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, run.getConcurrency() / 4)))
+                .build();
+    }
+
+    /**
+     * Chạy khởi động + đo, trả về báo cáo (cũng được ghi ra loadtest.run.resultFile).
+     */
+    public Report run() throws Exception {
+        long start = System.nanoTime();
+        measureFrom = start + TimeUnit.SECONDS.toNanos(run.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(run.getDurationSeconds());
+        log.info("Bắt đầu tải: {} luồng, khởi động {} s, đo {} s", run.getConcurrency(), run.getWarmupSeconds(), run.getDurationSeconds());
+
+        ExecutorService workers = Executors.newFixedThreadPool(run.getConcurrency());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < run.getConcurrency(); i++) {
+                futures.add(workers.submit(() -> work(end)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        Report report = report(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - measureFrom) / 1000.0);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new java.io.File(run.getResultFile()), report.asMap());
+        log.info("Kết quả tải:\n{}", report.table());
+        log.info("Đã ghi kết quả JSON vào {}", run.getResultFile());
+        return report;
+    }
+
+    private void work(long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            try {
+                if (pick < cumulativeWeights[0]) {
+                    roomSearch(random);
+                } else if (pick < cumulativeWeights[1]) {
+                    roomTypeSearch(random);
+                } else if (pick < cumulativeWeights[2]) {
+                    publicBooking(random);
+                } else if (pick < cumulativeWeights[3]) {
+                    adminList(random);
+                } else {
+                    frontDesk();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void roomSearch(ThreadLocalRandom random) throws InterruptedException {
+        LocalDate checkin = randomCheckin(random);
+        send(ROOM_SEARCH, get("/api/public/rooms/available?checkin=" + checkin + "&checkout=" + checkin.plusDays(1 + random.nextInt(4))
+                + "&adults=" + (1 + random.nextInt(3)) + "&children=" + random.nextInt(2), false));
+    }
+
+    private void roomTypeSearch(ThreadLocalRandom random) throws InterruptedException {
+        LocalDate checkin = randomCheckin(random);
+        send(ROOM_TYPE_SEARCH, get("/api/public/room-types/available?checkin=" + checkin + "&checkout=" + checkin.plusDays(1 + random.nextInt(4))
+                + "&adults=" + (1 + random.nextInt(3)) + "&children=" + random.nextInt(2), false));
+    }
+
+    private void publicBooking(ThreadLocalRandom random) throws InterruptedException {
+        SyntheticDataGenerator.SeedData.RoomRef room = data.rooms().get(random.nextInt(data.rooms().size()));
+        int customer = random.nextInt(data.customers());
+        LocalDate checkin = randomCheckin(random);
+        int nights = 1 + random.nextInt(4);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("roomId", room.id());
+        body.put("checkin", checkin.toString());
+        body.put("checkout", checkin.plusDays(nights).toString());
+        body.put("soNguoiLon", 1 + random.nextInt(room.capacity()));
+        body.put("soTreEm", 0);
+        body.put("total", room.price().multiply(BigDecimal.valueOf(nights)));
+        body.put("customerName", SyntheticDataGenerator.customerName(customer));
+        body.put("customerEmail", SyntheticDataGenerator.customerEmail(customer));
+        body.put("customerPhone", SyntheticDataGenerator.customerPhone(customer));
+        body.put("customerIdNumber", SyntheticDataGenerator.customerIdNumber(customer));
+        send(PUBLIC_BOOKING, json("/api/public/bookings", "POST", body, false)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .build());
+    }
+
+    private void adminList(ThreadLocalRandom random) throws InterruptedException {
+        StringBuilder query = new StringBuilder("/api/admin/bookings?size=20&page=").append(random.nextInt(50));
+        int filter = random.nextInt(10);
+        if (filter < 3) {
+            query.append("&status=").append(LIST_STATUSES[random.nextInt(LIST_STATUSES.length)]);
+        } else if (filter == 3) {
+            query.append("&unpaidOnly=true&sort=balanceDue,desc");
+        } else if (filter == 4) {
+            query.append("&search=").append(SyntheticDataGenerator.customerPhone(random.nextInt(data.customers())), 0, 7);
+        }
+        send(ADMIN_LIST, get(query.toString(), true));
+    }
+
+    private void frontDesk() throws InterruptedException {
+        Long checkout = data.checkedIn().poll();
+        if (checkout != null) {
+            send(CHECK_OUT, json("/api/admin/bookings/" + checkout + "/status", "PATCH", Map.of("status", "checked-out"), true).build());
+            return;
+        }
+        Long arrival = data.arrivals().poll();
+        if (arrival != null) {
+            int status = send(CHECK_IN, json("/api/admin/bookings/" + arrival + "/status", "PATCH", Map.of("status", "checked-in"), true).build());
+            if (status >= 200 && status < 300) {
+                data.checkedIn().add(arrival);
+            }
+        }
+    }
+
+    private LocalDate randomCheckin(ThreadLocalRandom random) {
+        return LocalDate.now().plusDays(1 + random.nextInt(run.getSearchWindowDays()));
+    }
+
+    private HttpRequest get(String path, boolean admin) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET();
+        if (admin) {
+            builder.header("Authorization", "Bearer " + adminToken);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest.Builder json(String path, String method, Object body, boolean admin) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            if (admin) {
+                builder.header("Authorization", "Bearer " + adminToken);
+            }
+            return builder;
+        } catch (IOException e) {
+            throw new IllegalStateException("Không tạo được body JSON", e);
+        }
+    }
+
+    /**
+     * Gửi request, ghi thời gian nếu đang trong pha đo; trả về mã HTTP (0 nếu lỗi kết nối).
+     */
+    private int send(String endpoint, HttpRequest request) throws InterruptedException {
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = 0;
+        }
+        if (start >= measureFrom) {
+            recorders.computeIfAbsent(endpoint, LatencyRecorder::new).record(System.nanoTime() - start, status);
+        }
+        return status;
+    }
+
+    private Report report(double seconds) {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        long requests = 0;
+        long errors = 0;
+        for (String endpoint : List.of(ROOM_SEARCH, ROOM_TYPE_SEARCH, PUBLIC_BOOKING, ADMIN_LIST, CHECK_IN, CHECK_OUT)) {
+            LatencyRecorder recorder = recorders.get(endpoint);
+            if (recorder != null) {
+                endpoints.add(recorder.summary(seconds));
+                requests += recorder.count();
+                errors += recorder.errors();
+            }
+        }
+        return new Report(run.getConcurrency(), seconds, requests, errors, endpoints);
+    }
+
+    public record Report(int concurrency, double seconds, long requests, long errors, List<Map<String, Object>> endpoints) {
+
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        Map<String, Object> asMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("concurrency", concurrency);
+            map.put("measuredSeconds", seconds);
+            map.put("requests", requests);
+            map.put("throughputPerSecond", Math.round(requests / seconds * 100) / 100.0);
+            map.put("errors", errors);
+            map.put("endpoints", endpoints);
+            return map;
+        }
+
+        String table() {
+            StringBuilder table = new StringBuilder(String.format("%-55s %9s %9s %8s %8s %9s %9s %9s%n",
+                    "endpoint", "requests", "req/s", "4xx", "errors", "p50 ms", "p95 ms", "p99 ms"));
+            for (Map<String, Object> row : endpoints) {
+                table.append(String.format("%-55s %9s %9s %8s %8s %9s %9s %9s%n",
+                        row.get("endpoint"), row.get("requests"), row.get("throughputPerSecond"), row.get("rejected4xx"),
+                        row.get("errors"), row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms")));
+            }
+            table.append(String.format("Tổng: %d request trong %.1f s (%.1f req/s), %d lỗi",
+                    requests, seconds, requests / seconds, errors));
+            return table.toString();
+        }
+    }
+}
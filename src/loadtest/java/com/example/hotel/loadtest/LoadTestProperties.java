@@ -0,0 +1,52 @@
+package com.example.hotel.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Cấu hình bài kiểm tra tải (loadtest.*), mặc định trong application-loadtest.properties,
+ * ghi đè bằng -D khi chạy, vd. mvn -Ploadtest test -Dloadtest.seed.customers=500000 -Dloadtest.run.concurrency=64
+ */
+@Data
+@ConfigurationProperties(prefix = "loadtest")
+public class LoadTestProperties {
+
+    private Seed seed = new Seed();
+    private Run run = new Run();
+    private Mix mix = new Mix();
+
+    @Data
+    public static class Seed {
+        private long randomSeed = 42;
+        private int roomTypes = 8;
+        private int roomsPerType = 25;
+        private int years = 2;              // Số năm lịch sử đặt phòng tính đến hôm nay
+        private int daysAhead = 90;         // Đặt phòng tương lai đã có sẵn
+        private int customers = 200_000;
+        private int maxGapNights = 3;       // Số đêm phòng trống tối đa giữa hai booking liên tiếp
+        private int maxStayNights = 5;
+        private int batchSize = 1000;       // Số entity mỗi transaction khi nạp dữ liệu
+    }
+
+    @Data
+    public static class Run {
+        private int concurrency = 32;
+        private int warmupSeconds = 15;
+        private int durationSeconds = 60;
+        private int searchWindowDays = 120; // Ngày nhận phòng khi tìm / đặt phòng: trong khoảng này tính từ ngày mai
+        private double maxErrorRate = 0.01; // Tỉ lệ lỗi 5xx / lỗi kết nối tối đa trước khi bài kiểm tra thất bại
+        private String resultFile = "target/loadtest-result.json";
+    }
+
+    /**
+     * Trọng số của từng loại request trong tổ hợp tải.
+     */
+    @Data
+    public static class Mix {
+        private int roomSearch = 45;
+        private int roomTypeSearch = 15;
+        private int publicBooking = 10;
+        private int adminList = 22;
+        private int frontDesk = 8;          // Nhận phòng / trả phòng
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.hotel.loadtest;
+
+import com.example.hotel.entity.*;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sinh dữ liệu giả lập cho bài kiểm tra tải: hạng thành viên, loại phòng / phòng, khách hàng,
+ * lịch sử đặt phòng nhiều năm (kèm thanh toán và giao dịch điểm) và booking tương lai.
+ * Chạy trước ApplicationReadyEvent, nên các bước khởi động của ứng dụng (chỉ mục phòng trống, bảng tồn phòng,
+ * amount_paid, bộ đếm lưu trú của khách) được dựng lại trên chính dữ liệu này.
+ *
+ * Khách hàng thứ i có email / CCCD / tên xác định từ i (customerEmail, customerIdNumber, ...),
+ * để LoadDriver đặt phòng công khai bằng khách đã có mà không cần giữ danh sách trong bộ nhớ.
+ */
+@Slf4j
+public class SyntheticDataGenerator {
+
+    public static final String ADMIN_USERNAME = "loadtest-admin";
+
+    private static final String[] FAMILY_NAMES = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng"};
+    private static final String[] GIVEN_NAMES = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hùng", "Lan", "Minh", "Ngọc", "Phương", "Quân", "Thảo", "Trang", "Tuấn", "Vy"};
+    private static final String[] AMENITIES = {"Wifi", "TV", "Điều hòa", "Minibar", "Bồn tắm", "Ban công", "Két sắt", "Máy sấy tóc"};
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final LoadTestProperties.Seed seed;
+
+    public SyntheticDataGenerator(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                                  PasswordEncoder passwordEncoder, LoadTestProperties properties) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.seed = properties.getSeed();
+    }
+
+    public static String customerName(int i) {
+        return FAMILY_NAMES[i % FAMILY_NAMES.length] + " " + GIVEN_NAMES[(i / FAMILY_NAMES.length) % GIVEN_NAMES.length] + " " + i;
+    }
+
+    public static String customerEmail(int i) {
+        return "khach" + i + "@loadtest.local";
+    }
+
+    public static String customerIdNumber(int i) {
+        return String.format("LT%010d", i);
+    }
+
+    public static String customerPhone(int i) {
+        return String.format("09%08d", i);
+    }
+
+    public SeedData generate() {
+        long start = System.nanoTime();
+        Random random = new Random(seed.getRandomSeed());
+
+        LoyaltyTier defaultTier = transactionTemplate.execute(status -> seedAdminAndTiers());
+        List<Room> rooms = transactionTemplate.execute(status -> seedRooms(random));
+        long[] customerIds = seedCustomers(defaultTier);
+        SeedData data = seedBookings(random, rooms, customerIds);
+
+        // Điểm hiện tại của khách = tổng giao dịch điểm đã sinh
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                "UPDATE customers c SET current_points = " +
+                        "(SELECT COALESCE(SUM(t.points_earned), 0) FROM loyalty_point_transactions t WHERE t.customer_id = c.id)")
+                .executeUpdate());
+
+        log.info("Đã sinh dữ liệu tải trong {} s: {} phòng, {} khách hàng, {} booking, {} thanh toán, {} giao dịch điểm",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), data.rooms().size(), customerIds.length,
+                data.bookings(), data.payments(), data.loyaltyTransactions());
+        return data;
+    }
+
+    private LoyaltyTier seedAdminAndTiers() {
+        User admin = new User();
+        admin.setUsername(ADMIN_USERNAME);
+        admin.setEmail(ADMIN_USERNAME + "@loadtest.local");
+        admin.setFullName("Quản trị tải");
+        admin.setPassword(passwordEncoder.encode("loadtest"));
+        admin.setRole("ADMIN");
+        entityManager.persist(admin);
+
+        String[] names = {"Đồng", "Bạc", "Vàng", "Bạch Kim"};
+        int[] points = {0, 1000, 1500, 3000};
+        LoyaltyTier lowest = null;
+        for (int i = 0; i < names.length; i++) {
+            LoyaltyTier tier = new LoyaltyTier();
+            tier.setName(names[i]);
+            tier.setPointsRequired(points[i]);
+            tier.setBenefitsJson("[]");
+            entityManager.persist(tier);
+            if (lowest == null) {
+                lowest = tier;
+            }
+        }
+        return lowest;
+    }
+
+    private List<Room> seedRooms(Random random) {
+        List<Room> rooms = new ArrayList<>();
+        for (int t = 0; t < seed.getRoomTypes(); t++) {
+            RoomType roomType = new RoomType();
+            roomType.setTypeCode("LT_" + t);
+            roomType.setName("Loại " + t);
+            roomType.setDescription("Loại phòng sinh tự động " + t);
+            roomType.setCapacity(2 + t % 3);
+            roomType.setBasePrice(BigDecimal.valueOf(400_000L + t * 150_000L));
+            roomType.setArea(20.0 + t * 5);
+            roomType.setAmenities(String.join(",", List.of(AMENITIES).subList(0, 2 + t % (AMENITIES.length - 1))));
+            roomType.setPointsEarned(t % 4 == 0 ? 0 : 50 + t * 10); // Vài loại phòng không tích điểm
+            entityManager.persist(roomType);
+
+            for (int n = 0; n < seed.getRoomsPerType(); n++) {
+                Room room = new Room();
+                room.setRoomNumber(t + "-" + n);
+                room.setRoomType(roomType);
+                room.setFloor(1 + n / 10);
+                room.setStatus(RoomStatus.AVAILABLE);
+                // Giá từng phòng dao động quanh giá cơ bản của loại phòng
+                room.setPrice(roomType.getBasePrice().add(BigDecimal.valueOf(random.nextInt(5) * 50_000L)));
+                entityManager.persist(room);
+                rooms.add(room);
+            }
+        }
+        return rooms;
+    }
+
+    private long[] seedCustomers(LoyaltyTier defaultTier) {
+        long[] ids = new long[seed.getCustomers()];
+        for (int from = 0; from < ids.length; from += seed.getBatchSize()) {
+            int start = from;
+            int end = Math.min(ids.length, from + seed.getBatchSize());
+            transactionTemplate.executeWithoutResult(status -> {
+                LoyaltyTier tier = entityManager.getReference(LoyaltyTier.class, defaultTier.getId());
+                List<Customer> batch = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    Customer customer = new Customer();
+                    customer.setFullName(customerName(i));
+                    customer.setEmail(customerEmail(i));
+                    customer.setIdNumber(customerIdNumber(i));
+                    customer.setPhone(customerPhone(i));
+                    customer.setDateOfBirth(LocalDate.of(1960 + i % 45, 1 + i % 12, 1 + i % 28));
+                    customer.setAddress("Số " + (i % 300) + ", Hà Nội");
+                    customer.setCurrentPoints(0);
+                    customer.setLoyaltyTier(tier);
+                    entityManager.persist(customer);
+                    batch.add(customer);
+                }
+                entityManager.flush();
+                for (int i = start; i < end; i++) {
+                    ids[i] = batch.get(i - start).getId();
+                }
+                entityManager.clear();
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * Lịch của từng phòng từ (hôm nay - years) đến (hôm nay + daysAhead): các booking nối tiếp nhau, xen kẽ vài đêm trống.
+     * Đã trả phòng -> CHECKED_OUT (một phần CANCELLED), đang ở -> CHECKED_IN, tương lai -> CONFIRMED / PENDING.
+     */
+    private SeedData seedBookings(Random random, List<Room> rooms, long[] customerIds) {
+        LocalDate today = LocalDate.now();
+        LocalDate end = today.plusDays(seed.getDaysAhead());
+        List<Booking> pending = new ArrayList<>(seed.getBatchSize());
+        List<Long> pendingCustomers = new ArrayList<>(seed.getBatchSize()); // ID khách của từng booking trong pending
+        List<Booking> arrivals = new ArrayList<>();
+        Queue<Long> checkedIn = new ConcurrentLinkedQueue<>();
+        long[] counts = new long[3]; // booking, thanh toán, giao dịch điểm
+        int sequence = 0;
+
+        for (Room room : rooms) {
+            LocalDate day = today.minusYears(seed.getYears());
+            while (true) {
+                day = day.plusDays(random.nextInt(seed.getMaxGapNights() + 1));
+                int nights = 1 + random.nextInt(seed.getMaxStayNights());
+                LocalDate checkout = day.plusDays(nights);
+                if (checkout.isAfter(end)) {
+                    break;
+                }
+                int customerIndex = random.nextInt(customerIds.length);
+                Booking booking = new Booking();
+                booking.setRoom(room);
+                booking.setCustomerFullName(customerName(customerIndex));
+                booking.setCustomerPhone(customerPhone(customerIndex));
+                booking.setCheckInDate(day);
+                booking.setCheckOutDate(checkout);
+                booking.setPricePerNight(room.getPrice());
+                booking.setTotalPrice(room.getPrice().multiply(BigDecimal.valueOf(nights)));
+                booking.setSoNguoiLon(1 + random.nextInt(room.getRoomType().getCapacity()));
+                booking.setSoTreEm(random.nextInt(2));
+                booking.setBookingConfirmationCode(String.format("#LT-%08d", sequence++));
+                if (!checkout.isAfter(today)) {
+                    booking.setStatus(random.nextInt(20) == 0 ? BookingStatus.CANCELLED : BookingStatus.CHECKED_OUT);
+                    if (booking.getStatus() == BookingStatus.CHECKED_OUT) {
+                        booking.setActualCheckinTime(day.atTime(14, random.nextInt(60)));
+                        booking.setActualCheckoutTime(checkout.atTime(11, random.nextInt(60)));
+                    }
+                } else if (!day.isAfter(today)) {
+                    booking.setStatus(BookingStatus.CHECKED_IN);
+                    booking.setActualCheckinTime(day.atTime(14, random.nextInt(60)));
+                } else {
+                    booking.setStatus(random.nextInt(5) == 0 ? BookingStatus.PENDING : BookingStatus.CONFIRMED);
+                }
+                pending.add(booking);
+                pendingCustomers.add(customerIds[customerIndex]);
+                if (pending.size() >= seed.getBatchSize()) {
+                    flushBookings(random, pending, pendingCustomers, arrivals, checkedIn, counts);
+                }
+                day = checkout;
+            }
+        }
+        flushBookings(random, pending, pendingCustomers, arrivals, checkedIn, counts);
+
+        // Lễ tân nhận phòng theo thứ tự ngày đến
+        arrivals.sort(Comparator.comparing(Booking::getCheckInDate));
+        Queue<Long> arrivalIds = new ConcurrentLinkedQueue<>();
+        arrivals.forEach(booking -> arrivalIds.add(booking.getId()));
+
+        List<SeedData.RoomRef> roomRefs = rooms.stream()
+                .map(room -> new SeedData.RoomRef(room.getId(), room.getPrice(), room.getRoomType().getCapacity()))
+                .toList();
+        return new SeedData(roomRefs, customerIds.length, checkedIn, arrivalIds, counts[0], counts[1], counts[2]);
+    }
+
+    private void flushBookings(Random random, List<Booking> pending, List<Long> pendingCustomers,
+                               List<Booking> arrivals, Queue<Long> checkedIn, long[] counts) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < pending.size(); i++) {
+                Booking booking = pending.get(i);
+                booking.setCustomer(entityManager.getReference(Customer.class, pendingCustomers.get(i)));
+                entityManager.persist(booking);
+                counts[0]++;
+                counts[1] += seedPayments(random, booking);
+                if (booking.getStatus() == BookingStatus.CHECKED_OUT && booking.getRoom().getRoomType().getPointsEarned() > 0) {
+                    LoyaltyPointTransaction transaction = new LoyaltyPointTransaction();
+                    transaction.setCustomer(booking.getCustomer());
+                    transaction.setBooking(booking);
+                    transaction.setPointsEarned(booking.getRoom().getRoomType().getPointsEarned());
+                    transaction.setDescription("Tích điểm cho phòng " + booking.getRoom().getRoomType().getName());
+                    entityManager.persist(transaction);
+                    counts[2]++;
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        for (Booking booking : pending) {
+            if (booking.getStatus() == BookingStatus.CHECKED_IN) {
+                checkedIn.add(booking.getId());
+            } else if (booking.getStatus() == BookingStatus.CONFIRMED) {
+                arrivals.add(booking);
+            }
+        }
+        pending.clear();
+        pendingCustomers.clear();
+    }
+
+    /**
+     * Đã trả phòng: thanh toán đủ (một hoặc hai lần); đang ở / đã xác nhận: đặt cọc 30%.
+     */
+    private int seedPayments(Random random, Booking booking) {
+        BigDecimal total = booking.getTotalPrice();
+        LocalDateTime paidAt = booking.getCheckInDate().minusDays(random.nextInt(14)).atTime(10, 0);
+        switch (booking.getStatus()) {
+            case CHECKED_OUT -> {
+                if (random.nextBoolean()) {
+                    persistPayment(booking, total, "CASH", paidAt);
+                    return 1;
+                }
+                BigDecimal deposit = total.multiply(new BigDecimal("0.3")).setScale(0, RoundingMode.DOWN);
+                persistPayment(booking, deposit, "BANK_TRANSFER", paidAt);
+                persistPayment(booking, total.subtract(deposit), "CASH", booking.getCheckOutDate().atTime(11, 0));
+                return 2;
+            }
+            case CHECKED_IN, CONFIRMED -> {
+                persistPayment(booking, total.multiply(new BigDecimal("0.3")).setScale(0, RoundingMode.DOWN), "BANK_TRANSFER", paidAt);
+                return 1;
+            }
+            default -> {
+                return 0;
+            }
+        }
+    }
+
+    private void persistPayment(Booking booking, BigDecimal amount, String method, LocalDateTime paidAt) {
+        Payment payment = new Payment();
+        payment.setBooking(booking);
+        payment.setAmount(amount);
+        payment.setMethod(method);
+        payment.setPaymentDate(paidAt);
+        entityManager.persist(payment);
+    }
+
+    /**
+     * Kết quả nạp dữ liệu mà LoadDriver cần: danh sách phòng, số khách hàng,
+     * hàng đợi booking đang ở (để trả phòng) và booking sắp đến (để nhận phòng).
+     */
+    public record SeedData(List<RoomRef> rooms, int customers, Queue<Long> checkedIn, Queue<Long> arrivals,
+                           long bookings, long payments, long loyaltyTransactions) {
+
+        public record RoomRef(Long id, BigDecimal price, int capacity) {
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.example.hotel;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // Thêm (exclude = {SecurityAutoConfiguration.class}) để tắt bảo mật
 @SpringBootApplication(exclude = {SecurityAutoConfiguration.class})
+@EnableScheduling
 public class HotelApplication {
 
     public static void main(String[] args) {
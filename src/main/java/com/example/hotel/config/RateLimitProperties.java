@@ -0,0 +1,39 @@
+package com.example.hotel.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cấu hình giới hạn tần suất cho các API công khai (hotel.ratelimit.*), xem RateLimitFilter.
+ * Mỗi route có hai bucket: theo IP (perIp*) và chung cho cả endpoint (global*); 0 = không giới hạn.
+ * Route được so theo thứ tự khai báo, route đầu tiên khớp sẽ được áp dụng.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hotel.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Lấy IP từ phần tử cuối của X-Forwarded-For (chỉ bật khi chạy sau đúng một reverse proxy tin cậy)
+    private boolean trustForwardedFor = false;
+
+    // Số bucket tối đa được giữ trong bộ nhớ và thời gian bucket không dùng bị bỏ đi
+    private long maxBuckets = 100_000;
+    private long idleSeconds = 600;
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String pattern;          // Ant pattern, vd. /api/public/rooms/available
+        private double perIpPerSecond;   // Tốc độ nạp token theo IP
+        private int perIpBurst;          // Dung lượng bucket theo IP
+        private double globalPerSecond;  // Tốc độ nạp token chung của endpoint
+        private int globalBurst;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.hotel.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Đăng ký hàm match_against(cột, từ khóa) cho Criteria/HQL, sinh ra MATCH(cột) AGAINST(từ khóa IN BOOLEAN MODE)
+ * để dùng chỉ mục FULLTEXT (ngram) của MySQL. Được Hibernate nạp qua META-INF/services.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                "match_against",
+                "match(?1) against(?2 in boolean mode)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE));
+    }
+}
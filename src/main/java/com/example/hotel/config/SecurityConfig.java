@@ -79,6 +79,9 @@ public class SecurityConfig {
 
                         .requestMatchers("/avatars/**").permitAll()
 
+                        // Health check và Prometheus scrape (actuator chỉ lắng nghe trên cổng quản trị nội bộ, xem application.properties)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+
                         // Yêu cầu vai trò 'ADMIN',"MANAGER" cho tất cả các API dưới /api/admin/
                         .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "MANAGER")
 
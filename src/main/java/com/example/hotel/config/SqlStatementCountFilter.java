@@ -0,0 +1,74 @@
+package com.example.hotel.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Đếm số câu lệnh SQL của mỗi HTTP request (SqlStatementCounter), ghi vào hotel.http.sql.statements{uri}
+ * và log cảnh báo khi request vượt hotel.sql.warnStatements câu lệnh hoặc một câu lệnh lặp lại
+ * từ hotel.sql.warnRepeats lần trở lên (nghi N+1).
+ * Chạy trước mọi filter khác để tính cả truy vấn của bước xác thực.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatementCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int warnStatements;
+    private final int warnRepeats;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry,
+                                   @Value("${hotel.sql.warnStatements:30}") int warnStatements,
+                                   @Value("${hotel.sql.warnRepeats:10}") int warnRepeats) {
+        this.meterRegistry = meterRegistry;
+        this.warnStatements = warnStatements;
+        this.warnRepeats = warnRepeats;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                report(request, scope);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN"; // Dùng mẫu đường dẫn, không dùng URI thật (tránh bùng nổ tag)
+        DistributionSummary.builder("hotel.http.sql.statements")
+                .description("Số câu lệnh SQL trong một HTTP request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.count());
+
+        Map.Entry<String, Integer> repeated = scope.mostRepeated().orElse(null);
+        if (repeated != null && repeated.getValue() >= warnRepeats) {
+            logger.warn("Nghi N+1: {} {} chạy {} câu lệnh SQL, trong đó {} lần: {}",
+                    request.getMethod(), uri, scope.count(), repeated.getValue(), repeated.getKey());
+        } else if (scope.count() >= warnStatements) {
+            logger.warn("Request nhiều truy vấn: {} {} chạy {} câu lệnh SQL", request.getMethod(), uri, scope.count());
+        }
+    }
+}
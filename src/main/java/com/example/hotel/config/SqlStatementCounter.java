@@ -0,0 +1,87 @@
+package com.example.hotel.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Đếm số câu lệnh SQL Hibernate gửi đi trên luồng hiện tại, trong một phạm vi (Scope) do
+ * SqlStatementCountFilter mở cho mỗi HTTP request hoặc do test mở quanh một thao tác.
+ * Được Hibernate nạp qua hibernate.session_factory.statement_inspector (application.properties).
+ *
+ * Câu lệnh giống hệt nhau lặp lại nhiều lần trong cùng phạm vi thường là dấu hiệu N+1 (nạp lười trong vòng lặp).
+ * Phạm vi lồng nhau: câu lệnh được tính cho cả phạm vi cha (vd. test bao quanh một request MockMvc).
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Mở phạm vi đếm mới trên luồng hiện tại; đóng (try-with-resources) để trả lại phạm vi cha.
+     */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        // Giới hạn số câu lệnh khác nhau được ghi nhớ để tìm câu lặp nhiều nhất
+        private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+        private final Scope parent;
+        private final Map<String, Integer> repeats = new HashMap<>();
+        private int count;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String sql) {
+            count++;
+            if (repeats.size() < MAX_DISTINCT_STATEMENTS || repeats.containsKey(sql)) {
+                repeats.merge(sql, 1, Integer::sum);
+            }
+            if (parent != null) {
+                parent.record(sql);
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Câu lệnh lặp lại nhiều nhất trong phạm vi và số lần lặp.
+         */
+        public Optional<Map.Entry<String, Integer>> mostRepeated() {
+            return repeats.entrySet().stream().max(Map.Entry.comparingByValue());
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
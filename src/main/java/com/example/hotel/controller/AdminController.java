@@ -5,6 +5,8 @@ import com.example.hotel.dto.PasswordChangeRequest;
 import com.example.hotel.dto.ProfileUpdateRequest;
 import com.example.hotel.entity.User;
 import com.example.hotel.repository.UserRepository;
+import com.example.hotel.security.PrincipalCache;
+import com.example.hotel.security.TokenVersionRegistry;
 import com.example.hotel.service.impl.UserDetailsImpl;
 import com.example.hotel.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @RestController
@@ -32,6 +35,12 @@ public class AdminController {
     @Autowired
     PasswordEncoder passwordEncoder; // Dùng để mã hóa mật khẩu
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public List<User> getAllUsers() {
@@ -71,6 +80,10 @@ public class AdminController {
         }
 
         User existingUser = optionalUser.get();
+        // Đổi quyền, khóa tài khoản hoặc đặt lại mật khẩu -> thu hồi các token đã cấp cho người dùng này
+        boolean revokeTokens = !Objects.equals(existingUser.getRole(), userDetails.getRole())
+                || existingUser.getIsActive() != userDetails.getIsActive()
+                || (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty());
         existingUser.setFullName(userDetails.getFullName());
         existingUser.setEmail(userDetails.getEmail());
         existingUser.setRole(userDetails.getRole());
@@ -85,16 +98,23 @@ public class AdminController {
         // existingUser.setUsername(userDetails.getUsername());
 
         User updatedUser = userRepository.save(existingUser);
+        if (revokeTokens) {
+            tokenVersionRegistry.revokeUserTokens(id);
+        }
+        principalCache.evictAdmin(updatedUser.getUsername());
         return ResponseEntity.ok(updatedUser);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        if (!userRepository.existsById(id)) {
+        Optional<User> user = userRepository.findById(id);
+        if (user.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         userRepository.deleteById(id);
+        tokenVersionRegistry.evictUserAfterCommit(id);
+        principalCache.evictAdmin(user.get().getUsername());
         return ResponseEntity.noContent().build();
     }
     @GetMapping("/profile")
@@ -5,12 +5,18 @@ import com.example.hotel.dto.JwtResponse;
 import com.example.hotel.dto.LoginRequest;
 import com.example.hotel.dto.RegisterRequest;
 import com.example.hotel.entity.User;
+import com.example.hotel.exception.TooManyRequestsException;
 import com.example.hotel.repository.UserRepository;
+import com.example.hotel.security.LoginAttemptLimiter;
+import com.example.hotel.security.PasswordHashingBulkhead;
 import com.example.hotel.security.jwt.JwtUtils;
 import org.hibernate.validator.internal.util.stereotypes.Lazy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -39,18 +45,41 @@ public class AuthAdminController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    PasswordHashingBulkhead hashingBulkhead;
+
+    @Autowired
+    LoginAttemptLimiter loginAttemptLimiter;
+
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        String loginName = loginRequest.getUsername();
+        // Sai mật khẩu quá nhiều lần -> từ chối ngay, không chạy BCrypt
+        if (loginAttemptLimiter.isLocked(loginName)) {
+            return tooManyRequests("Lỗi: Đăng nhập sai quá nhiều lần, vui lòng thử lại sau.", loginAttemptLimiter.getLockoutSeconds());
+        }
+
+        Authentication authentication;
+        try {
+            // BCrypt (trong DaoAuthenticationProvider) chạy trên bulkhead riêng, không chiếm thread của Tomcat
+            authentication = hashingBulkhead.execute(() -> authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginName, loginRequest.getPassword())));
+        } catch (TooManyRequestsException e) {
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
+        } catch (BadCredentialsException e) {
+            loginAttemptLimiter.recordFailure(loginName);
+            throw e;
+        }
+        loginAttemptLimiter.recordSuccess(loginName);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtUtils.generateJwtToken(authentication);
 
         // Lấy thông tin người dùng từ database
         String username = authentication.getName();
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Lỗi: Không tìm thấy người dùng sau khi đăng nhập."));
+        // Token chứa role, id và token_version -> AuthTokenFilter không phải nạp lại User ở mỗi request
+        String jwt = jwtUtils.generateJwtToken(user);
 
         // Trả về JwtResponse mới đã chứa thông tin user
         return ResponseEntity.ok(new JwtResponse(
@@ -62,6 +91,12 @@ public class AuthAdminController {
         ));
     }
 
+    private static ResponseEntity<String> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(message);
+    }
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody RegisterRequest registerRequest) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
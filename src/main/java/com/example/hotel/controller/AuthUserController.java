@@ -5,11 +5,16 @@ import com.example.hotel.dto.CustomerRegisterRequest;
 import com.example.hotel.dto.JwtResponse;
 import com.example.hotel.dto.MessageResponse;
 import com.example.hotel.entity.Customer;
+import com.example.hotel.exception.TooManyRequestsException;
 import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.security.LoginAttemptLimiter;
+import com.example.hotel.security.PasswordHashingBulkhead;
 import com.example.hotel.security.jwt.JwtUtils;
 import com.example.hotel.service.CustomerAuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -24,25 +29,36 @@ public class AuthUserController {
     private final CustomerAuthService customerAuthService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils; // Sử dụng lại JwtUtils của admin
+    private final PasswordHashingBulkhead hashingBulkhead;
+    private final LoginAttemptLimiter loginAttemptLimiter;
 
     /**
      * API Đăng nhập cho Khách hàng
      */
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateCustomer(@Valid @RequestBody CustomerLoginRequest loginRequest) {
+        String email = loginRequest.getEmail();
+
+        // Sai mật khẩu quá nhiều lần -> từ chối ngay, không chạy BCrypt
+        if (loginAttemptLimiter.isLocked(email)) {
+            return tooManyRequests("Bạn đã nhập sai quá nhiều lần, vui lòng thử lại sau.", loginAttemptLimiter.getLockoutSeconds());
+        }
 
         try {
             // Tìm khách hàng bằng email
-            Customer customer = customerRepository.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new RuntimeException("Email hoặc mật khẩu không đúng!"));
+            Customer customer = customerRepository.findByEmail(email).orElse(null);
 
-            // Kiểm tra mật khẩu
-            if (customer.getPassword() == null || !passwordEncoder.matches(loginRequest.getPassword(), customer.getPassword())) {
+            // Kiểm tra mật khẩu (BCrypt chạy trên bulkhead riêng, không chiếm thread của Tomcat)
+            boolean matches = customer != null && customer.getPassword() != null
+                    && hashingBulkhead.execute(() -> passwordEncoder.matches(loginRequest.getPassword(), customer.getPassword()));
+            if (!matches) {
+                loginAttemptLimiter.recordFailure(email);
                 throw new RuntimeException("Email hoặc mật khẩu không đúng!");
             }
+            loginAttemptLimiter.recordSuccess(email);
 
-            // Tạo JWT Token (chỉ chứa email của khách hàng)
-            String jwt = jwtUtils.generateTokenFromUsername(customer.getEmail());
+            // Tạo JWT Token (email, id và token_version của khách hàng)
+            String jwt = jwtUtils.generateCustomerToken(customer);
 
             // Trả về token (Thành công)
             return ResponseEntity.ok(new JwtResponse(
@@ -56,12 +72,21 @@ public class AuthUserController {
 
             ));
 
+        } catch (TooManyRequestsException e) {
+            // Bulkhead kiểm tra mật khẩu đang đầy
+            return tooManyRequests(e.getMessage(), e.getRetryAfterSeconds());
         } catch (RuntimeException e) {
             // "Bắt" lỗi "Email hoặc mật khẩu không đúng!" và trả về JSON
             return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
 
+    private static ResponseEntity<MessageResponse> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new MessageResponse(message));
+    }
+
     /**
      * API Đăng ký cho Khách hàng
      */
@@ -1,7 +1,9 @@
 package com.example.hotel.controller;
 
 import com.example.hotel.dto.BookingDto;
+import com.example.hotel.dto.CursorPage;
 import com.example.hotel.dto.PaymentDto;
+import com.example.hotel.service.BookingAmountPaidService;
 import com.example.hotel.service.BookingService;
 import com.example.hotel.service.PaymentService;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +28,10 @@ public class BookingAdminController {
 
     private final BookingService bookingService;
     private final PaymentService paymentService;
+    private final BookingAmountPaidService bookingAmountPaidService;
+
+    // Số booking tối đa của một trang (kể cả trang theo con trỏ)
+    private static final int MAX_PAGE_SIZE = 100;
 
     @GetMapping
     public ResponseEntity<Page<BookingDto>> getAllBookings(
@@ -34,18 +40,48 @@ public class BookingAdminController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
             @RequestParam(required = false) Long roomTypeId,
             @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean unpaidOnly,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "6") int size,
             @RequestParam(defaultValue = "createdDate,desc") String[] sort) {
 
         String sortField = sort[0];
         Sort.Direction sortDirection = (sort.length > 1 && sort[1].equalsIgnoreCase("asc")) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortField));
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize(size), Sort.by(sortDirection, sortField));
 
-        Page<BookingDto> bookingPage = bookingService.findBookings(status, fromDate, toDate, roomTypeId, search, pageable);
+        Page<BookingDto> bookingPage = bookingService.findBookings(status, fromDate, toDate, roomTypeId, search, unpaidOnly, pageable);
         return ResponseEntity.ok(bookingPage);
     }
 
+    /**
+     * Phân trang theo con trỏ (keyset) cho danh sách đặt phòng nhiều năm: trang sâu không chậm dần như OFFSET.
+     * Truyền nextCursor của trang trước vào cursor để lấy trang kế tiếp; withTotal=true nếu cần tổng số bản ghi.
+     * GET /api/admin/bookings/cursor?size=...&sort=createdDate,desc&cursor=...
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getBookingsByCursor(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) Long roomTypeId,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "false") boolean unpaidOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "6") int size,
+            @RequestParam(defaultValue = "createdDate,desc") String[] sort,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        String sortField = sort[0];
+        Sort.Direction sortDirection = (sort.length > 1 && sort[1].equalsIgnoreCase("asc")) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        try {
+            CursorPage<BookingDto> bookingPage = bookingService.findBookingsByCursor(
+                    status, fromDate, toDate, roomTypeId, search, unpaidOnly, sortField, sortDirection, cursor, pageSize(size), withTotal);
+            return ResponseEntity.ok(bookingPage);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BookingDto> getBookingById(@PathVariable Long id) {
         return ResponseEntity.ok(bookingService.getBookingById(id));
@@ -89,7 +125,7 @@ public class BookingAdminController {
             sortField = "created_date";
         }
         Sort.Direction sortDirection = (sort.length > 1 && sort[1].equalsIgnoreCase("asc")) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortField));
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize(size), Sort.by(sortDirection, sortField));
         Page<BookingDto> trashPage = bookingService.getDeletedBookings(pageable);
         return ResponseEntity.ok(trashPage);
     }
@@ -97,4 +133,17 @@ public class BookingAdminController {
     public ResponseEntity<List<PaymentDto>> getBookingPayments(@PathVariable Long id) {
         return ResponseEntity.ok(paymentService.getPaymentsForBooking(id));
     }
+
+    /**
+     * Tính lại amount_paid từ bảng payments cho các booking bị lệch (job đêm cũng làm việc này).
+     * POST /api/admin/bookings/amount-paid/reconcile
+     */
+    @PostMapping("/amount-paid/reconcile")
+    public ResponseEntity<Map<String, Integer>> reconcileAmountPaid() {
+        return ResponseEntity.ok(Map.of("bookingsCorrected", bookingAmountPaidService.reconcile()));
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 }
@@ -3,17 +3,24 @@ package com.example.hotel.controller;
 import com.example.hotel.dto.BookingHistoryDto;
 import com.example.hotel.dto.CustomerRequestDTO;
 import com.example.hotel.dto.CustomerResponseDTO;
+import com.example.hotel.dto.CustomerStatsReconcileResultDto;
 import com.example.hotel.dto.LoyaltyPointTransactionDto;
 import com.example.hotel.service.BookingService;
 import com.example.hotel.service.CustomerService;
+import com.example.hotel.service.CustomerStatsService;
 import com.example.hotel.service.LoyaltyAutomationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/customers")
@@ -23,6 +30,10 @@ public class CustomerAdminController {
     private final CustomerService customerService;
     private final BookingService bookingService;
     private final LoyaltyAutomationService loyaltyService;
+    private final CustomerStatsService customerStatsService;
+
+    // Số khách tối đa của một trang danh sách
+    private static final int MAX_PAGE_SIZE = 100;
 
     // Tạo khách hàng mới
     @PostMapping
@@ -32,11 +43,28 @@ public class CustomerAdminController {
         return new ResponseEntity<>(newCustomer, HttpStatus.CREATED);
     }
 
-    // Lấy tất cả khách hàng
+    // Một trang khách hàng (Page, size tối đa MAX_PAGE_SIZE), hoặc tìm kiếm (không dấu) theo tên / SĐT / email / CCCD
+    // nếu có tham số search (danh sách, tối đa 100 kết quả).
     @GetMapping
-    public ResponseEntity<List<CustomerResponseDTO>> getAllCustomers() {
-        List<CustomerResponseDTO> customers = customerService.getAllCustomers();
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<?> getAllCustomers(
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id,desc") String[] sort) {
+        if (search != null && !search.isBlank()) {
+            return ResponseEntity.ok(customerService.searchCustomers(search));
+        }
+        String sortField = sort[0];
+        Sort.Direction sortDirection = (sort.length > 1 && sort[1].equalsIgnoreCase("asc")) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)), Sort.by(sortDirection, sortField));
+        Page<CustomerResponseDTO> customerPage = customerService.getCustomers(pageable);
+        return ResponseEntity.ok(customerPage);
+    }
+
+    // Số khách hàng theo hạng thành viên (thẻ thống kê của trang danh sách khách hàng)
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> getCustomerStats() {
+        return ResponseEntity.ok(customerService.countCustomersByTier());
     }
 
     // Lấy 1 khách hàng theo ID
@@ -76,4 +104,10 @@ public class CustomerAdminController {
         return ResponseEntity.ok(history);
     }
 
+    // ĐỐI SOÁT THỐNG KÊ LƯU TRÚ (sửa bộ đếm bị lệch so với bảng bookings)
+    @PostMapping("/stats/reconcile")
+    public ResponseEntity<CustomerStatsReconcileResultDto> reconcileStats() {
+        return ResponseEntity.ok(customerStatsService.reconcile());
+    }
+
 }
\ No newline at end of file
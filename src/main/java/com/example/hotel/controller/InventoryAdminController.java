@@ -0,0 +1,57 @@
+package com.example.hotel.controller;
+
+import com.example.hotel.dto.InventoryOccupancyDto;
+import com.example.hotel.dto.InventoryRepairResultDto;
+import com.example.hotel.service.RoomTypeInventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/inventory")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class InventoryAdminController {
+
+    private final RoomTypeInventoryService inventoryService;
+
+    /**
+     * Số phòng còn trống của từng loại phòng (roomTypeId -> số phòng) cho khoảng [checkin, checkout)
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<Long, Integer>> getAvailability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkin,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkout) {
+        if (!checkout.isAfter(checkin)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(inventoryService.getAvailableCounts(checkin, checkout));
+    }
+
+    /**
+     * Công suất phòng theo từng đêm trong [from, to)
+     */
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<InventoryOccupancyDto>> getOccupancy(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(inventoryService.getOccupancy(from, to));
+    }
+
+    /**
+     * Đối soát bảng tồn phòng với bảng bookings ngay lập tức (mặc định từ hôm nay)
+     */
+    @PostMapping("/repair")
+    public ResponseEntity<InventoryRepairResultDto> repair(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from) {
+        return ResponseEntity.ok(inventoryService.repair(from != null ? from : LocalDate.now()));
+    }
+}
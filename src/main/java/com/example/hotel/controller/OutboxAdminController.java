@@ -0,0 +1,39 @@
+package com.example.hotel.controller;
+
+import com.example.hotel.dto.OutboxEventDto;
+import com.example.hotel.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/outbox")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class OutboxAdminController {
+
+    private final OutboxService outboxService;
+
+    /**
+     * Các sự kiện outbox đã thất bại quá số lần thử (vd. cộng điểm khi trả phòng), cũ nhất trước
+     */
+    @GetMapping("/failed")
+    public ResponseEntity<List<OutboxEventDto>> getFailedEvents(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(outboxService.getFailedEvents(Math.max(1, Math.min(limit, 500))));
+    }
+
+    /**
+     * Đưa một sự kiện thất bại về hàng đợi để xử lý lại ngay
+     */
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<?> retry(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(outboxService.retry(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.hotel.controller;
 
 import com.example.hotel.dto.PaymentDto;
 import com.example.hotel.dto.PaymentRequestDto;
+import com.example.hotel.service.IdempotencyService;
 import com.example.hotel.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -15,10 +16,19 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentAdminController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
+    /**
+     * Ghi nhận thanh toán. Gửi kèm header Idempotency-Key (mỗi lần bấm "Xác nhận" một khóa mới)
+     * để lần bấm lặp / gửi lại không tạo thêm Payment.
+     */
     @PostMapping("/record")
-    public ResponseEntity<PaymentDto> recordPayment(@RequestBody PaymentRequestDto paymentDto) {
-        PaymentDto newPayment = paymentService.recordPayment(paymentDto);
-        return new ResponseEntity<>(newPayment, HttpStatus.CREATED);
+    public ResponseEntity<?> recordPayment(
+            @RequestBody PaymentRequestDto paymentDto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("payments.record", idempotencyKey, paymentDto, () -> {
+            PaymentDto newPayment = paymentService.recordPayment(paymentDto);
+            return new ResponseEntity<>(newPayment, HttpStatus.CREATED);
+        });
     }
 }
\ No newline at end of file
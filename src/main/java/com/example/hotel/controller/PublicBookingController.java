@@ -3,7 +3,9 @@ package com.example.hotel.controller;
 import com.example.hotel.dto.BookingRequestDTO;
 import com.example.hotel.dto.BookingResponseDTO;
 import com.example.hotel.dto.RoomDto;
+import com.example.hotel.dto.RoomTypeAvailabilityDto;
 import com.example.hotel.service.BookingService;
+import com.example.hotel.service.IdempotencyService;
 import com.example.hotel.service.RoomService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -25,6 +28,7 @@ public class PublicBookingController {
 
     private final RoomService roomService;
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * API CÔNG KHAI: Tìm phòng còn trống
@@ -42,27 +46,49 @@ public class PublicBookingController {
         return ResponseEntity.ok(availableRooms);
     }
 
+    /**
+     * API CÔNG KHAI: Số phòng còn trống theo từng loại phòng (kèm giá thấp nhất / cao nhất)
+     * Dùng cho trang danh sách loại phòng, thay vì tải từng phòng trống một.
+     * booking.html vẫn gọi /rooms/available vì khách chọn một phòng cụ thể và POST /bookings cần roomId.
+     * GET /api/public/room-types/available?checkin=...&checkout=...&adults=...&children=...
+     */
+    @GetMapping("/room-types/available")
+    public ResponseEntity<List<RoomTypeAvailabilityDto>> getAvailableRoomTypes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkin,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkout,
+            @RequestParam(value = "adults", defaultValue = "1") int adults,
+            @RequestParam(value = "children", defaultValue = "0") int children) {
+
+        log.info("Nhận yêu cầu đếm phòng trống theo loại: {} đến {}, {} người lớn, {} trẻ em", checkin, checkout, adults, children);
+        return ResponseEntity.ok(roomService.findAvailableRoomTypes(checkin, checkout, adults + children));
+    }
+
     /**
      * API CÔNG KHAI: Tạo một đặt phòng mới
      * POST /api/public/bookings
+     * Header Idempotency-Key (tùy chọn): gửi lại cùng khóa (mạng chậm, bấm lại) nhận lại đúng booking đã tạo.
      */
     @PostMapping("/bookings")
     public ResponseEntity<?> createBooking(
             @RequestBody BookingRequestDTO bookingRequest,
-            @RequestHeader(value = "Authorization", required = false) String token) {
+            @RequestHeader(value = "Authorization", required = false) String token,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         log.info("Nhận yêu cầu đặt phòng mới cho khách: {}", bookingRequest.getCustomerEmail());
-        try {
-            // Service sẽ xử lý logic (có token hoặc không)
-            BookingResponseDTO newBooking = bookingService.createPublicBooking(bookingRequest, token);
-            return ResponseEntity.ok(newBooking);
+        // Token nằm trong dấu vân tay: cùng khóa nhưng khác người đặt không nhận được booking của người khác
+        return idempotencyService.execute("public.bookings", idempotencyKey, Arrays.asList(bookingRequest, token), () -> {
+            try {
+                // Service sẽ xử lý logic (có token hoặc không)
+                BookingResponseDTO newBooking = bookingService.createPublicBooking(bookingRequest, token);
+                return ResponseEntity.ok(newBooking);
 
-        } catch (RuntimeException e) {
-            // Trả về lỗi nếu phòng không còn trống hoặc dữ liệu sai
-            log.error("Lỗi khi tạo đặt phòng: {}", e.getMessage());
-            // Trả về một đối tượng JSON chuẩn (giống như trang login)
-            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
-        }
+            } catch (RuntimeException e) {
+                // Trả về lỗi nếu phòng không còn trống hoặc dữ liệu sai
+                log.error("Lỗi khi tạo đặt phòng: {}", e.getMessage());
+                // Trả về một đối tượng JSON chuẩn (giống như trang login)
+                return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+            }
+        });
     }
 
     @Data
@@ -0,0 +1,18 @@
+package com.example.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// Một trang kết quả phân trang theo con trỏ (keyset): dùng nextCursor để lấy trang kế tiếp
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;       // null khi đã hết dữ liệu
+    private boolean hasNext;
+    private int size;
+    private Long totalElements;      // null nếu không yêu cầu đếm tổng
+}
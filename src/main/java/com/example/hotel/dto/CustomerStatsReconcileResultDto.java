@@ -0,0 +1,14 @@
+package com.example.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Kết quả đối soát bộ đếm lưu trú của khách hàng với bảng bookings
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatsReconcileResultDto {
+    private int customersChecked;
+    private int customersDrifted; // Số khách có bộ đếm lệch và đã được sửa
+}
@@ -0,0 +1,17 @@
+package com.example.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+// Công suất phòng của cả khách sạn trong một đêm
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryOccupancyDto {
+    private LocalDate stayDate;
+    private int totalRooms;
+    private int soldRooms;
+    private double occupancyRate; // 0..1
+}
@@ -0,0 +1,17 @@
+package com.example.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+// Kết quả đối soát bảng tồn phòng với bảng bookings
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryRepairResultDto {
+    private LocalDate fromDate;
+    private int rowsChecked;
+    private int rowsCreated;
+    private int rowsDrifted; // Số dòng có total/sold lệch so với dữ liệu thật và đã được sửa
+}
@@ -0,0 +1,17 @@
+package com.example.hotel.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class OutboxEventDto {
+    private Long id;
+    private String eventType;
+    private Long aggregateId;
+    private String status;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+}
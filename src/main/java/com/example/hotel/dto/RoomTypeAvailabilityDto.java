@@ -0,0 +1,19 @@
+package com.example.hotel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+// Số phòng còn trống của một loại phòng trong khoảng ngày, kèm giá thấp nhất / cao nhất
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomTypeAvailabilityDto {
+    private Long roomTypeId;
+    private String roomTypeName;
+    private Integer capacity;
+    private Long availableRooms;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
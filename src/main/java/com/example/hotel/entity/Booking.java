@@ -15,9 +15,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.example.hotel.entity.Customer;
+import com.example.hotel.util.TextNormalizer;
 
 @Entity
-@Table(name = "bookings")
+// Chỉ mục thật do Flyway tạo (V3__performance_indexes.sql, V4__denormalized_columns_and_support_tables.sql);
+// @Index ở đây chỉ dùng cho schema H2 create-drop của test, ddl-auto=validate không đụng tới chỉ mục
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_created_id", columnList = "createdDate, id"), // Phân trang theo con trỏ (keyset)
+        @Index(name = "idx_bookings_search_text", columnList = "search_text"),     // Điền bù search_text IS NULL; LIKE '%...%' không dùng được chỉ mục này
+        @Index(name = "idx_bookings_room_stay", columnList = "room_id, check_in_date, check_out_date, status"),
+        @Index(name = "idx_bookings_customer_checkin", columnList = "customer_id, check_in_date"),
+        @Index(name = "idx_bookings_status_created", columnList = "status, createdDate"),
+        @Index(name = "idx_bookings_check_out", columnList = "check_out_date")
+})
 @Getter
 @Setter
 @SQLDelete(sql = "UPDATE bookings SET deleted = true WHERE id = ?") // 1. Ghi đè lệnh DELETE
@@ -89,13 +99,20 @@ public class Booking {
     @OneToMany(mappedBy = "booking", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Payment> payments = new ArrayList<>();
 
-    public BigDecimal getAmountPaid() {
-        if (this.payments == null || this.payments.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        // Tính tổng
-        return this.payments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // Tổng tiền đã thanh toán = SUM(payments.amount), do PaymentServiceImpl cộng dồn bằng UPDATE nguyên tử
+    // (chỉ đọc với JPA để bản entity cũ không ghi đè). Job đối soát tính lại từ bảng payments.
+    @Column(name = "amount_paid", nullable = false, precision = 12, scale = 2, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private BigDecimal amountPaid = BigDecimal.ZERO;
+
+    // Tên khách, SĐT, mã đặt phòng, số phòng (luôn ở cuối) đã bỏ dấu + chữ thường, để tìm kiếm trên một cột (FULLTEXT)
+    @Column(name = "search_text", length = TextNormalizer.SEARCH_TEXT_LENGTH)
+    private String searchText;
+
+    @PrePersist
+    @PreUpdate
+    public void refreshSearchText() {
+        this.searchText = TextNormalizer.toSearchTextEndingWith(room != null ? room.getRoomNumber() : null,
+                customerFullName, customerPhone, bookingConfirmationCode);
     }
 }
\ No newline at end of file
@@ -4,14 +4,20 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import com.example.hotel.util.TextNormalizer;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "customers")
+// Chỉ mục do V4__denormalized_columns_and_support_tables.sql tạo; khai báo lại chỉ cho schema H2 của test
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_search_text", columnList = "search_text") // Điền bù search_text IS NULL; LIKE '%...%' không dùng được chỉ mục này
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,6 +62,36 @@ public class Customer {
 
     @Column(name = "password", nullable = true) // nullable = true để khách cũ không bị lỗi
     private String password;
+
+    // === THỐNG KÊ LƯU TRÚ (chỉ tính booking CHECKED_OUT) ===
+    // Chỉ được cập nhật bằng câu lệnh cộng dồn trong CustomerStatsService (insertable/updatable = false)
+    // để việc lưu entity Customer không ghi đè giá trị cũ lên bộ đếm.
+    @Column(name = "stay_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer stayCount = 0;
+
+    @Column(name = "stay_nights", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long stayNights = 0L;
+
+    @Column(name = "total_spend", nullable = false, precision = 14, scale = 2, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private BigDecimal totalSpend = BigDecimal.ZERO;
+
+    // Phiên bản token (claim "ver" trong JWT của khách hàng), xem TokenVersionRegistry
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer tokenVersion = 0;
+
+    // Họ tên, SĐT, email, CCCD đã bỏ dấu + chữ thường, để tìm kiếm dùng được chỉ mục
+    @Column(name = "search_text", length = TextNormalizer.SEARCH_TEXT_LENGTH)
+    private String searchText;
+
+    @PrePersist
+    @PreUpdate
+    public void refreshSearchText() {
+        this.searchText = TextNormalizer.toSearchText(fullName, phone, email, idNumber);
+    }
     //Lưu ý không cần thêm @OneToMany cho Bookings ở đây
     // Trừ khi muốn xem tất cả booking của 1 customer
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phản hồi đã lưu theo Idempotency-Key (dùng khi hotel.idempotency.store=database).
+ * status_code NULL nghĩa là request giữ khóa đang được xử lý.
+ */
+@Entity
+// idx_idempotency_expires do V4__denormalized_columns_and_support_tables.sql tạo; khai báo lại chỉ cho schema H2 của test
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires", columnList = "expires_at"))
+@Getter
+@Setter
+public class IdempotencyKey {
+
+    // Phạm vi endpoint + khóa client gửi lên
+    @Id
+    @Column(length = 200)
+    private String id;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -6,7 +6,11 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "loyalty_point_transactions")
+// Chỉ mục do Flyway tạo (V3, ràng buộc UNIQUE ở V7); @Index chỉ để schema H2 create-drop của test có cùng ràng buộc
+@Table(name = "loyalty_point_transactions", indexes = {
+        @Index(name = "idx_loyalty_tx_customer_created", columnList = "customer_id, created_at"),
+        @Index(name = "uk_loyalty_tx_booking", columnList = "booking_id", unique = true) // Mỗi booking chỉ tích điểm một lần
+})
 @Data
 public class LoyaltyPointTransaction {
 
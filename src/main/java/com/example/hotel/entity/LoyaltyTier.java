@@ -1,9 +1,13 @@
 package com.example.hotel.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Đọc ở mỗi lần check-out (xét hạng) -> cache cấp 2
 @Table(name = "loyalty_tiers")
 @Data
 public class LoyaltyTier {
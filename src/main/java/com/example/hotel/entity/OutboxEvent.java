@@ -0,0 +1,53 @@
+package com.example.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện outbox: được ghi trong cùng transaction với thay đổi nghiệp vụ (vd. trả phòng),
+ * sau đó OutboxService.drain đọc và xử lý bất đồng bộ, có thử lại.
+ */
+@Entity
+// Bảng và chỉ mục do V4__denormalized_columns_and_support_tables.sql tạo; @Index chỉ dùng cho schema H2 của test
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at"))
+@Getter
+@Setter
+public class OutboxEvent {
+
+    // Booking đã trả phòng -> cộng điểm và xét nâng hạng cho khách (aggregateId = booking id)
+    public static final String BOOKING_CHECKED_OUT = "BookingCheckedOut";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
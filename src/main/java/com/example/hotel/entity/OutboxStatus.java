@@ -0,0 +1,7 @@
+package com.example.hotel.entity;
+
+public enum OutboxStatus {
+    PENDING,   // Chờ xử lý (kể cả đang chờ thử lại)
+    PROCESSED, // Đã xử lý xong
+    FAILED     // Thất bại quá số lần cho phép, cần admin xem và thử lại
+}
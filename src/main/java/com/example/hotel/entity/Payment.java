@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+// idx_payments_booking_date do V3__performance_indexes.sql tạo; khai báo lại chỉ cho schema H2 của test
+@Table(name = "payments", indexes = @Index(name = "idx_payments_booking_date", columnList = "booking_id, payment_date"))
 @Getter
 @Setter
 public class Payment {
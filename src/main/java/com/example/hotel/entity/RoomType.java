@@ -3,11 +3,15 @@ package com.example.hotel.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Ít thay đổi, đọc ở mọi lần tìm phòng / chuyển đổi booking -> cache cấp 2
 @Table(name = "room_types")
 @Data
 public class RoomType {
@@ -0,0 +1,40 @@
+package com.example.hotel.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Tồn phòng theo từng loại phòng và từng đêm.
+ * total = số phòng thuộc loại này, sold = số phòng đã được đặt trong đêm stay_date (trừ CANCELLED và booking đã xóa).
+ * Được BookingServiceImpl cập nhật trong cùng transaction với booking, và được RoomTypeInventoryService đối soát định kỳ.
+ */
+@Entity
+// Ràng buộc và chỉ mục do V4__denormalized_columns_and_support_tables.sql tạo;
+// khai báo lại để schema H2 create-drop của test có khóa duy nhất mà upsert cần
+@Table(name = "room_type_inventory",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_type_date", columnNames = {"room_type_id", "stay_date"}),
+        indexes = @Index(name = "idx_inventory_date", columnList = "stay_date"))
+@Getter
+@Setter
+public class RoomTypeInventory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_type_id", nullable = false)
+    private RoomType roomType;
+
+    @Column(name = "stay_date", nullable = false)
+    private LocalDate stayDate;
+
+    @Column(nullable = false)
+    private int total;
+
+    @Column(nullable = false)
+    private int sold;
+}
@@ -4,6 +4,7 @@ package com.example.hotel.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "users")
@@ -32,6 +33,13 @@ public class User {
     @Column(name = "is_active")
     private boolean isActive = true;
 
+    // Tăng lên mỗi khi cần thu hồi các JWT đã cấp (đổi quyền, khóa tài khoản, đặt lại mật khẩu).
+    // Chỉ được tăng bằng câu lệnh UPDATE trong UserRepository (insertable/updatable = false)
+    // để việc lưu entity User không ghi đè giá trị mới bằng giá trị cũ.
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int tokenVersion;
+
     @Column(length = 1000) // Cho phép mô tả dài
     private String about;
 
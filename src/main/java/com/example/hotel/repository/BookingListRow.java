@@ -0,0 +1,34 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của danh sách đặt phòng (admin): đúng các cột BookingDto cần,
+ * lấy bằng MỘT truy vấn (join phòng / loại phòng, tổng tiền đã trả đọc từ cột bookings.amount_paid)
+ * thay vì nạp lười từng quan hệ của Booking.
+ */
+public record BookingListRow(
+        Long id,
+        String bookingCode,
+        LocalDateTime createdDate,
+        BookingStatus status,
+        String customerFullName,
+        String customerPhone,
+        Long customerId,
+        Long roomId,
+        String roomNumber,
+        String roomTypeName,
+        LocalDate checkInDate,
+        LocalDate checkOutDate,
+        BigDecimal totalPrice,
+        BigDecimal pricePerNight,
+        LocalDateTime actualCheckinTime,
+        LocalDateTime actualCheckoutTime,
+        Integer soNguoiLon,
+        Integer soTreEm,
+        BigDecimal amountPaid) {
+}
@@ -0,0 +1,12 @@
+package com.example.hotel.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Loại phòng và khoảng ngày của một đặt phòng, dùng để đối soát bảng tồn phòng.
+ */
+public interface BookingNightsView {
+    Long getRoomTypeId();
+    LocalDate getCheckInDate();
+    LocalDate getCheckOutDate();
+}
@@ -1,24 +1,35 @@
 package com.example.hotel.repository;
 
 import com.example.hotel.entity.Booking;
+import com.example.hotel.util.TextNormalizer;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking>, BookingRepositoryCustom {
 
     /**
      * Tìm tất cả đặt phòng của một khách hàng, sắp xếp theo ngày check-in mới nhất trước.
      * @param customerId ID của khách hàng
      * @return Danh sách các đặt phòng
      */
+    @EntityGraph(attributePaths = {"room", "room.roomType"}) // Lịch sử hiển thị số phòng + loại phòng: nạp cùng một truy vấn
     List<Booking> findByCustomerIdOrderByCheckInDateDesc(Long customerId);
     /**
      * Tùy chọn: Nếu cần tìm MỘT booking cụ thể trong thùng rác
@@ -47,5 +58,100 @@ public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpec
             @Param("checkin") LocalDate checkin,
             @Param("checkout") LocalDate checkout
     );
-}
 
+    /**
+     * Như findConflictingBookings nhưng là truy vấn có khóa (SELECT ... FOR UPDATE): luôn đọc dữ liệu đã commit mới nhất,
+     * kể cả khi transaction đã có snapshot cũ (REPEATABLE READ). Dùng trong RoomAvailabilityIndex.reserve.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.room.id = :roomId " +
+            "AND b.status != 'CANCELLED' " +
+            "AND (b.checkInDate < :checkout AND b.checkOutDate > :checkin)")
+    List<Booking> findConflictingBookingsForUpdate(
+            @Param("roomId") Long roomId,
+            @Param("checkin") LocalDate checkin,
+            @Param("checkout") LocalDate checkout
+    );
+
+    /**
+     * Lấy khoảng ngày của các đặt phòng còn hiệu lực (trừ CANCELLED) có ngày trả phòng sau mốc after.
+     * Dùng để dựng lại chỉ mục phòng trống (RoomAvailabilityIndex) khi khởi động và định kỳ.
+     */
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b WHERE b.status != 'CANCELLED' AND b.checkOutDate > :after")
+    List<BookingStayView> findActiveStays(@Param("after") LocalDate after);
+
+    /**
+     * Khoảng ngày của các đặt phòng còn hiệu lực thuộc một loại phòng có đêm từ ngày from trở đi.
+     * Dùng để đối soát bảng room_type_inventory theo từng loại phòng.
+     */
+    @Query("SELECT b.room.roomType.id AS roomTypeId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b WHERE b.room.roomType.id = :roomTypeId AND b.status != 'CANCELLED' AND b.checkOutDate > :from")
+    List<BookingNightsView> findActiveNightsFrom(@Param("roomTypeId") Long roomTypeId, @Param("from") LocalDate from);
+
+    /**
+     * Đổi số phòng trong search_text của mọi booking thuộc phòng roomId bằng một câu lệnh, không nạp booking lên.
+     * Số phòng là phần cuối của search_text (xem Booking.refreshSearchText) nên chỉ thay đoạn " " + oldKey ở cuối;
+     * phần đứng trước bị cắt bớt nếu cần để newKey luôn nằm trọn trong SEARCH_TEXT_LENGTH ký tự.
+     * oldKey / newKey là số phòng cũ / mới đã chuẩn hóa bằng TextNormalizer.toSearchKey.
+     * Dòng không kết thúc bằng oldKey (vd. search_text cũ bị cắt mất số phòng) được dựng lại bằng findIdsWithoutRoomKeySuffix.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "UPDATE bookings SET search_text = CONCAT(" +
+            "LEFT(search_text, LEAST(CHAR_LENGTH(search_text) - CHAR_LENGTH(:oldKey) - 1, " +
+            TextNormalizer.SEARCH_TEXT_LENGTH + " - CHAR_LENGTH(:newKey) - 1)), ' ', :newKey) " +
+            "WHERE room_id = :roomId AND RIGHT(search_text, CHAR_LENGTH(:oldKey) + 1) = CONCAT(' ', :oldKey)",
+            nativeQuery = true)
+    int replaceRoomNumberInSearchText(@Param("roomId") Long roomId,
+                                      @Param("oldKey") String oldKey,
+                                      @Param("newKey") String newKey);
+
+    /**
+     * Id các booking của phòng roomId có search_text chưa kết thúc bằng " " + key: những dòng replaceRoomNumberInSearchText bỏ sót.
+     */
+    @Query(value = "SELECT id FROM bookings WHERE room_id = :roomId " +
+            "AND (search_text IS NULL OR RIGHT(search_text, CHAR_LENGTH(:roomKey) + 1) <> CONCAT(' ', :roomKey))",
+            nativeQuery = true)
+    List<Long> findIdsWithoutRoomKeySuffix(@Param("roomId") Long roomId, @Param("roomKey") String roomKey);
+
+    /**
+     * Số lần ở, tổng số đêm và tổng chi tiêu (booking CHECKED_OUT) của các khách hàng trong customerIds.
+     */
+    @Query("SELECT b.customer.id AS customerId, COUNT(b) AS bookings, " +
+            "SUM((b.checkOutDate - b.checkInDate) BY DAY) AS nights, SUM(b.totalPrice) AS spend " +
+            "FROM Booking b WHERE b.status = 'CHECKED_OUT' AND b.customer.id IN :customerIds " +
+            "GROUP BY b.customer.id")
+    List<CustomerStatsView> findCustomerStats(@Param("customerIds") Collection<Long> customerIds);
+
+    /**
+     * Các booking chưa có search_text (dữ liệu cũ trước khi có cột này), lấy theo lô để điền bù.
+     */
+    List<Booking> findTop500BySearchTextIsNull();
+
+    /**
+     * Cộng số tiền vừa thanh toán vào bookings.amount_paid bằng một câu lệnh nguyên tử.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "UPDATE bookings SET amount_paid = amount_paid + :amount WHERE id = :bookingId",
+            nativeQuery = true)
+    int addAmountPaid(@Param("bookingId") Long bookingId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Tính lại amount_paid từ bảng payments cho các booking có id trong [fromId, toId] đang bị lệch
+     * (kể cả booking đã xóa mềm). Trả về số booking đã sửa.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "UPDATE bookings b SET b.amount_paid = " +
+            "(SELECT COALESCE(SUM(p.amount), 0) FROM payments p WHERE p.booking_id = b.id) " +
+            "WHERE b.id BETWEEN :fromId AND :toId AND b.amount_paid <> " +
+            "(SELECT COALESCE(SUM(p.amount), 0) FROM payments p WHERE p.booking_id = b.id)",
+            nativeQuery = true)
+    int recomputeAmountPaid(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM bookings", nativeQuery = true)
+    long findMaxIdIncludingDeleted();
+}
@@ -0,0 +1,28 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.Booking;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Truy vấn projection cho danh sách đặt phòng, dùng lại Specification lọc của BookingServiceImpl.
+ */
+public interface BookingRepositoryCustom {
+
+    /**
+     * Một trang BookingListRow: 1 truy vấn dữ liệu + 1 truy vấn COUNT (bỏ qua COUNT khi không cần).
+     */
+    Page<BookingListRow> findBookingRows(Specification<Booking> spec, Pageable pageable);
+
+    /**
+     * Tối đa limit dòng đầu tiên theo thứ tự sort, không đếm tổng (dùng cho phân trang theo con trỏ).
+     */
+    List<BookingListRow> findBookingRows(Specification<Booking> spec, Sort sort, int limit);
+
+    Optional<BookingListRow> findBookingRowById(Long id);
+}
@@ -0,0 +1,127 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.Room;
+import com.example.hotel.entity.RoomType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Cài đặt BookingRepositoryCustom bằng Criteria API (Spring Data tự ghép vào BookingRepository theo hậu tố Impl).
+ */
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+
+    // Thuộc tính sắp xếp ảo: số tiền còn phải trả = total_price - amount_paid
+    private static final String BALANCE_DUE = "balanceDue";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<BookingListRow> findBookingRows(Specification<Booking> spec, Pageable pageable) {
+        TypedQuery<BookingListRow> query = entityManager.createQuery(rowQuery(spec, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // Trang cuối / trang duy nhất thì không cần COUNT
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<BookingListRow> findBookingRows(Specification<Booking> spec, Sort sort, int limit) {
+        return entityManager.createQuery(rowQuery(spec, sort))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Optional<BookingListRow> findBookingRowById(Long id) {
+        Specification<Booking> byId = (root, query, cb) -> cb.equal(root.get("id"), id);
+        return findBookingRows(byId, Sort.unsorted(), 1).stream().findFirst();
+    }
+
+    private CriteriaQuery<BookingListRow> rowQuery(Specification<Booking> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingListRow> query = cb.createQuery(BookingListRow.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Join<Booking, Room> room = booking.join("room", JoinType.LEFT);
+        Join<Room, RoomType> roomType = room.join("roomType", JoinType.LEFT);
+
+        query.select(cb.construct(BookingListRow.class,
+                booking.get("id"),
+                booking.get("bookingConfirmationCode"),
+                booking.get("createdDate"),
+                booking.get("status"),
+                booking.get("customerFullName"),
+                booking.get("customerPhone"),
+                booking.get("customer").get("id"),
+                room.get("id"),
+                room.get("roomNumber"),
+                roomType.get("name"),
+                booking.get("checkInDate"),
+                booking.get("checkOutDate"),
+                booking.get("totalPrice"),
+                booking.get("pricePerNight"),
+                booking.get("actualCheckinTime"),
+                booking.get("actualCheckoutTime"),
+                booking.get("soNguoiLon"),
+                booking.get("soTreEm"),
+                booking.get("amountPaid")));
+
+        Predicate where = spec != null ? spec.toPredicate(booking, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(orders(sort, booking, cb));
+        }
+        return query;
+    }
+
+    private static List<Order> orders(Sort sort, Root<Booking> booking, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (BALANCE_DUE.equals(order.getProperty())) {
+                Expression<BigDecimal> balanceDue = cb.diff(booking.<BigDecimal>get("totalPrice"), booking.<BigDecimal>get("amountPaid"));
+                orders.add(order.isAscending() ? cb.asc(balanceDue) : cb.desc(balanceDue));
+            } else {
+                orders.addAll(toOrders(Sort.by(order), booking, cb));
+            }
+        }
+        return orders;
+    }
+
+    private long count(Specification<Booking> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Booking> booking = query.from(Booking.class);
+        Predicate where = spec != null ? spec.toPredicate(booking, query, cb) : null;
+        if (where != null) {
+            query.where(where);
+        }
+        query.select(cb.count(booking));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
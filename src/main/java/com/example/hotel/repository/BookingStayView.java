@@ -0,0 +1,14 @@
+package com.example.hotel.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection gọn nhẹ của một đặt phòng: chỉ gồm phòng và khoảng ngày lưu trú.
+ * Dùng để dựng chỉ mục phòng trống mà không phải nạp toàn bộ entity Booking.
+ */
+public interface BookingStayView {
+    Long getId();
+    Long getRoomId();
+    LocalDate getCheckInDate();
+    LocalDate getCheckOutDate();
+}
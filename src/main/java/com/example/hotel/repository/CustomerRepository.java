@@ -1,13 +1,27 @@
 package com.example.hotel.repository;
 
 import com.example.hotel.entity.Customer;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
 
     Optional<Customer> findByEmail(String email);
@@ -15,4 +29,72 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Optional<Customer> findByIdNumber(String idNumber);
 
     Boolean existsByEmail(String email);
+
+    // Khóa dòng khách hàng (SELECT ... FOR UPDATE) khi cộng điểm thưởng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional<Customer> findByIdForUpdate(@Param("id") Long id);
+
+    // Số khách theo hạng thành viên cho thẻ thống kê của trang danh sách, không nạp từng khách
+    @Query("SELECT t.name AS tierName, COUNT(c) AS customers FROM Customer c JOIN c.loyaltyTier t GROUP BY t.name")
+    List<CustomerTierCountView> countByTier();
+
+    // Phiên bản token của khách hàng, xem TokenVersionRegistry
+    @Query("SELECT c.id AS id, c.tokenVersion AS tokenVersion FROM Customer c")
+    List<TokenVersionView> findTokenVersions();
+
+    @Query("SELECT c.id AS id, c.tokenVersion AS tokenVersion FROM Customer c WHERE c.id = :id")
+    Optional<TokenVersionView> findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Thu hồi mọi JWT đã cấp cho khách hàng này.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "customers"))
+    @Query(value = "UPDATE customers SET token_version = token_version + 1 WHERE id = :id", nativeQuery = true)
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // Nạp kèm hạng thành viên để trang khách hàng không phát sinh truy vấn lười cho từng khách
+    @EntityGraph(attributePaths = "loyaltyTier")
+    @Query(value = "SELECT c FROM Customer c", countQuery = "SELECT COUNT(c) FROM Customer c")
+    Page<Customer> findAllWithTier(Pageable pageable);
+
+    /**
+     * Cộng dồn (có thể âm) vào bộ đếm lưu trú của khách hàng bằng một câu lệnh nguyên tử.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "customers"))
+    @Query(value = "UPDATE customers SET stay_count = stay_count + :stays, stay_nights = stay_nights + :nights, " +
+            "total_spend = total_spend + :spend WHERE id = :customerId",
+            nativeQuery = true)
+    int addStayStats(@Param("customerId") Long customerId,
+                     @Param("stays") int stays,
+                     @Param("nights") long nights,
+                     @Param("spend") BigDecimal spend);
+
+    /**
+     * Một lô khách hàng có id > afterId, khóa dòng (SELECT ... FOR UPDATE) trước khi đối soát: booking đang đổi trạng thái
+     * của các khách này phải chờ, hoặc đã commit và được thấy khi đếm lại từ bookings.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id > :afterId ORDER BY c.id")
+    List<Customer> findBatchForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Ghi đè bộ đếm lưu trú (dùng khi đối soát phát hiện lệch).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "customers"))
+    @Query(value = "UPDATE customers SET stay_count = :stays, stay_nights = :nights, total_spend = :spend " +
+            "WHERE id = :customerId",
+            nativeQuery = true)
+    int setStayStats(@Param("customerId") Long customerId,
+                     @Param("stays") int stays,
+                     @Param("nights") long nights,
+                     @Param("spend") BigDecimal spend);
+
+    /**
+     * Các khách hàng chưa có search_text (dữ liệu cũ trước khi có cột này), lấy theo lô để điền bù.
+     */
+    List<Customer> findTop500BySearchTextIsNull();
 }
\ No newline at end of file
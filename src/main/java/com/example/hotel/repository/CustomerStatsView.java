@@ -0,0 +1,13 @@
+package com.example.hotel.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Thống kê lưu trú của một khách hàng (chỉ tính booking CHECKED_OUT), lấy bằng truy vấn GROUP BY.
+ */
+public interface CustomerStatsView {
+    Long getCustomerId();
+    Long getBookings();
+    Long getNights();
+    BigDecimal getSpend();
+}
@@ -0,0 +1,9 @@
+package com.example.hotel.repository;
+
+/**
+ * Số khách hàng của từng hạng thành viên (projection cho truy vấn GROUP BY).
+ */
+public interface CustomerTierCountView {
+    String getTierName();
+    Long getCustomers();
+}
@@ -0,0 +1,66 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.IdempotencyKey;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Giữ khóa: INSERT thẳng (không SELECT trước) để hai instance cùng giữ một khóa thì một bên gặp lỗi trùng khóa chính.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, created_at, expires_at) " +
+            "VALUES (:id, :requestHash, :createdAt, :expiresAt)",
+            nativeQuery = true)
+    int insertReservation(@Param("id") String id,
+                          @Param("requestHash") String requestHash,
+                          @Param("createdAt") LocalDateTime createdAt,
+                          @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Giữ lại khóa đã hết hạn hoặc bị bỏ dở, chỉ thành công nếu bản ghi chưa bị instance khác đổi (so created_at đã đọc).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "UPDATE idempotency_keys SET request_hash = :requestHash, status_code = NULL, response_body = NULL, " +
+            "created_at = :createdAt, expires_at = :expiresAt WHERE id = :id AND created_at = :seenCreatedAt",
+            nativeQuery = true)
+    int takeOver(@Param("id") String id,
+                 @Param("requestHash") String requestHash,
+                 @Param("createdAt") LocalDateTime createdAt,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("seenCreatedAt") LocalDateTime seenCreatedAt);
+
+    /**
+     * Lưu phản hồi, chỉ khi khóa vẫn do request này giữ (created_at chưa bị takeOver đổi).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "UPDATE idempotency_keys SET status_code = :statusCode, response_body = :responseBody " +
+            "WHERE id = :id AND created_at = :seenCreatedAt",
+            nativeQuery = true)
+    int saveResponse(@Param("id") String id,
+                     @Param("statusCode") int statusCode,
+                     @Param("responseBody") String responseBody,
+                     @Param("seenCreatedAt") LocalDateTime seenCreatedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "DELETE FROM idempotency_keys WHERE id = :id AND created_at = :seenCreatedAt", nativeQuery = true)
+    int deleteKey(@Param("id") String id,
+                  @Param("seenCreatedAt") LocalDateTime seenCreatedAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "DELETE FROM idempotency_keys WHERE expires_at < :now", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -16,4 +16,6 @@ public interface LoyaltyPointTransactionRepository extends JpaRepository<Loyalty
      */
     List<LoyaltyPointTransaction> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
 
+    boolean existsByBookingId(Long bookingId);
+
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.example.hotel.repository;
 
 import com.example.hotel.entity.LoyaltyTier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,10 +13,11 @@ import java.util.Optional;
 @Repository
 public interface LoyaltyTierRepository extends JpaRepository<LoyaltyTier, Long> {
 
-    // Tự động sắp xếp để kiểm tra nâng hạng
-    List<LoyaltyTier> findAllByOrderByPointsRequiredDesc();
+    // Nạp bảng hạng trong bộ nhớ của LoyaltyTierService (sắp theo điểm tăng dần)
+    List<LoyaltyTier> findAllByOrderByPointsRequiredAsc();
 
     // Dùng để tìm hạng Bronze (ID 1)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     LoyaltyTier findFirstByOrderByPointsRequiredAsc();
 
     Optional<LoyaltyTier> findByName(String name);
@@ -0,0 +1,38 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.OutboxEvent;
+import com.example.hotel.entity.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * ID các sự kiện đến hạn xử lý, cũ nhất trước.
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = com.example.hotel.entity.OutboxStatus.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Khóa một sự kiện để xử lý; bỏ qua (trả về rỗng) nếu instance khác đang giữ khóa (FOR UPDATE SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id")
+    Optional<OutboxEvent> findByIdForProcessing(@Param("id") Long id);
+
+    List<OutboxEvent> findByStatusOrderByIdAsc(OutboxStatus status, Pageable pageable);
+
+    long countByStatus(OutboxStatus status);
+}
@@ -1,9 +1,15 @@
 package com.example.hotel.repository;
 
+import com.example.hotel.dto.RoomTypeAvailabilityDto;
 import com.example.hotel.entity.Room;
 import com.example.hotel.entity.RoomStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -17,14 +23,21 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByRoomNumber(String roomNumber);
     // Override findAll to fetch RoomType eagerly
     @Query("SELECT r FROM Room r JOIN FETCH r.roomType")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Override
     List<Room> findAll();
 
     // Override findById to fetch RoomType eagerly
     @Query("SELECT r FROM Room r JOIN FETCH r.roomType WHERE r.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Override
     Optional<Room> findById(@Param("id") Long id);
 
+    // Khóa dòng phòng (SELECT ... FOR UPDATE) khi đặt phòng: các transaction đặt cùng phòng, trên mọi instance, chạy lần lượt
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
     // Update the searchRooms query to use JOIN FETCH
     @Query("SELECT r FROM Room r JOIN FETCH r.roomType rt " +
             "WHERE (:roomNumber IS NULL OR r.roomNumber LIKE %:roomNumber%) " +
@@ -34,6 +47,16 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
                            @Param("roomTypeId") Long roomTypeId,
                            @Param("status") RoomStatus status);
 
+    /**
+     * Các phòng đủ sức chứa và đang ở trạng thái AVAILABLE (chưa xét lịch đặt).
+     * Lịch đặt được lọc tiếp bằng RoomAvailabilityIndex trong bộ nhớ.
+     */
+    @Query("SELECT r FROM Room r JOIN FETCH r.roomType rt " +
+            "WHERE rt.capacity >= :totalGuests " +
+            "AND r.status = 'AVAILABLE'")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Room> findBookableRooms(@Param("totalGuests") int totalGuests);
+
     @Query("SELECT r FROM Room r JOIN r.roomType rt " +
             "WHERE rt.capacity >= :totalGuests " +
             "AND r.status = 'AVAILABLE' " +
@@ -47,4 +70,31 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
             @Param("checkout") LocalDate checkout,
             @Param("totalGuests") int totalGuests
     );
+
+    /**
+     * Đếm phòng trống theo từng loại phòng bằng một truy vấn gộp (GROUP BY),
+     * dùng khi RoomAvailabilityIndex chưa trả lời được.
+     */
+    @Query("SELECT new com.example.hotel.dto.RoomTypeAvailabilityDto(" +
+            "  rt.id, rt.name, rt.capacity, COUNT(r), MIN(r.price), MAX(r.price)) " +
+            "FROM Room r JOIN r.roomType rt " +
+            "WHERE rt.capacity >= :totalGuests " +
+            "AND r.status = 'AVAILABLE' " +
+            "AND r.id NOT IN (" +
+            "  SELECT b.room.id FROM Booking b " +
+            "  WHERE b.status != 'CANCELLED' " +
+            "  AND (b.checkInDate < :checkout AND b.checkOutDate > :checkin)" +
+            ") " +
+            "GROUP BY rt.id, rt.name, rt.capacity " +
+            "ORDER BY MIN(r.price)")
+    List<RoomTypeAvailabilityDto> countAvailableRoomsByType(
+            @Param("checkin") LocalDate checkin,
+            @Param("checkout") LocalDate checkout,
+            @Param("totalGuests") int totalGuests
+    );
+
+    long countByRoomTypeId(Long roomTypeId);
+
+    @Query("SELECT r.roomType.id AS roomTypeId, COUNT(r) AS rooms FROM Room r GROUP BY r.roomType.id")
+    List<RoomTypeCountView> countRoomsByType();
 }
@@ -0,0 +1,9 @@
+package com.example.hotel.repository;
+
+/**
+ * Số phòng của từng loại phòng (projection cho truy vấn GROUP BY).
+ */
+public interface RoomTypeCountView {
+    Long getRoomTypeId();
+    Long getRooms();
+}
@@ -0,0 +1,71 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.entity.RoomTypeInventory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RoomTypeInventoryRepository extends JpaRepository<RoomTypeInventory, Long> {
+
+    /**
+     * Cộng một phòng đã bán của một loại phòng trong một đêm; chưa có dòng cho (loại phòng, đêm) thì tạo mới với total = rooms.
+     * Số phòng được truyền vào thay vì SELECT COUNT(*) FROM rooms trong câu lệnh: INSERT ... SELECT sẽ khóa chia sẻ
+     * mọi phòng của loại đó (REPEATABLE READ) và có thể deadlock với các thao tác đổi trạng thái phòng đồng thời.
+     * Một câu lệnh duy nhất, nguyên tử ở mức dòng nên các booking đồng thời không ghi đè nhau.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "room_type_inventory"))
+    @Query(value = "INSERT INTO room_type_inventory (room_type_id, stay_date, total, sold) " +
+            "VALUES (:roomTypeId, :stayDate, :rooms, 1) " +
+            "ON DUPLICATE KEY UPDATE sold = sold + 1",
+            nativeQuery = true)
+    int incrementSold(@Param("roomTypeId") Long roomTypeId,
+                      @Param("stayDate") LocalDate stayDate,
+                      @Param("rooms") long rooms);
+
+    /**
+     * Trả lại một phòng đã bán. Không tạo dòng mới: đêm chưa có dòng tồn (dữ liệu lệch) để job đối soát xử lý,
+     * thay vì tạo dòng với sold âm.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "room_type_inventory"))
+    @Query(value = "UPDATE room_type_inventory SET sold = sold - 1 " +
+            "WHERE room_type_id = :roomTypeId AND stay_date = :stayDate AND sold > 0",
+            nativeQuery = true)
+    int decrementSold(@Param("roomTypeId") Long roomTypeId,
+                      @Param("stayDate") LocalDate stayDate);
+
+    /**
+     * Cập nhật lại total của một loại phòng sau khi thêm / xóa / đổi loại phòng.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "room_type_inventory"))
+    @Query(value = "UPDATE room_type_inventory SET total = :rooms WHERE room_type_id = :roomTypeId",
+            nativeQuery = true)
+    int updateTotal(@Param("roomTypeId") Long roomTypeId, @Param("rooms") long rooms);
+
+    @Query("SELECT i FROM RoomTypeInventory i " +
+            "WHERE i.stayDate >= :from AND i.stayDate < :to")
+    List<RoomTypeInventory> findByStayDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Khóa (SELECT ... FOR UPDATE) các dòng tồn của một loại phòng từ ngày from, kể cả khoảng trống giữa các dòng
+     * (khóa theo khoảng trên uk_inventory_type_date): booking đồng thời của loại phòng này chờ đến khi đối soát commit
+     * rồi mới cộng / trừ tiếp trên kết quả mới; booking của loại phòng khác không bị chặn.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM RoomTypeInventory i WHERE i.roomType.id = :roomTypeId AND i.stayDate >= :from")
+    List<RoomTypeInventory> findByRoomTypeFromForUpdate(@Param("roomTypeId") Long roomTypeId,
+                                                        @Param("from") LocalDate from);
+}
@@ -1,9 +1,19 @@
 package com.example.hotel.repository;
 
 import com.example.hotel.entity.RoomType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface RoomTypeRepository extends JpaRepository<RoomType, Long> {
+
+    // Danh sách loại phòng (trang công khai / admin) -> query cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<RoomType> findAll();
 }
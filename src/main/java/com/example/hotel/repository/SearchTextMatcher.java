@@ -0,0 +1,56 @@
+package com.example.hotel.repository;
+
+import com.example.hotel.util.TextNormalizer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Điều kiện tìm kiếm trên các cột search_text (đã bỏ dấu):
+ * - hotel.search.fulltext=true (MySQL): MATCH ... AGAINST trên chỉ mục FULLTEXT ngram -> khớp bất kỳ đoạn nào trong chuỗi.
+ * - Ngược lại: search_text LIKE '%từ khóa%' -> khớp mọi trường ghép trong chuỗi (SĐT, mã đặt phòng, số phòng, email,
+ *   từ không đứng đầu trong tên). Ký tự % ở đầu khiến không chỉ mục B-tree nào dùng được: mỗi lần tìm là quét cả bảng.
+ *   Chế độ này chỉ là phương án dự phòng khi thiếu FULLTEXT (DB không phải MySQL, hoặc chưa chạy V5);
+ *   chỉ FULLTEXT mới tìm theo chỉ mục.
+ */
+@Component
+@Slf4j
+public class SearchTextMatcher {
+
+    // ngram_token_size mặc định của MySQL là 2, từ khóa ngắn hơn không tìm được bằng FULLTEXT
+    private static final int MIN_FULLTEXT_LENGTH = 2;
+
+    private volatile boolean fulltext;
+
+    public SearchTextMatcher(@Value("${hotel.search.fulltext:false}") boolean fulltext) {
+        this.fulltext = fulltext;
+    }
+
+    public boolean isFulltext() {
+        return fulltext;
+    }
+
+    /**
+     * Tắt chế độ FULLTEXT (ví dụ khi DB thiếu chỉ mục), quay về tìm bằng LIKE.
+     */
+    public void disableFulltext() {
+        if (fulltext) {
+            log.warn("Tắt tìm kiếm FULLTEXT, quay về tìm bằng LIKE trên search_text.");
+        }
+        this.fulltext = false;
+    }
+
+    public Predicate matches(CriteriaBuilder cb, Expression<String> searchText, String search) {
+        String term = TextNormalizer.toSearchKey(search);
+        if (fulltext && term.length() >= MIN_FULLTEXT_LENGTH) {
+            // Tìm cả cụm (phrase) để "nguyen van" không khớp "van ... nguyen"
+            String phrase = "\"" + term.replace("\"", "") + "\"";
+            return cb.greaterThan(cb.function("match_against", Double.class, searchText, cb.literal(phrase)), 0.0);
+        }
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return cb.like(searchText, "%" + escaped + "%", '\\');
+    }
+}
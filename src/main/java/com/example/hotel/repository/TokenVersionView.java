@@ -0,0 +1,9 @@
+package com.example.hotel.repository;
+
+/**
+ * Phiên bản token hiện tại của một tài khoản (users hoặc customers), dùng để thu hồi JWT.
+ */
+public interface TokenVersionView {
+    Long getId();
+    Integer getTokenVersion();
+}
@@ -1,11 +1,36 @@
 package com.example.hotel.repository;
 
 import com.example.hotel.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    /**
+     * Phiên bản token của các tài khoản đang hoạt động (tài khoản bị khóa không có trong kết quả).
+     */
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM User u WHERE u.isActive = true")
+    List<TokenVersionView> findActiveTokenVersions();
+
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM User u WHERE u.id = :id AND u.isActive = true")
+    Optional<TokenVersionView> findActiveTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Thu hồi mọi JWT đã cấp cho tài khoản này.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "UPDATE users SET token_version = token_version + 1 WHERE id = :id", nativeQuery = true)
+    int incrementTokenVersion(@Param("id") Long id);
 }
\ No newline at end of file
@@ -1,9 +1,10 @@
 package com.example.hotel.security;
 
-import com.example.hotel.entity.Customer;
-import com.example.hotel.repository.CustomerRepository;
-import com.example.hotel.service.impl.UserDetailsServiceImpl;
+import com.example.hotel.service.impl.UserDetailsImpl;
 import com.example.hotel.security.jwt.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,7 +23,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 
 @Component
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -31,10 +32,13 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService; // Dịch vụ của Admin
+    private PrincipalCache principalCache; // UserDetails của Admin / Customer cho token cũ
 
     @Autowired
-    private CustomerRepository customerRepository; // Repo của Customer
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -48,31 +52,44 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            // Xác thực và lấy claims trong cùng một lần parse
+            Claims claims = jwt != null ? parseTimed(jwt) : null;
+            if (claims != null) {
+                String username = claims.getSubject();
                 UserDetails userDetails = null;
 
                 if (servletPath.startsWith("/api/admin") || servletPath.startsWith("/api/users")) {
 
                     logger.info("--> AuthTokenFilter: Đang xử lý token cho ADMIN (path: {})", servletPath);
-                    try {
-                        userDetails = userDetailsService.loadUserByUsername(username);
-                    } catch (UsernameNotFoundException e) {
-                        logger.error("!!! Token ADMIN không hợp lệ. Không tìm thấy User (Admin): {}", username);
-                        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token Admin không hợp lệ");
-                        return;
+                    if (hasStatelessClaims(claims)) {
+                        // Token mới: dựng principal từ claims, chỉ kiểm tra phiên bản token (trong bộ nhớ)
+                        userDetails = adminFromClaims(claims);
+                        if (userDetails == null) {
+                            logger.error("!!! Token ADMIN không hợp lệ hoặc đã bị thu hồi: {}", username);
+                            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token Admin không hợp lệ");
+                            return;
+                        }
+                    } else {
+                        // Token cũ (chưa có claims role / id / ver): nạp User qua cache (TTL) thay vì DB ở mỗi request
+                        try {
+                            userDetails = principalCache.loadAdmin(username);
+                        } catch (UsernameNotFoundException e) {
+                            logger.error("!!! Token ADMIN không hợp lệ. Không tìm thấy User (Admin): {}", username);
+                            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token Admin không hợp lệ");
+                            return;
+                        }
                     }
                 }
                 else if (servletPath.startsWith("/api/public/customer")) {
                     logger.info("--> AuthTokenFilter: Đang xử lý token cho CUSTOMER (path: {})", servletPath);
-                    Customer customer = customerRepository.findByEmail(username)
-                            .orElseThrow(() -> new UsernameNotFoundException("Token CUSTOMER không hợp lệ: " + username));
-
-                    userDetails = new User(
-                            customer.getEmail(),
-                            customer.getPassword() != null ? customer.getPassword() : "",
-                            new ArrayList<>()
-                    );
+                    if (hasStatelessClaims(claims)) {
+                        if (!isCurrentCustomerToken(claims)) {
+                            throw new UsernameNotFoundException("Token CUSTOMER không hợp lệ: " + username);
+                        }
+                        userDetails = new User(username, "", Collections.emptyList());
+                    } else {
+                        userDetails = principalCache.loadCustomer(username);
+                    }
                 }
                 else {
                     logger.warn("--> AuthTokenFilter: Bỏ qua (cho phép) đường dẫn public: {}", servletPath);
@@ -95,6 +112,46 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Parse JWT và ghi thời gian vào hotel.auth.jwt.validation (tag result = valid / invalid).
+     */
+    private Claims parseTimed(String jwt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Claims claims = jwtUtils.parseValidClaims(jwt);
+        sample.stop(Timer.builder("hotel.auth.jwt.validation")
+                .description("Thời gian xác thực chữ ký và hạn dùng của JWT trong AuthTokenFilter")
+                .tag("result", claims != null ? "valid" : "invalid")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        return claims;
+    }
+
+    private static boolean hasStatelessClaims(Claims claims) {
+        return claims.get(JwtUtils.CLAIM_ROLE) != null
+                && claims.get(JwtUtils.CLAIM_ID) != null
+                && claims.get(JwtUtils.CLAIM_VERSION) != null;
+    }
+
+    /**
+     * Principal của admin / nhân viên từ claims; null nếu là token khách hàng hoặc token đã bị thu hồi.
+     */
+    private UserDetails adminFromClaims(Claims claims) {
+        String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+        Long id = claims.get(JwtUtils.CLAIM_ID, Long.class);
+        Integer version = claims.get(JwtUtils.CLAIM_VERSION, Integer.class);
+        if (JwtUtils.ROLE_CUSTOMER.equals(role) || !tokenVersionRegistry.isUserTokenCurrent(id, version)) {
+            return null;
+        }
+        return UserDetailsImpl.fromToken(id, claims.getSubject(), role);
+    }
+
+    private boolean isCurrentCustomerToken(Claims claims) {
+        Long id = claims.get(JwtUtils.CLAIM_ID, Long.class);
+        Integer version = claims.get(JwtUtils.CLAIM_VERSION, Integer.class);
+        return JwtUtils.ROLE_CUSTOMER.equals(claims.get(JwtUtils.CLAIM_ROLE, String.class))
+                && tokenVersionRegistry.isCustomerTokenCurrent(id, version);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
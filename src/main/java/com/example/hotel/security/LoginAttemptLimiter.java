@@ -0,0 +1,65 @@
+package com.example.hotel.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Giới hạn số lần đăng nhập sai theo tài khoản (username admin hoặc email khách hàng).
+ * Sau maxFailures lần sai liên tiếp, tài khoản bị khóa đăng nhập lockoutMinutes phút kể từ lần sai cuối;
+ * trong thời gian đó controller trả 429 mà không chạy BCrypt.
+ * Đếm trong bộ nhớ của từng instance (giới hạn số tài khoản được theo dõi).
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private final Cache<String, Integer> failures;
+    private final int maxFailures;
+    private final long lockoutSeconds;
+    private final Counter lockedOutCounter;
+
+    public LoginAttemptLimiter(MeterRegistry meterRegistry,
+                               @Value("${hotel.security.login.maxFailures:5}") int maxFailures,
+                               @Value("${hotel.security.login.lockoutMinutes:15}") long lockoutMinutes) {
+        this.maxFailures = maxFailures;
+        this.lockoutSeconds = Duration.ofMinutes(lockoutMinutes).toSeconds();
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(lockoutMinutes))
+                .build();
+        this.lockedOutCounter = Counter.builder("hotel.auth.login.locked")
+                .description("Số lần đăng nhập bị từ chối vì tài khoản đang bị khóa tạm thời")
+                .register(meterRegistry);
+    }
+
+    public boolean isLocked(String account) {
+        Integer count = failures.getIfPresent(key(account));
+        if (count != null && count >= maxFailures) {
+            lockedOutCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void recordFailure(String account) {
+        failures.asMap().merge(key(account), 1, Integer::sum);
+    }
+
+    public void recordSuccess(String account) {
+        failures.invalidate(key(account));
+    }
+
+    public long getLockoutSeconds() {
+        return lockoutSeconds;
+    }
+
+    private static String key(String account) {
+        return account == null ? "" : account.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.hotel.security;
+
+import com.example.hotel.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead cho việc kiểm tra mật khẩu (BCrypt) khi đăng nhập.
+ * BCrypt chạy trên một thread pool riêng có giới hạn (mặc định một nửa số core) với hàng đợi giới hạn,
+ * nên một đợt đăng nhập dồn dập không chiếm hết CPU của các request đặt phòng.
+ * Hàng đợi đầy hoặc chờ quá lâu -> TooManyRequestsException (429) ngay, không xếp hàng vô hạn.
+ */
+@Component
+public class PasswordHashingBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingBulkhead.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMs;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingBulkhead(MeterRegistry meterRegistry,
+                                   @Value("${hotel.security.hashing.threads:0}") int threads,
+                                   @Value("${hotel.security.hashing.queueCapacity:32}") int queueCapacity,
+                                   @Value("${hotel.security.hashing.waitTimeoutMs:2000}") long waitTimeoutMs) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.waitTimer = Timer.builder("hotel.auth.bulkhead.wait")
+                .description("Thời gian chờ trong hàng đợi trước khi kiểm tra mật khẩu")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("hotel.auth.bulkhead.rejected")
+                .description("Số lần đăng nhập bị từ chối (429) vì bulkhead kiểm tra mật khẩu đã đầy")
+                .register(meterRegistry);
+        Gauge.builder("hotel.auth.bulkhead.queue", executor, e -> e.getQueue().size())
+                .description("Số yêu cầu kiểm tra mật khẩu đang chờ trong hàng đợi")
+                .register(meterRegistry);
+        Gauge.builder("hotel.auth.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Số thread đang kiểm tra mật khẩu")
+                .register(meterRegistry);
+        logger.info("Bulkhead kiểm tra mật khẩu: {} thread, hàng đợi {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Chạy task (BCrypt / AuthenticationManager.authenticate) trên pool riêng và chờ kết quả.
+     * Exception của task được ném lại nguyên vẹn.
+     */
+    public <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            throw reject();
+        }
+
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bị gián đoạn khi chờ kiểm tra mật khẩu", e);
+        }
+    }
+
+    private TooManyRequestsException reject() {
+        rejectedCounter.increment();
+        return new TooManyRequestsException("Hệ thống đang bận, vui lòng thử đăng nhập lại sau giây lát.", 1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.hotel.security;
+
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.service.impl.UserDetailsServiceImpl;
+import com.example.hotel.util.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Cache UserDetails cho AuthTokenFilter với token cũ (chưa có claims role / id / ver),
+ * theo username (admin) hoặc email (khách hàng). Giới hạn số phần tử và thời gian sống
+ * (hotel.security.principalCache.maxSize / ttlSeconds), nên thay đổi trên instance khác
+ * có hiệu lực chậm nhất sau ttlSeconds.
+ * Đổi mật khẩu, đổi quyền, khóa hoặc xóa tài khoản phải gọi evictAdmin / evictCustomer.
+ * Tỉ lệ trúng cache và thời gian nạp được xuất qua Micrometer (cache.gets, cache.load.duration, ...).
+ */
+@Component
+public class PrincipalCache {
+
+    private final LoadingCache<String, UserDetails> admins;
+    private final LoadingCache<String, UserDetails> customers;
+
+    public PrincipalCache(UserDetailsServiceImpl userDetailsService,
+                          CustomerRepository customerRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${hotel.security.principalCache.maxSize:10000}") long maxSize,
+                          @Value("${hotel.security.principalCache.ttlSeconds:120}") long ttlSeconds) {
+        admins = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(userDetailsService::loadUserByUsername);
+        customers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(email -> customerRepository.findByEmail(email)
+                        .map(customer -> (UserDetails) new User(
+                                customer.getEmail(),
+                                customer.getPassword() != null ? customer.getPassword() : "",
+                                new ArrayList<>()))
+                        .orElseThrow(() -> new UsernameNotFoundException("Token CUSTOMER không hợp lệ: " + email)));
+        CaffeineCacheMetrics.monitor(meterRegistry, admins, "hotel.auth.principal", "type", "admin");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "hotel.auth.principal", "type", "customer");
+    }
+
+    /**
+     * @throws UsernameNotFoundException nếu không có người dùng (kết quả này không được cache)
+     */
+    public UserDetails loadAdmin(String username) {
+        return admins.get(username);
+    }
+
+    public UserDetails loadCustomer(String email) {
+        return customers.get(email);
+    }
+
+    /**
+     * Bỏ người dùng khỏi cache ngay và một lần nữa sau khi transaction commit,
+     * để request chạy song song không nạp lại dữ liệu cũ trước khi commit.
+     */
+    public void evictAdmin(String username) {
+        admins.invalidate(username);
+        TransactionCallbacks.afterCommit(() -> admins.invalidate(username));
+    }
+
+    public void evictCustomer(String email) {
+        customers.invalidate(email);
+        TransactionCallbacks.afterCommit(() -> customers.invalidate(email));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.hotel.security;
+
+import com.example.hotel.config.RateLimitProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất cho các API công khai (permitAll) theo IP và theo endpoint, cấu hình ở hotel.ratelimit.routes.
+ * Chạy trước Spring Security nên request bị chặn không tốn thêm chi phí xác thực. Vượt giới hạn -> 429 + Retry-After.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        RateLimitProperties.Route route = rateLimiter.match(path);
+        if (route != null) {
+            String clientIp = clientIp(request);
+            long waitNanos = rateLimiter.tryAcquire(route, clientIp);
+            if (waitNanos > 0) {
+                // DEBUG: khi bị tấn công, mỗi request bị chặn một dòng WARN sẽ làm ngập log; số lượng xem ở hotel.ratelimit.rejected
+                logger.debug("Vượt giới hạn tần suất: {} {} từ {}", request.getMethod(), path, clientIp);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(waitNanos)));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                response.getWriter().write("{\"message\":\"Quá nhiều yêu cầu, vui lòng thử lại sau.\"}");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Số giây cho header Retry-After: làm tròn lên, tối thiểu 1.
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * IP của client. Khi tin X-Forwarded-For, lấy phần tử cuối cùng (do reverse proxy tin cậy thêm vào):
+     * các phần tử phía trước do client tự gửi, lấy chúng thì client chỉ cần đổi header là có bucket mới.
+     * Nếu header xuất hiện nhiều lần, proxy nối vào dòng cuối.
+     */
+    private String clientIp(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            Enumeration<String> headers = request.getHeaders("X-Forwarded-For");
+            String forwarded = null;
+            while (headers != null && headers.hasMoreElements()) {
+                forwarded = headers.nextElement();
+            }
+            if (StringUtils.hasText(forwarded)) {
+                String last = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+                if (!last.isEmpty()) {
+                    return last;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
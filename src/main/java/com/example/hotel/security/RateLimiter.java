@@ -0,0 +1,74 @@
+package com.example.hotel.security;
+
+import com.example.hotel.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Giới hạn tần suất theo route: mỗi request lấy một token từ bucket theo IP và bucket chung của route.
+ * Bucket nằm trong cache Caffeine giới hạn kích thước, tự bỏ khi không dùng (idleSeconds).
+ */
+@Component
+public class RateLimiter {
+
+    private final List<RateLimitProperties.Route> routes;
+    private final Cache<String, TokenBucket> buckets;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter rejectedCounter;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.routes = List.copyOf(properties.getRoutes());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofSeconds(properties.getIdleSeconds()))
+                .build();
+        this.rejectedCounter = Counter.builder("hotel.ratelimit.rejected")
+                .description("Số request công khai bị từ chối (429) do vượt giới hạn tần suất")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Route đầu tiên khớp với path, hoặc null nếu path không bị giới hạn.
+     */
+    public RateLimitProperties.Route match(String path) {
+        for (RateLimitProperties.Route route : routes) {
+            if (pathMatcher.match(route.getPattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 0 nếu request được phép, ngược lại là số nanos nên chờ (cho header Retry-After)
+     */
+    public long tryAcquire(RateLimitProperties.Route route, String clientIp) {
+        return tryAcquire(route, clientIp, System.nanoTime());
+    }
+
+    long tryAcquire(RateLimitProperties.Route route, String clientIp, long now) {
+        long wait = 0;
+        if (route.getPerIpPerSecond() > 0) {
+            wait = bucket(route.getPattern() + '|' + clientIp, route.getPerIpPerSecond(), route.getPerIpBurst(), now)
+                    .tryAcquire(now);
+        }
+        if (wait == 0 && route.getGlobalPerSecond() > 0) {
+            wait = bucket(route.getPattern(), route.getGlobalPerSecond(), route.getGlobalBurst(), now).tryAcquire(now);
+        }
+        if (wait > 0) {
+            rejectedCounter.increment();
+        }
+        return wait;
+    }
+
+    private TokenBucket bucket(String key, double ratePerSecond, int burst, long now) {
+        return buckets.get(key, k -> new TokenBucket(ratePerSecond, Math.max(1, burst), now));
+    }
+}
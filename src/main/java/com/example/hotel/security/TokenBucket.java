@@ -0,0 +1,42 @@
+package com.example.hotel.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket không khóa (lock-free), cài theo dạng GCRA: trạng thái duy nhất là
+ * "thời điểm lý thuyết bucket đầy trở lại" (TAT, nanos), cập nhật bằng một lần CAS.
+ * Tương đương bucket dung lượng burst, nạp ratePerSecond token mỗi giây.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;   // Thời gian nạp một token
+    private final long burstNanos;      // Dung lượng bucket quy ra thời gian
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("ratePerSecond và burst phải lớn hơn 0");
+        }
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Lấy một token.
+     * @return 0 nếu được phép, ngược lại là số nanos phải chờ đến khi có token
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.hotel.security;
+
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.TokenVersionView;
+import com.example.hotel.repository.UserRepository;
+import com.example.hotel.util.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bảng phiên bản token (users.token_version, customers.token_version) trong bộ nhớ.
+ * AuthTokenFilter so claim "ver" của JWT với bảng này thay vì nạp cả dòng User / Customer ở mỗi request.
+ *
+ * Bảng được nạp lại định kỳ (hotel.security.tokenVersionRefreshMs, mặc định 60 giây),
+ * nên thay đổi từ instance khác có hiệu lực chậm nhất sau một chu kỳ. Thay đổi trên instance này
+ * có hiệu lực ngay sau khi transaction commit. ID chưa có trong bảng (tài khoản mới) được tra một lần
+ * bằng khóa chính; tài khoản không tồn tại / bị khóa được ghi nhớ là REVOKED đến lần nạp lại sau.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    // Không trùng với phiên bản hợp lệ nào (token_version >= 0)
+    private static final int REVOKED = -1;
+
+    private final UserRepository userRepository;
+    private final CustomerRepository customerRepository;
+
+    private volatile Map<Long, Integer> userVersions = new ConcurrentHashMap<>();
+    private volatile Map<Long, Integer> customerVersions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserRepository userRepository, CustomerRepository customerRepository) {
+        this.userRepository = userRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${hotel.security.tokenVersionRefreshMs:60000}",
+            initialDelayString = "${hotel.security.tokenVersionRefreshMs:60000}")
+    public void refresh() {
+        try {
+            userVersions = load(userRepository.findActiveTokenVersions());
+            customerVersions = load(customerRepository.findTokenVersions());
+            logger.debug("Đã nạp phiên bản token: {} người dùng, {} khách hàng", userVersions.size(), customerVersions.size());
+        } catch (Exception e) {
+            logger.error("Không thể nạp bảng phiên bản token: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Token của người dùng (admin / nhân viên) còn hiệu lực: tài khoản tồn tại, đang hoạt động và cùng phiên bản.
+     */
+    public boolean isUserTokenCurrent(Long userId, int version) {
+        Integer current = userVersions.get(userId);
+        if (current == null) {
+            current = userRepository.findActiveTokenVersionById(userId).map(TokenVersionView::getTokenVersion).orElse(REVOKED);
+            userVersions.put(userId, current);
+        }
+        return current == version;
+    }
+
+    public boolean isCustomerTokenCurrent(Long customerId, int version) {
+        Integer current = customerVersions.get(customerId);
+        if (current == null) {
+            current = customerRepository.findTokenVersionById(customerId).map(TokenVersionView::getTokenVersion).orElse(REVOKED);
+            customerVersions.put(customerId, current);
+        }
+        return current == version;
+    }
+
+    /**
+     * Thu hồi mọi JWT đã cấp cho người dùng (tăng token_version trong transaction hiện tại).
+     */
+    @Transactional
+    public void revokeUserTokens(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        evictUserAfterCommit(userId);
+        logger.info("Đã thu hồi các token của người dùng {}", userId);
+    }
+
+    /**
+     * Thu hồi mọi JWT đã cấp cho khách hàng (tăng token_version trong transaction hiện tại).
+     */
+    @Transactional
+    public void revokeCustomerTokens(Long customerId) {
+        customerRepository.incrementTokenVersion(customerId);
+        evictCustomerAfterCommit(customerId);
+        logger.info("Đã thu hồi các token của khách hàng {}", customerId);
+    }
+
+    /**
+     * Bỏ giá trị đã nhớ của người dùng sau khi transaction commit (vd. khi xóa tài khoản),
+     * request kế tiếp sẽ tra lại từ DB.
+     */
+    public void evictUserAfterCommit(Long userId) {
+        TransactionCallbacks.afterCommit(() -> userVersions.remove(userId));
+    }
+
+    public void evictCustomerAfterCommit(Long customerId) {
+        TransactionCallbacks.afterCommit(() -> customerVersions.remove(customerId));
+    }
+
+    private static Map<Long, Integer> load(List<TokenVersionView> versions) {
+        Map<Long, Integer> map = new ConcurrentHashMap<>(Math.max(16, versions.size() * 2));
+        for (TokenVersionView version : versions) {
+            map.put(version.getId(), Optional.ofNullable(version.getTokenVersion()).orElse(0));
+        }
+        return map;
+    }
+}
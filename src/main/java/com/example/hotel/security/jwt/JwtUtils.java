@@ -1,22 +1,29 @@
 package com.example.hotel.security.jwt;
 
-import com.example.hotel.service.impl.UserDetailsImpl;
+import com.example.hotel.entity.Customer;
+import com.example.hotel.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
 import java.util.Date;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // Claims để AuthTokenFilter dựng principal mà không cần truy vấn DB
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_VERSION = "ver";
+    public static final String ROLE_CUSTOMER = "CUSTOMER";
+
     // Lấy các giá trị từ file application.properties
     @Value("${hotel.app.jwtSecret}")
     private String jwtSecret;
@@ -24,39 +31,61 @@ public class JwtUtils {
     @Value("${hotel.app.jwtExpirationMs}")
     private long jwtExpirationMs;
 
-    public String generateJwtToken(Authentication authentication) {
-        UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    // Khóa và parser dựng một lần khi khởi động (thread-safe), không giải mã Base64 secret ở mỗi request
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
 
+    /**
+     * Token cho người dùng hệ thống (admin / nhân viên): subject = username, kèm role, id và token_version.
+     */
+    public String generateJwtToken(User user) {
         return Jwts.builder()
-                .setSubject((userPrincipal.getUsername()))
+                .setSubject(user.getUsername())
+                .claim(CLAIM_ROLE, user.getRole())
+                .claim(CLAIM_ID, user.getId())
+                .claim(CLAIM_VERSION, user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String generateTokenFromUsername(String username) {
+    /**
+     * Token cho khách hàng: subject = email, role = CUSTOMER, kèm id và token_version.
+     */
+    public String generateCustomerToken(Customer customer) {
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(customer.getEmail())
+                .claim(CLAIM_ROLE, ROLE_CUSTOMER)
+                .claim(CLAIM_ID, customer.getId())
+                .claim(CLAIM_VERSION, customer.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseValidClaims(authToken) != null;
+    }
+
+    /**
+     * Xác thực chữ ký + hạn dùng và trả về claims chỉ với MỘT lần parse.
+     * Trả về null (và ghi log) nếu token không hợp lệ. Chỉ chấp nhận token có chữ ký (JWS).
+     */
+    public Claims parseValidClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -65,7 +94,9 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT signature is invalid: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,58 @@
+package com.example.hotel.service;
+
+import com.example.hotel.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Đối soát cột bookings.amount_paid (do PaymentServiceImpl cộng dồn) với tổng thực tế trong bảng payments.
+ * Chạy theo từng khoảng id, mỗi khoảng một transaction, và chỉ ghi những booking bị lệch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingAmountPaidService {
+
+    private static final int RECONCILE_BATCH = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Đối soát mỗi đêm (mặc định 3h30 sáng) và một lần khi khởi động (điền cột cho dữ liệu cũ).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.amountPaid.reconcileCron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát số tiền đã thanh toán: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tính lại amount_paid cho các booking bị lệch, trả về số booking đã sửa.
+     */
+    public int reconcile() {
+        long maxId = bookingRepository.findMaxIdIncludingDeleted();
+        int drifted = 0;
+        for (long fromId = 1; fromId <= maxId; fromId += RECONCILE_BATCH) {
+            long from = fromId;
+            long to = fromId + RECONCILE_BATCH - 1;
+            Integer fixed = transactionTemplate.execute(status -> bookingRepository.recomputeAmountPaid(from, to));
+            drifted += fixed != null ? fixed : 0;
+        }
+        if (drifted > 0) {
+            log.warn("Đối soát số tiền đã thanh toán: {} booking bị lệch đã được sửa.", drifted);
+        } else {
+            log.info("Đối soát số tiền đã thanh toán: không có sai lệch (id tối đa {}).", maxId);
+        }
+        return drifted;
+    }
+}
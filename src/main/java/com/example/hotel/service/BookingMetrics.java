@@ -0,0 +1,52 @@
+package com.example.hotel.service;
+
+import com.example.hotel.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metrics nghiệp vụ của luồng đặt phòng:
+ * - hotel.booking.funnel{stage}: tìm phòng -> tạo booking -> xác nhận -> nhận phòng -> trả phòng (và hủy)
+ * - hotel.booking.conflicts{operation}: số lần từ chối vì phòng đã có đặt phòng trùng ngày
+ *
+ * Bước trong phễu chỉ được đếm sau khi transaction commit, booking bị rollback không làm lệch số liệu.
+ */
+@Component
+public class BookingMetrics {
+
+    public enum Stage { SEARCH, CREATE, CONFIRM, CHECK_IN, CHECK_OUT, CANCEL }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Counter> funnel = new EnumMap<>(Stage.class);
+
+    public BookingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Stage stage : Stage.values()) {
+            funnel.put(stage, Counter.builder("hotel.booking.funnel")
+                    .description("Số lượt đi qua từng bước của phễu đặt phòng")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void stage(Stage stage) {
+        TransactionCallbacks.afterCommit(funnel.get(stage)::increment);
+    }
+
+    /**
+     * Đếm một lần từ chối vì trùng lịch và trả lại chính exception để dùng trong orElseThrow.
+     */
+    public <E extends RuntimeException> E conflict(String operation, E rejection) {
+        Counter.builder("hotel.booking.conflicts")
+                .description("Số yêu cầu đặt / sửa phòng bị từ chối vì trùng lịch")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+        return rejection;
+    }
+}
@@ -4,15 +4,32 @@ import com.example.hotel.dto.BookingDto;
 import com.example.hotel.dto.BookingHistoryDto;
 import com.example.hotel.dto.BookingRequestDTO;
 import com.example.hotel.dto.BookingResponseDTO;
+import com.example.hotel.dto.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 public interface BookingService {
-    Page<BookingDto> findBookings(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search, Pageable pageable);
+    /**
+     * Danh sách đặt phòng có lọc và phân trang.
+     * @param unpaidOnly chỉ lấy booking còn nợ (total_price - amount_paid > 0)
+     * @param pageable có thể sắp xếp theo "balanceDue" (số tiền còn phải trả)
+     */
+    Page<BookingDto> findBookings(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search,
+                                  boolean unpaidOnly, Pageable pageable);
+    /**
+     * Phân trang theo con trỏ (keyset) với cùng bộ lọc như findBookings.
+     * Không dùng OFFSET nên trang sâu vẫn nhanh như trang đầu.
+     * @param sortField trường sắp xếp (phải nằm trong danh sách cho phép), luôn kèm id để thứ tự là duy nhất
+     * @param cursor con trỏ nextCursor của trang trước, null cho trang đầu
+     * @param withTotal có đếm tổng số bản ghi (COUNT) hay không
+     */
+    CursorPage<BookingDto> findBookingsByCursor(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search,
+                                                boolean unpaidOnly, String sortField, Sort.Direction direction, String cursor, int size, boolean withTotal);
     BookingDto getBookingById(Long id);
     BookingDto createBooking(BookingDto bookingDto);
     BookingDto updateBooking(Long id, BookingDto bookingDto);
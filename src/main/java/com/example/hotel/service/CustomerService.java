@@ -2,13 +2,27 @@ package com.example.hotel.service;
 
 import com.example.hotel.dto.CustomerRequestDTO;
 import com.example.hotel.dto.CustomerResponseDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface CustomerService {
     CustomerResponseDTO createCustomer(CustomerRequestDTO customerRequest);
     CustomerResponseDTO getCustomerById(Long customerId);
-    List<CustomerResponseDTO> getAllCustomers();
+    /**
+     * Danh sách khách hàng có phân trang, kèm thống kê (số lần ở, số đêm, chi tiêu) chỉ cho các khách trong trang.
+     */
+    Page<CustomerResponseDTO> getCustomers(Pageable pageable);
+    /**
+     * Tìm khách hàng theo tên / SĐT / email / CCCD, không phân biệt dấu (dùng cột search_text có chỉ mục).
+     */
+    List<CustomerResponseDTO> searchCustomers(String search);
+    /**
+     * Số khách hàng theo tên hạng thành viên.
+     */
+    Map<String, Long> countCustomersByTier();
     CustomerResponseDTO updateCustomer(Long customerId, CustomerRequestDTO customerRequest);
     void deleteCustomer(Long customerId);
     /**
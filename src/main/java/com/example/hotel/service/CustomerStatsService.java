@@ -0,0 +1,148 @@
+package com.example.hotel.service;
+
+import com.example.hotel.dto.CustomerStatsReconcileResultDto;
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.BookingStatus;
+import com.example.hotel.entity.Customer;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.CustomerStatsView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bộ đếm lưu trú trên bảng customers (stay_count, stay_nights, total_spend).
+ * BookingServiceImpl gọi moveStay(...) đúng một lần khi booking đi vào / ra khỏi CHECKED_OUT
+ * (hoặc khi sửa / xóa một booking đã CHECKED_OUT), nên đọc hồ sơ khách hàng không cần quét bookings.
+ * Job đối soát so bộ đếm với bookings và sửa các khách bị lệch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerStatsService {
+
+    private static final int RECONCILE_BATCH = 500;
+
+    private final CustomerRepository customerRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Phần đóng góp của một booking vào bộ đếm của khách hàng. Chỉ booking CHECKED_OUT mới được tính
+     * (of(...) trả về null với các trạng thái khác).
+     */
+    public record Stay(Long customerId, long nights, BigDecimal spend) {
+
+        public static Stay of(Booking booking) {
+            if (booking == null || booking.isDeleted() || booking.getStatus() != BookingStatus.CHECKED_OUT
+                    || booking.getCustomer() == null) {
+                return null;
+            }
+            long nights = ChronoUnit.DAYS.between(booking.getCheckInDate(), booking.getCheckOutDate());
+            BigDecimal spend = booking.getTotalPrice() != null ? booking.getTotalPrice() : BigDecimal.ZERO;
+            return new Stay(booking.getCustomer().getId(), nights, spend);
+        }
+    }
+
+    /**
+     * Chuyển phần đóng góp từ before sang after (null = không đóng góp), trong transaction của thao tác booking.
+     */
+    @Transactional
+    public void moveStay(Stay before, Stay after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            customerRepository.addStayStats(before.customerId(), -1, -before.nights(), before.spend().negate());
+        }
+        if (after != null) {
+            customerRepository.addStayStats(after.customerId(), 1, after.nights(), after.spend());
+        }
+    }
+
+    /**
+     * Đối soát mỗi đêm (mặc định 3h sáng) và một lần khi khởi động (điền bộ đếm cho dữ liệu cũ).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.customerStats.reconcileCron:0 0 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát thống kê khách hàng: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * So bộ đếm của từng khách hàng với thống kê GROUP BY từ bookings, theo lô 500 khách mỗi transaction.
+     */
+    public CustomerStatsReconcileResultDto reconcile() {
+        int checked = 0;
+        int drifted = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            long[] result = transactionTemplate.execute(status -> reconcileBatch(from));
+            if (result == null || result[0] == 0) {
+                break;
+            }
+            checked += (int) result[0];
+            drifted += (int) result[1];
+            afterId = result[2];
+        }
+        if (drifted > 0) {
+            log.warn("Đối soát thống kê khách hàng: {} / {} khách bị lệch đã được sửa.", drifted, checked);
+        } else {
+            log.info("Đối soát thống kê khách hàng: {} khách, không có sai lệch.", checked);
+        }
+        return new CustomerStatsReconcileResultDto(checked, drifted);
+    }
+
+    /**
+     * Khóa lô khách hàng trước rồi mới đếm lại từ bookings. Nếu đọc bookings trước, một booking chuyển sang CHECKED_OUT
+     * và cộng bộ đếm giữa lúc đọc và lúc ghi sẽ bị setStayStats ghi đè mất (lost update). Khi đã giữ khóa, booking nào
+     * đã cộng bộ đếm thì đã commit nên được đếm; booking chưa cộng thì sẽ cộng sau, trên giá trị vừa sửa.
+     * Trả về {số khách đã kiểm, số khách bị lệch, id lớn nhất của lô}.
+     */
+    private long[] reconcileBatch(long afterId) {
+        List<Customer> customers = customerRepository.findBatchForUpdate(afterId, PageRequest.of(0, RECONCILE_BATCH));
+        if (customers.isEmpty()) {
+            return new long[]{0, 0, afterId};
+        }
+        List<Long> ids = customers.stream().map(Customer::getId).collect(Collectors.toList());
+        Map<Long, CustomerStatsView> expected = bookingRepository.findCustomerStats(ids).stream()
+                .collect(Collectors.toMap(CustomerStatsView::getCustomerId, Function.identity()));
+
+        int drifted = 0;
+        for (Customer customer : customers) {
+            CustomerStatsView stats = expected.get(customer.getId());
+            int stays = stats != null ? stats.getBookings().intValue() : 0;
+            long nights = stats != null && stats.getNights() != null ? stats.getNights() : 0L;
+            BigDecimal spend = stats != null && stats.getSpend() != null ? stats.getSpend() : BigDecimal.ZERO;
+            if (customer.getStayCount() != stays || customer.getStayNights() != nights
+                    || customer.getTotalSpend().compareTo(spend) != 0) {
+                log.warn("Thống kê khách hàng {} bị lệch: số lần ở {} -> {}, số đêm {} -> {}, chi tiêu {} -> {}",
+                        customer.getId(), customer.getStayCount(), stays, customer.getStayNights(), nights,
+                        customer.getTotalSpend(), spend);
+                customerRepository.setStayStats(customer.getId(), stays, nights, spend);
+                drifted++;
+            }
+        }
+        return new long[]{customers.size(), drifted, ids.get(ids.size() - 1)};
+    }
+}
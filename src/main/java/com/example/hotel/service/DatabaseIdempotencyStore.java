@@ -0,0 +1,123 @@
+package com.example.hotel.service;
+
+import com.example.hotel.entity.IdempotencyKey;
+import com.example.hotel.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * IdempotencyStore dùng bảng idempotency_keys, cho nhiều instance chạy sau load balancer.
+ * Mỗi thao tác là một transaction ngắn riêng, tách khỏi transaction tạo booking / thanh toán.
+ * Bản ghi hết hạn được xóa định kỳ (hotel.idempotency.purgeMs).
+ */
+@Component
+@ConditionalOnProperty(name = "hotel.idempotency.store", havingValue = "database")
+@Slf4j
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyKeyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlSeconds;
+    private final long inProgressTimeoutSeconds;
+
+    public DatabaseIdempotencyStore(IdempotencyKeyRepository repository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${hotel.idempotency.ttlSeconds:86400}") long ttlSeconds,
+                                    @Value("${hotel.idempotency.inProgressTimeoutSeconds:60}") long inProgressTimeoutSeconds) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlSeconds = ttlSeconds;
+        this.inProgressTimeoutSeconds = inProgressTimeoutSeconds;
+    }
+
+    @Override
+    public StoredResponse reserve(String key, StoredResponse reservation) {
+        String fingerprint = reservation.fingerprint();
+        LocalDateTime now = toCreatedAt(reservation);
+        LocalDateTime expiresAt = now.plusSeconds(ttlSeconds);
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.insertReservation(key, fingerprint, now, expiresAt));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Khóa đã tồn tại -> đọc bản ghi hiện có
+        }
+
+        IdempotencyKey existing = repository.findById(key).orElse(null);
+        if (existing == null) {
+            // Vừa bị xóa (release / hết hạn) giữa hai câu lệnh -> thử giữ lại một lần
+            return reserveAgain(key, fingerprint, now, expiresAt);
+        }
+        boolean expired = existing.getExpiresAt().isBefore(now);
+        boolean abandoned = existing.getStatusCode() == null
+                && existing.getCreatedAt().plusSeconds(inProgressTimeoutSeconds).isBefore(now);
+        if (expired || abandoned) {
+            LocalDateTime seenCreatedAt = existing.getCreatedAt();
+            Integer taken = transactionTemplate.execute(status ->
+                    repository.takeOver(key, fingerprint, now, expiresAt, seenCreatedAt));
+            if (taken != null && taken == 1) {
+                return null;
+            }
+            return repository.findById(key).map(DatabaseIdempotencyStore::toStoredResponse)
+                    .orElse(toStoredResponse(existing));
+        }
+        return toStoredResponse(existing);
+    }
+
+    @Override
+    public void complete(String key, StoredResponse reservation, StoredResponse response) {
+        Integer saved = transactionTemplate.execute(status ->
+                repository.saveResponse(key, response.status(), response.body(), toCreatedAt(reservation)));
+        if (saved == null || saved == 0) {
+            log.warn("Không lưu phản hồi cho {}: khóa đã bị request khác giữ lại", key);
+        }
+    }
+
+    @Override
+    public void release(String key, StoredResponse reservation) {
+        transactionTemplate.executeWithoutResult(status -> repository.deleteKey(key, toCreatedAt(reservation)));
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.idempotency.purgeMs:600000}")
+    public void purgeExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                log.debug("Đã xóa {} Idempotency-Key hết hạn", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi xóa Idempotency-Key hết hạn: {}", e.getMessage(), e);
+        }
+    }
+
+    private StoredResponse reserveAgain(String key, String fingerprint, LocalDateTime now, LocalDateTime expiresAt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> repository.insertReservation(key, fingerprint, now, expiresAt));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            return repository.findById(key).map(DatabaseIdempotencyStore::toStoredResponse)
+                    .orElse(StoredResponse.inProgress(fingerprint, System.currentTimeMillis()));
+        }
+    }
+
+    // Cột created_at lưu đến giây: cắt bớt để reserve, complete và release so cùng một giá trị
+    private static LocalDateTime toCreatedAt(StoredResponse reservation) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(reservation.createdAt()), ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static StoredResponse toStoredResponse(IdempotencyKey entity) {
+        long createdAt = entity.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int status = entity.getStatusCode() != null ? entity.getStatusCode() : 0;
+        return new StoredResponse(entity.getRequestHash(), status, entity.getResponseBody(), createdAt);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.hotel.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Xử lý header Idempotency-Key cho các API tạo dữ liệu (ghi nhận thanh toán, đặt phòng công khai).
+ * Lần gửi đầu tiên được thực thi và phản hồi thành công (2xx) được lưu lại; lần gửi lại với cùng khóa
+ * nhận lại đúng phản hồi đó (kèm header Idempotent-Replayed) mà không tạo thêm Payment / Booking.
+ * Request thất bại không được lưu, nên khách có thể sửa lỗi rồi gửi lại với cùng khóa.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Counter replayedCounter;
+
+    public IdempotencyService(IdempotencyStore store, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.replayedCounter = Counter.builder("hotel.idempotency.replayed")
+                .description("Số request gửi lại được trả lời bằng phản hồi đã lưu theo Idempotency-Key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param scope tên endpoint, để cùng một khóa dùng cho hai endpoint khác nhau không bị lẫn
+     * @param key giá trị header Idempotency-Key (null / rỗng -> thực thi bình thường)
+     * @param request các phần của request dùng để nhận ra cùng khóa nhưng khác nội dung
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (!StringUtils.hasText(key)) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("message", HEADER + " không được dài quá " + MAX_KEY_LENGTH + " ký tự."));
+        }
+
+        String storeKey = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        IdempotencyStore.StoredResponse reservation =
+                IdempotencyStore.StoredResponse.inProgress(fingerprint, System.currentTimeMillis());
+        IdempotencyStore.StoredResponse existing = store.reserve(storeKey, reservation);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(Map.of("message", HEADER + " đã được dùng cho một yêu cầu khác."));
+            }
+            if (existing.isInProgress()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("message", "Yêu cầu với " + HEADER + " này đang được xử lý, vui lòng đợi."));
+            }
+            replayedCounter.increment();
+            log.info("Trả lại phản hồi đã lưu cho {} {}", scope, key);
+            return ResponseEntity.status(existing.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(existing.body());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            store.release(storeKey, reservation);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            store.release(storeKey, reservation);
+            return response;
+        }
+        try {
+            String body = objectMapper.writeValueAsString(response.getBody());
+            store.complete(storeKey, reservation, new IdempotencyStore.StoredResponse(
+                    fingerprint, response.getStatusCode().value(), body, reservation.createdAt()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Không lưu được thì bỏ khóa: lần gửi lại sẽ thực thi lại thay vì bị báo "đang xử lý"
+            log.error("Không thể lưu phản hồi cho {} {}: {}", scope, key, e.getMessage(), e);
+            store.release(storeKey, reservation);
+        }
+        return response;
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Không thể băm nội dung request", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.hotel.service;
+
+/**
+ * Nơi lưu phản hồi theo Idempotency-Key (có giới hạn kích thước và thời hạn TTL).
+ * Chọn cài đặt bằng hotel.idempotency.store: memory (mặc định, một instance) hoặc database (nhiều instance dùng chung).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Giữ khóa cho request đầu tiên bằng bản ghi đang xử lý reservation (xem {@link StoredResponse#inProgress}).
+     * Trả về null nếu giữ được (request này được phép thực thi),
+     * ngược lại trả về bản ghi đang có của khóa (đang xử lý hoặc đã có phản hồi).
+     * Bản ghi đang xử lý quá inProgressTimeoutSeconds (instance chết giữa chừng) được cho phép giữ lại.
+     */
+    StoredResponse reserve(String key, StoredResponse reservation);
+
+    /**
+     * Lưu phản hồi thành công của request đã giữ khóa. Không làm gì nếu khóa đã bị request khác giữ lại
+     * (so createdAt của reservation), để request chậm không ghi đè lên lần thực thi mới hơn.
+     */
+    void complete(String key, StoredResponse reservation, StoredResponse response);
+
+    /**
+     * Bỏ khóa khi request thất bại, để lần gửi lại với cùng khóa được thực thi lại.
+     * Giống complete, chỉ xóa khi khóa vẫn là của reservation này.
+     */
+    void release(String key, StoredResponse reservation);
+
+    /**
+     * @param fingerprint băm SHA-256 của nội dung request, để phát hiện cùng khóa nhưng khác nội dung
+     * @param status mã HTTP đã trả về, 0 khi request đang được xử lý
+     * @param body phản hồi dạng JSON
+     * @param createdAt thời điểm giữ khóa (epoch millis)
+     */
+    record StoredResponse(String fingerprint, int status, String body, long createdAt) {
+
+        public static StoredResponse inProgress(String fingerprint, long now) {
+            return new StoredResponse(fingerprint, 0, null, now);
+        }
+
+        public boolean isInProgress() {
+            return status == 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.hotel.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * IdempotencyStore trong bộ nhớ của instance (Caffeine, giới hạn số khóa và hết hạn sau TTL).
+ * Lần gửi lại được trả lời hoàn toàn từ bộ nhớ, không truy vấn DB.
+ */
+@Component
+@ConditionalOnProperty(name = "hotel.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, StoredResponse> responses;
+    private final long inProgressTimeoutMillis;
+
+    public InMemoryIdempotencyStore(@Value("${hotel.idempotency.maxEntries:10000}") long maxEntries,
+                                    @Value("${hotel.idempotency.ttlSeconds:86400}") long ttlSeconds,
+                                    @Value("${hotel.idempotency.inProgressTimeoutSeconds:60}") long inProgressTimeoutSeconds) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.inProgressTimeoutMillis = Duration.ofSeconds(inProgressTimeoutSeconds).toMillis();
+    }
+
+    @Override
+    public StoredResponse reserve(String key, StoredResponse reservation) {
+        StoredResponse existing = responses.asMap().putIfAbsent(key, reservation);
+        if (existing != null && existing.isInProgress()
+                && reservation.createdAt() - existing.createdAt() > inProgressTimeoutMillis
+                && responses.asMap().replace(key, existing, reservation)) {
+            return null;
+        }
+        return existing;
+    }
+
+    @Override
+    public void complete(String key, StoredResponse reservation, StoredResponse response) {
+        responses.asMap().replace(key, reservation, response);
+    }
+
+    @Override
+    public void release(String key, StoredResponse reservation) {
+        responses.asMap().remove(key, reservation);
+    }
+}
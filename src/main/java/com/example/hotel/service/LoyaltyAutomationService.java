@@ -2,9 +2,9 @@ package com.example.hotel.service;
 
 import com.example.hotel.dto.LoyaltyPointTransactionDto;
 import com.example.hotel.entity.*;
+import com.example.hotel.repository.BookingRepository;
 import com.example.hotel.repository.CustomerRepository;
 import com.example.hotel.repository.LoyaltyPointTransactionRepository;
-import com.example.hotel.repository.LoyaltyTierRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,16 +18,30 @@ import java.util.stream.Collectors;
 @Slf4j // Thêm thư viện Log để ghi log lỗi
 public class LoyaltyAutomationService {
 
+    private final BookingRepository bookingRepository;
     private final CustomerRepository customerRepository;
-    private final LoyaltyTierRepository tierRepository;
+    private final LoyaltyTierService loyaltyTierService;
     private final LoyaltyPointTransactionRepository transactionRepository;
 
     /**
      * Hàm chính: Xử lý cộng điểm và nâng hạng khi check-out
-     * ĐƯỢC GỌI BỞI BookingServiceImpl
+     * ĐƯỢC GỌI BỞI OutboxService (sự kiện BookingCheckedOut), ngoài transaction trả phòng.
+     * Idempotent: booking đã có giao dịch điểm thì bỏ qua, nên xử lý lại một sự kiện không cộng điểm hai lần.
+     * Hai lần xử lý song song cùng qua bước kiểm tra thì lần ghi sau lỗi khóa trùng (uk_loyalty_tx_booking),
+     * OutboxService coi đó là "đã xử lý" (xem isBookingCheckoutProcessed).
      */
     @Transactional
-    public void processBookingCheckout(Booking booking) {
+    public void processBookingCheckout(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != BookingStatus.CHECKED_OUT || booking.getCustomer() == null) {
+            // Booking đã bị xóa / chuyển trạng thái khác trước khi sự kiện được xử lý
+            log.info("Bỏ qua cộng điểm cho booking {}: không còn ở trạng thái CHECKED_OUT.", bookingId);
+            return;
+        }
+        if (transactionRepository.existsByBookingId(bookingId)) {
+            log.info("Booking {} đã được cộng điểm trước đó, bỏ qua.", bookingId);
+            return;
+        }
 
         RoomType roomType = booking.getRoom().getRoomType();
         int pointsEarned = roomType.getPointsEarned();
@@ -39,7 +53,9 @@ public class LoyaltyAutomationService {
             return;
         }
 
-        Customer customer = booking.getCustomer();
+        // Khóa dòng khách hàng: hai sự kiện của cùng một khách xử lý song song không làm mất điểm của nhau
+        Customer customer = customerRepository.findByIdForUpdate(booking.getCustomer().getId())
+                .orElseThrow(() -> new IllegalStateException("Không tìm thấy khách hàng của booking " + bookingId));
 
         // 3. Ghi lại giao dịch điểm (lịch sử)
         LoyaltyPointTransaction transaction = new LoyaltyPointTransaction();
@@ -61,24 +77,26 @@ public class LoyaltyAutomationService {
                 pointsEarned, customer.getId(), customer.getCurrentPoints(), customer.getLoyaltyTier().getName());
     }
 
+    /**
+     * Booking đã có giao dịch tích điểm (sự kiện trả phòng của booking này đã được xử lý).
+     */
+    @Transactional(readOnly = true)
+    public boolean isBookingCheckoutProcessed(Long bookingId) {
+        return transactionRepository.existsByBookingId(bookingId);
+    }
+
     /**
      * Hàm helper để kiểm tra và cập nhật hạng mới cho khách
      */
     private void updateCustomerTier(Customer customer) {
-        // Lấy danh sách hạng, sắp xếp điểm từ CAO xuống THẤP
-        // (Platinum 3000, Gold 1500, Silver 1000, Bronze 0)
-        List<LoyaltyTier> tiers = tierRepository.findAllByOrderByPointsRequiredDesc();
-
-        for (LoyaltyTier tier : tiers) {
-            if (customer.getCurrentPoints() >= tier.getPointsRequired()) {
-                // Tìm thấy hạng cao nhất mà khách đạt được
-                if (!tier.equals(customer.getLoyaltyTier())) {
-                    log.info("Khách hàng {} được nâng hạng: {} -> {}",
-                            customer.getId(), customer.getLoyaltyTier().getName(), tier.getName());
-                    customer.setLoyaltyTier(tier);
-                }
-                break; // Dừng vòng lặp
-            }
+        // Hạng cao nhất mà khách đạt được (Platinum 3000, Gold 1500, Silver 1000, Bronze 0),
+        // tra trên bảng hạng trong bộ nhớ của LoyaltyTierService
+        LoyaltyTier tier = loyaltyTierService.resolveTier(customer.getCurrentPoints());
+        LoyaltyTier current = customer.getLoyaltyTier();
+        if (tier != null && (current == null || !tier.getId().equals(current.getId()))) {
+            log.info("Khách hàng {} được nâng hạng: {} -> {}",
+                    customer.getId(), current != null ? current.getName() : "N/A", tier.getName());
+            customer.setLoyaltyTier(tier);
         }
     }
     /**
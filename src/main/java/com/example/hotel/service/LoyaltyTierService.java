@@ -5,6 +5,9 @@ import com.example.hotel.entity.LoyaltyTier;
 import com.example.hotel.exception.ResourceNotFoundException;
 import com.example.hotel.repository.LoyaltyTierRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,10 +15,14 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class LoyaltyTierService {
 
     private final LoyaltyTierRepository loyaltyTierRepository;
 
+    // Bảng hạng trong bộ nhớ (bất biến, sắp theo điểm yêu cầu tăng dần), thay cả bảng khi hạng thay đổi
+    private volatile TierTable tierTable;
+
     // Lấy tất cả các hạng để hiển thị
     public List<LoyaltyTierDto> getAllTiers() {
         return loyaltyTierRepository.findAll().stream()
@@ -27,6 +34,7 @@ public class LoyaltyTierService {
     public LoyaltyTierDto createTier(LoyaltyTierDto dto) {
         LoyaltyTier tier = convertToEntity(dto);
         LoyaltyTier savedTier = loyaltyTierRepository.save(tier);
+        reloadTiers();
         return convertToDto(savedTier);
     }
 
@@ -41,6 +49,7 @@ public class LoyaltyTierService {
         tier.setBenefitsJson(dto.getBenefitsJson());
 
         LoyaltyTier updatedTier = loyaltyTierRepository.save(tier);
+        reloadTiers();
         return convertToDto(updatedTier);
     }
 
@@ -52,6 +61,80 @@ public class LoyaltyTierService {
         // Cần cẩn thận: Nếu có khách hàng đang ở hạng này, việc xóa sẽ gây lỗi.
         // Bạn nên thêm logic kiểm tra trước khi xóa.
         loyaltyTierRepository.deleteById(id);
+        reloadTiers();
+    }
+
+    /**
+     * Hạng cao nhất mà số điểm đạt được (tìm nhị phân trên bảng trong bộ nhớ, không truy vấn DB).
+     * Trả về null nếu điểm thấp hơn mọi hạng.
+     */
+    public LoyaltyTier resolveTier(int points) {
+        return tiers().resolve(points);
+    }
+
+    /**
+     * Hạng mặc định cho khách hàng mới: hạng có điểm yêu cầu thấp nhất (Bronze / Đồng).
+     */
+    public LoyaltyTier getDefaultTier() {
+        TierTable table = tiers();
+        if (table.tiers.length == 0) {
+            throw new IllegalStateException("Chưa cấu hình hạng thành viên nào. Vui lòng kiểm tra CSDL.");
+        }
+        return table.tiers[0];
+    }
+
+    /**
+     * Nạp lại bảng hạng từ DB và thay thế bảng cũ trong một lần gán.
+     * Gọi khi khởi động và sau mỗi lần thêm / sửa / xóa hạng.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadTiers() {
+        tierTable = new TierTable(loyaltyTierRepository.findAllByOrderByPointsRequiredAsc());
+        log.info("Đã nạp {} hạng thành viên vào bộ nhớ", tierTable.tiers.length);
+    }
+
+    private TierTable tiers() {
+        TierTable table = tierTable;
+        if (table == null) {
+            // Được gọi trước ApplicationReadyEvent
+            synchronized (this) {
+                if (tierTable == null) {
+                    reloadTiers();
+                }
+                table = tierTable;
+            }
+        }
+        return table;
+    }
+
+    private static final class TierTable {
+        private final LoyaltyTier[] tiers;
+        private final int[] points;
+
+        TierTable(List<LoyaltyTier> sortedTiers) {
+            this.tiers = sortedTiers.toArray(new LoyaltyTier[0]);
+            this.points = new int[tiers.length];
+            for (int i = 0; i < tiers.length; i++) {
+                points[i] = tiers[i].getPointsRequired();
+            }
+        }
+
+        // Phần tử cuối cùng có points[i] <= value
+        LoyaltyTier resolve(int value) {
+            int low = 0;
+            int high = points.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (points[mid] <= value) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found < 0 ? null : tiers[found];
+        }
     }
 
     // --- Hàm chuyển đổi ---
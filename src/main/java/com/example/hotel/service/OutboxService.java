@@ -0,0 +1,275 @@
+package com.example.hotel.service;
+
+import com.example.hotel.dto.OutboxEventDto;
+import com.example.hotel.entity.OutboxEvent;
+import com.example.hotel.entity.OutboxStatus;
+import com.example.hotel.exception.ResourceNotFoundException;
+import com.example.hotel.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox: publish(...) ghi sự kiện trong transaction của nghiệp vụ (vd. trả phòng),
+ * drain() chạy nền, lấy các sự kiện đến hạn theo lô và xử lý từng sự kiện trong transaction riêng.
+ * Sự kiện lỗi được thử lại với thời gian chờ tăng dần; quá maxAttempts lần thì chuyển FAILED
+ * (xem / thử lại qua /api/admin/outbox) thay vì bị nuốt mất.
+ * Nhiều instance có thể cùng chạy: mỗi sự kiện được khóa bằng SELECT ... FOR UPDATE SKIP LOCKED.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final LoyaltyAutomationService loyaltyAutomationService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final MeterRegistry meterRegistry;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+                         LoyaltyAutomationService loyaltyAutomationService,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${hotel.outbox.batchSize:100}") int batchSize,
+                         @Value("${hotel.outbox.maxAttempts:10}") int maxAttempts,
+                         @Value("${hotel.outbox.retryDelaySeconds:30}") long retryDelaySeconds) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.loyaltyAutomationService = loyaltyAutomationService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofSeconds(retryDelaySeconds);
+        this.meterRegistry = meterRegistry;
+        this.processedCounter = Counter.builder("hotel.outbox.processed")
+                .description("Số sự kiện outbox đã xử lý xong")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("hotel.outbox.errors")
+                .description("Số lần xử lý sự kiện outbox bị lỗi (mỗi lần thử)")
+                .register(meterRegistry);
+        Gauge.builder("hotel.outbox.pending", outboxEventRepository, r -> r.countByStatus(OutboxStatus.PENDING))
+                .description("Số sự kiện outbox đang chờ xử lý")
+                .register(meterRegistry);
+        Gauge.builder("hotel.outbox.failed", outboxEventRepository, r -> r.countByStatus(OutboxStatus.FAILED))
+                .description("Số sự kiện outbox đã thất bại hẳn, cần xử lý thủ công")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ghi sự kiện vào outbox. Bắt buộc chạy trong transaction của thay đổi nghiệp vụ:
+     * rollback thì sự kiện cũng biến mất, commit thì sự kiện chắc chắn được xử lý.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setNextAttemptAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    @Scheduled(fixedDelayString = "${hotel.outbox.pollMs:2000}")
+    public void drain() {
+        try {
+            int claimed;
+            do {
+                claimed = processDue();
+            } while (claimed == batchSize); // Lô chưa đầy hoặc có sự kiện do instance khác giữ -> chờ lần quét sau
+        } catch (Exception e) {
+            log.error("Lỗi khi đọc outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Xử lý một lô sự kiện đến hạn, trả về số sự kiện instance này đã nhận xử lý (thành công hoặc lỗi);
+     * sự kiện đang bị instance khác khóa (SKIP LOCKED) không được tính.
+     */
+    public int processDue() {
+        List<Long> ids = outboxEventRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        int claimed = 0;
+        for (Long id : ids) {
+            if (processOne(id)) {
+                claimed++;
+            }
+        }
+        return claimed;
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutboxEventDto> getFailedEvents(int limit) {
+        return outboxEventRepository.findByStatusOrderByIdAsc(OutboxStatus.FAILED, PageRequest.of(0, limit)).stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Đưa sự kiện FAILED về hàng đợi để thử lại ngay (đếm lại số lần thử từ đầu).
+     */
+    @Transactional
+    public OutboxEventDto retry(Long id) {
+        OutboxEvent event = outboxEventRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy sự kiện outbox với ID: " + id));
+        if (event.getStatus() == OutboxStatus.PROCESSED) {
+            throw new IllegalStateException("Sự kiện " + id + " đã được xử lý xong.");
+        }
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAttempts(0);
+        event.setNextAttemptAt(LocalDateTime.now());
+        return convertToDto(outboxEventRepository.save(event));
+    }
+
+    /**
+     * Xử lý một sự kiện; false nếu sự kiện không còn PENDING hoặc đang bị instance khác giữ.
+     */
+    private boolean processOne(Long id) {
+        try {
+            Boolean done = transactionTemplate.execute(status -> {
+                OutboxEvent event = outboxEventRepository.findByIdForProcessing(id).orElse(null);
+                if (event == null || event.getStatus() != OutboxStatus.PENDING) {
+                    return false; // Instance khác đã xử lý / đang giữ
+                }
+                dispatch(event);
+                markProcessed(event);
+                return true;
+            });
+            if (Boolean.TRUE.equals(done)) {
+                processedCounter.increment();
+            }
+            return Boolean.TRUE.equals(done);
+        } catch (DataIntegrityViolationException e) {
+            // Khóa trùng (vd. uk_loyalty_tx_booking): kết quả đã được ghi ở lần xử lý trước -> coi như đã xử lý
+            if (completeIfAlreadyApplied(id)) {
+                processedCounter.increment();
+                return true;
+            }
+            failedCounter.increment();
+            recordFailure(id, e);
+            return true;
+        } catch (Exception e) {
+            failedCounter.increment();
+            recordFailure(id, e);
+            return true;
+        }
+    }
+
+    private boolean completeIfAlreadyApplied(Long id) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                OutboxEvent event = outboxEventRepository.findByIdForProcessing(id).orElse(null);
+                if (event == null || event.getStatus() != OutboxStatus.PENDING || !isAlreadyApplied(event)) {
+                    return false;
+                }
+                markProcessed(event);
+                log.info("Sự kiện outbox {} ({} #{}) đã được xử lý trước đó, đánh dấu PROCESSED.",
+                        id, event.getEventType(), event.getAggregateId());
+                return true;
+            }));
+        } catch (Exception e) {
+            log.error("Không thể kiểm tra sự kiện outbox {} sau lỗi khóa trùng: {}", id, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private boolean isAlreadyApplied(OutboxEvent event) {
+        return OutboxEvent.BOOKING_CHECKED_OUT.equals(event.getEventType())
+                && loyaltyAutomationService.isBookingCheckoutProcessed(event.getAggregateId());
+    }
+
+    private static void markProcessed(OutboxEvent event) {
+        event.setStatus(OutboxStatus.PROCESSED);
+        event.setAttempts(event.getAttempts() + 1);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(null);
+    }
+
+    private void dispatch(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case OutboxEvent.BOOKING_CHECKED_OUT -> processLoyalty(event.getAggregateId());
+            default -> throw new IllegalStateException("Loại sự kiện outbox không được hỗ trợ: " + event.getEventType());
+        }
+    }
+
+    /**
+     * Cộng điểm / nâng hạng cho một booking đã trả phòng, đo thời gian vào hotel.loyalty.processing (tag outcome).
+     */
+    private void processLoyalty(Long bookingId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            loyaltyAutomationService.processBookingCheckout(bookingId);
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder("hotel.loyalty.processing")
+                    .description("Thời gian cộng điểm / nâng hạng khi xử lý sự kiện trả phòng")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    private void recordFailure(Long id, Exception error) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(id).ifPresent(event -> {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(truncate(error.getClass().getSimpleName() + ": " + error.getMessage()));
+                if (attempts >= maxAttempts) {
+                    event.setStatus(OutboxStatus.FAILED);
+                    log.error("Sự kiện outbox {} ({} #{}) thất bại sau {} lần thử: {}",
+                            id, event.getEventType(), event.getAggregateId(), attempts, error.getMessage(), error);
+                } else {
+                    event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                    log.warn("Sự kiện outbox {} ({} #{}) lỗi lần {}, sẽ thử lại: {}",
+                            id, event.getEventType(), event.getAggregateId(), attempts, error.getMessage());
+                }
+            }));
+        } catch (Exception e) {
+            // Sự kiện vẫn PENDING và sẽ được lấy lại ở lần quét sau
+            log.error("Không thể ghi lỗi cho sự kiện outbox {}: {}", id, e.getMessage(), e);
+        }
+    }
+
+    // retryDelay, 2x, 4x, ... tối đa MAX_BACKOFF
+    private Duration backoff(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private OutboxEventDto convertToDto(OutboxEvent event) {
+        OutboxEventDto dto = new OutboxEventDto();
+        dto.setId(event.getId());
+        dto.setEventType(event.getEventType());
+        dto.setAggregateId(event.getAggregateId());
+        dto.setStatus(event.getStatus().name());
+        dto.setAttempts(event.getAttempts());
+        dto.setLastError(event.getLastError());
+        dto.setCreatedAt(event.getCreatedAt());
+        dto.setNextAttemptAt(event.getNextAttemptAt());
+        return dto;
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.hotel.service;
+
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.BookingStatus;
+import com.example.hotel.entity.Room;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.BookingStayView;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.util.TransactionCallbacks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Chỉ mục phòng trống trong bộ nhớ.
+ * Mỗi phòng giữ một BitSet các đêm đã được đặt (bit i = đêm ORIGIN + i),
+ * nên việc kiểm tra phòng trống chỉ là một phép dò bit trên khoảng [checkin, checkout).
+ * Song song đó, mỗi phòng có một StayIntervalTree để phát hiện xung đột (kèm loại trừ chính booking đang sửa).
+ * Được dựng lại từ DB khi khởi động và định kỳ (hotel.availability.resyncMs, mặc định 60 giây),
+ * giữa hai lần dựng lại thì được BookingServiceImpl đồng bộ sau mỗi lần commit.
+ * Booking ghi qua instance khác vì vậy xuất hiện trong kết quả tìm phòng trống chậm nhất sau một chu kỳ;
+ * khi đặt phòng (reserve), DB mới là nơi quyết định có trùng lịch hay không.
+ */
+@Service
+@Slf4j
+public class RoomAvailabilityIndex {
+
+    // Đêm đầu tiên mà chỉ mục quản lý. Truy vấn trước mốc này sẽ quay về truy vấn DB.
+    public static final LocalDate ORIGIN = LocalDate.of(2020, 1, 1);
+
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final Timer lookupTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, BitSet> bookedNights = new HashMap<>(); // roomId -> các đêm đã đặt
+    private final Map<Long, StayIntervalTree> roomStays = new HashMap<>(); // roomId -> cây khoảng lưu trú
+    private final Map<Long, Stay> stays = new HashMap<>();          // bookingId -> khoảng lưu trú
+    // Các thay đổi xảy ra trong lúc đang nạp lại từ DB, áp dụng lại sau khi dựng xong (null khi không nạp lại)
+    private List<Stay> changesDuringRebuild;
+    private volatile boolean ready = false;
+
+    public RoomAvailabilityIndex(BookingRepository bookingRepository, RoomRepository roomRepository, MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.roomRepository = roomRepository;
+        this.lookupTimer = Timer.builder("hotel.availability.index.lookup")
+                .description("Thời gian lọc phòng trống bằng chỉ mục trong bộ nhớ")
+                .register(meterRegistry);
+        Gauge.builder("hotel.availability.index.rooms", this, RoomAvailabilityIndex::roomCount)
+                .description("Số phòng đang có trong chỉ mục phòng trống")
+                .register(meterRegistry);
+        Gauge.builder("hotel.availability.index.stays", this, RoomAvailabilityIndex::stayCount)
+                .description("Số đặt phòng còn hiệu lực đang có trong chỉ mục phòng trống")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ bảng bookings (chỉ các kỳ lưu trú còn đêm sau mốc ORIGIN).
+     * Truy vấn DB chạy ngoài khóa để việc tìm phòng trống không bị chặn; các thay đổi xảy ra trong lúc đó
+     * được ghi lại và áp dụng lên chỉ mục mới trước khi thay thế.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${hotel.availability.resyncMs:60000}",
+            initialDelayString = "${hotel.availability.resyncMs:60000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<BookingStayView> activeStays;
+        try {
+            activeStays = bookingRepository.findActiveStays(ORIGIN);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("Không thể dựng lại chỉ mục phòng trống: {}", e.getMessage(), e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            bookedNights.clear();
+            roomStays.clear();
+            stays.clear();
+            for (BookingStayView view : activeStays) {
+                add(new Stay(view.getId(), view.getRoomId(), view.getCheckInDate(), view.getCheckOutDate()));
+            }
+            for (Stay change : changesDuringRebuild) {
+                removeInternal(change.bookingId());
+                if (change.roomId() != null) {
+                    add(change);
+                }
+            }
+            changesDuringRebuild = null;
+            boolean first = !ready;
+            ready = true;
+            if (first) {
+                log.info("Đã dựng chỉ mục phòng trống: {} phòng, {} đặt phòng trong {} ms",
+                        bookedNights.size(), stays.size(), (System.nanoTime() - start) / 1_000_000);
+            } else {
+                log.debug("Đã đồng bộ lại chỉ mục phòng trống: {} phòng, {} đặt phòng trong {} ms",
+                        bookedNights.size(), stays.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Chỉ mục chỉ trả lời được khi đã dựng xong và khoảng ngày nằm sau mốc ORIGIN.
+     */
+    public boolean canAnswer(LocalDate checkin) {
+        return ready && !checkin.isBefore(ORIGIN);
+    }
+
+    /**
+     * Lọc ra các phòng không có đêm nào bị đặt trong khoảng [checkin, checkout).
+     */
+    public List<Room> filterFree(List<Room> candidates, LocalDate checkin, LocalDate checkout) {
+        return lookupTimer.record(() -> {
+            int from = nightOffset(checkin);
+            int to = nightOffset(checkout);
+            lock.readLock().lock();
+            try {
+                return candidates.stream()
+                        .filter(room -> isFree(bookedNights.get(room.getId()), from, to))
+                        .collect(Collectors.toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public boolean isFree(Long roomId, LocalDate checkin, LocalDate checkout) {
+        lock.readLock().lock();
+        try {
+            return isFree(bookedNights.get(roomId), nightOffset(checkin), nightOffset(checkout));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Kiểm tra nhanh phòng có booking nào (trừ CANCELLED và trừ excludeBookingId) chồng lên [checkin, checkout) không.
+     * Khi chỉ mục chưa sẵn sàng thì quay về truy vấn findConflictingBookings.
+     * Kết quả false không đảm bảo phòng trống (booking do instance khác ghi không có trong chỉ mục), xem reserve.
+     */
+    public boolean hasConflict(Long roomId, LocalDate checkin, LocalDate checkout, Long excludeBookingId) {
+        if (!ready) {
+            return bookingRepository.findConflictingBookings(roomId, checkin, checkout).stream()
+                    .anyMatch(b -> !b.getId().equals(excludeBookingId));
+        }
+        long exclude = excludeBookingId != null ? excludeBookingId : Long.MIN_VALUE;
+        lock.readLock().lock();
+        try {
+            StayIntervalTree tree = roomStays.get(roomId);
+            return tree != null && tree.overlaps(checkin.toEpochDay(), checkout.toEpochDay(), exclude);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Kiểm tra trùng lịch và ghi booking thành MỘT bước nguyên tử đối với phòng roomId.
+     * 1. Chỉ mục làm bộ lọc nhanh: đã thấy trùng lịch thì từ chối ngay, không cần xuống DB.
+     * 2. Bước quyết định trên DB: khóa dòng rooms (SELECT ... FOR UPDATE, giữ đến khi transaction kết thúc) rồi đọc
+     *    các booking trùng lịch bằng truy vấn có khóa (luôn thấy dữ liệu đã commit mới nhất). Các đặt phòng cùng phòng,
+     *    trên mọi instance, vì vậy chạy lần lượt; đặt phòng trên các phòng khác không phải chờ.
+     *    Booking trùng mà chỉ mục chưa biết được bổ sung vào chỉ mục.
+     * Không giữ khóa nào trong bộ nhớ khi chờ khóa dòng: khóa DB đã đủ để tuần tự hóa, còn khóa trong JVM
+     * sẽ bắt các phòng không liên quan chờ transaction của nhau.
+     * Kỳ lưu trú được ghi vào chỉ mục ngay (để request đến sau thấy được, kể cả trước khi commit)
+     * và được hoàn tác nếu transaction rollback.
+     * Phải được gọi trong transaction (khóa dòng trên DB chỉ có tác dụng đến khi transaction kết thúc).
+     *
+     * @param excludeBookingId booking đang được sửa (bỏ qua khi kiểm tra), null khi tạo mới
+     * @param writer           hàm lưu booking, chỉ được gọi khi không có xung đột
+     * @return booking đã lưu, hoặc Optional.empty() nếu phòng đã bị đặt trong khoảng ngày này
+     */
+    public Optional<Booking> reserve(Long roomId, LocalDate checkin, LocalDate checkout,
+                                     Long excludeBookingId, Supplier<Booking> writer) {
+        if (ready && hasConflict(roomId, checkin, checkout, excludeBookingId)) {
+            return Optional.empty();
+        }
+        roomRepository.findByIdForUpdate(roomId);
+        List<Booking> conflicts = bookingRepository.findConflictingBookingsForUpdate(roomId, checkin, checkout).stream()
+                .filter(b -> !b.getId().equals(excludeBookingId))
+                .toList();
+        if (!conflicts.isEmpty()) {
+            if (ready) {
+                log.debug("Phòng {}: {} booking trùng lịch chưa có trong chỉ mục, bổ sung từ DB", roomId, conflicts.size());
+                conflicts.forEach(b -> put(new Stay(b.getId(), roomId, b.getCheckInDate(), b.getCheckOutDate())));
+            }
+            return Optional.empty();
+        }
+        Booking saved = writer.get();
+        Stay stay = new Stay(saved.getId(), roomId, checkin, checkout);
+        Stay previous = put(stay);
+        TransactionCallbacks.onRollback(() -> {
+            if (previous != null) {
+                put(previous);
+            } else {
+                remove(stay.bookingId());
+            }
+        });
+        return Optional.of(saved);
+    }
+
+    /**
+     * Đồng bộ một đặt phòng vào chỉ mục sau khi transaction hiện tại commit.
+     * Booking bị hủy (CANCELLED) hoặc đã xóa mềm sẽ bị gỡ khỏi chỉ mục.
+     */
+    public void syncAfterCommit(Booking booking) {
+        Long bookingId = booking.getId();
+        if (booking.isDeleted() || booking.getStatus() == BookingStatus.CANCELLED || booking.getRoom() == null) {
+            removeAfterCommit(bookingId);
+            return;
+        }
+        Stay stay = new Stay(bookingId, booking.getRoom().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        TransactionCallbacks.afterCommit(() -> put(stay));
+    }
+
+    public void removeAfterCommit(Long bookingId) {
+        TransactionCallbacks.afterCommit(() -> remove(bookingId));
+    }
+
+    private Stay put(Stay stay) {
+        lock.writeLock().lock();
+        try {
+            Stay previous = removeInternal(stay.bookingId());
+            add(stay);
+            recordChange(stay);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Long bookingId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(bookingId);
+            recordChange(new Stay(bookingId, null, null, null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Các hàm nội bộ (gọi khi đã giữ khóa ghi) ---
+
+    // Stay có roomId null nghĩa là booking đã bị gỡ khỏi chỉ mục
+    private void recordChange(Stay change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+    }
+
+    private void add(Stay stay) {
+        stays.put(stay.bookingId(), stay);
+        roomStays.computeIfAbsent(stay.roomId(), id -> new StayIntervalTree())
+                .insert(stay.bookingId(), stay.checkIn().toEpochDay(), stay.checkOut().toEpochDay());
+        markNights(stay);
+    }
+
+    private Stay removeInternal(Long bookingId) {
+        Stay old = stays.remove(bookingId);
+        if (old == null) {
+            return null;
+        }
+        StayIntervalTree tree = roomStays.get(old.roomId());
+        tree.remove(old.bookingId(), old.checkIn().toEpochDay(), old.checkOut().toEpochDay());
+        if (tree.size() == 0) {
+            roomStays.remove(old.roomId());
+        }
+        BitSet bits = bookedNights.get(old.roomId());
+        if (bits == null) {
+            return old;
+        }
+        bits.clear(Math.max(0, nightOffset(old.checkIn())), Math.max(0, nightOffset(old.checkOut())));
+        // Dữ liệu cũ có thể có các booking chồng ngày trên cùng phòng -> đánh dấu lại các đêm của chúng
+        if (tree.size() > 0) {
+            for (Long otherId : tree.findOverlapping(old.checkIn().toEpochDay(), old.checkOut().toEpochDay())) {
+                markNights(stays.get(otherId));
+            }
+        }
+        if (bits.isEmpty()) {
+            bookedNights.remove(old.roomId());
+        }
+        return old;
+    }
+
+    private void markNights(Stay stay) {
+        int from = Math.max(0, nightOffset(stay.checkIn()));
+        int to = nightOffset(stay.checkOut());
+        if (to <= from) {
+            return; // Toàn bộ kỳ lưu trú nằm trước ORIGIN
+        }
+        bookedNights.computeIfAbsent(stay.roomId(), id -> new BitSet()).set(from, to);
+    }
+
+    private static boolean isFree(BitSet bits, int from, int to) {
+        if (bits == null) {
+            return true;
+        }
+        int next = bits.nextSetBit(Math.max(0, from));
+        return next < 0 || next >= to;
+    }
+
+    private static int nightOffset(LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(ORIGIN, date);
+    }
+
+    private double roomCount() {
+        return bookedNights.size();
+    }
+
+    private double stayCount() {
+        return stays.size();
+    }
+
+    private record Stay(Long bookingId, Long roomId, LocalDate checkIn, LocalDate checkOut) {
+    }
+}
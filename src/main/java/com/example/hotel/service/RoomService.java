@@ -1,6 +1,7 @@
 package com.example.hotel.service;
 
 import com.example.hotel.dto.RoomDto;
+import com.example.hotel.dto.RoomTypeAvailabilityDto;
 import com.example.hotel.dto.RoomTypeDto;
 
 import java.time.LocalDate;
@@ -16,4 +17,5 @@ public interface RoomService {
     List<RoomDto> searchRooms(String roomNumber, Long roomTypeId, String status);
     RoomDto updateRoomStatus(Long id, String status);
     List<RoomDto> findAvailableRooms(LocalDate checkin, LocalDate checkout, int totalGuests);
+    List<RoomTypeAvailabilityDto> findAvailableRoomTypes(LocalDate checkin, LocalDate checkout, int totalGuests);
 }
@@ -0,0 +1,234 @@
+package com.example.hotel.service;
+
+import com.example.hotel.dto.InventoryOccupancyDto;
+import com.example.hotel.dto.InventoryRepairResultDto;
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.BookingStatus;
+import com.example.hotel.entity.RoomType;
+import com.example.hotel.entity.RoomTypeInventory;
+import com.example.hotel.repository.BookingNightsView;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.repository.RoomTypeCountView;
+import com.example.hotel.repository.RoomTypeInventoryRepository;
+import com.example.hotel.repository.RoomTypeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bảng tồn phòng room_type_inventory: số phòng đã bán theo (loại phòng, đêm).
+ * BookingServiceImpl gọi moveStay(...) mỗi khi booking được tạo, hủy, đổi ngày, đổi phòng hoặc xóa mềm,
+ * trong cùng transaction với booking. Tra cứu tồn phòng / công suất chỉ còn là đọc theo chỉ mục (room_type_id, stay_date).
+ * Job đối soát tính lại bảng từ bookings và ghi log các dòng bị lệch.
+ * Bảng phục vụ các API quản trị (tồn phòng, công suất). Tìm phòng / loại phòng trống cho khách (RoomServiceImpl) vẫn lọc
+ * theo từng phòng qua RoomAvailabilityIndex, vì còn phải loại phòng không ở trạng thái AVAILABLE và phòng không đủ sức chứa,
+ * là những điều kiện bảng tồn (đếm theo loại phòng) không biết.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomTypeInventoryService {
+
+    private final RoomTypeInventoryRepository inventoryRepository;
+    private final BookingRepository bookingRepository;
+    private final RoomRepository roomRepository;
+    private final RoomTypeRepository roomTypeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Số ngày trong quá khứ được đối soát lại (dữ liệu cũ hơn giữ nguyên)
+    @Value("${hotel.inventory.repairLookbackDays:365}")
+    private int repairLookbackDays;
+
+    /**
+     * Phần chiếm dụng tồn phòng của một booking: loại phòng và các đêm [checkIn, checkOut).
+     * Booking đã hủy hoặc đã xóa không chiếm tồn phòng (of(...) trả về null).
+     */
+    public record Stay(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+
+        public static Stay of(Booking booking) {
+            if (booking == null || booking.isDeleted() || booking.getStatus() == BookingStatus.CANCELLED
+                    || booking.getRoom() == null || booking.getRoom().getRoomType() == null) {
+                return null;
+            }
+            return new Stay(booking.getRoom().getRoomType().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+    }
+
+    /**
+     * Chuyển phần chiếm dụng tồn phòng từ before sang after (null = không chiếm).
+     * Phải được gọi trong transaction của thao tác booking để rollback cùng nhau.
+     */
+    @Transactional
+    public void moveStay(Stay before, Stay after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            for (LocalDate night = before.checkIn(); night.isBefore(before.checkOut()); night = night.plusDays(1)) {
+                inventoryRepository.decrementSold(before.roomTypeId(), night);
+            }
+        }
+        if (after != null) {
+            long rooms = roomRepository.countByRoomTypeId(after.roomTypeId());
+            for (LocalDate night = after.checkIn(); night.isBefore(after.checkOut()); night = night.plusDays(1)) {
+                inventoryRepository.incrementSold(after.roomTypeId(), night, rooms);
+            }
+        }
+    }
+
+    /**
+     * Cập nhật lại total sau khi số phòng của một loại phòng thay đổi.
+     */
+    @Transactional
+    public void refreshTotal(Long roomTypeId) {
+        if (roomTypeId != null) {
+            inventoryRepository.updateTotal(roomTypeId, roomRepository.countByRoomTypeId(roomTypeId));
+        }
+    }
+
+    /**
+     * Số phòng còn trống của từng loại phòng cho cả khoảng [checkin, checkout)
+     * (= total - sold của đêm bán chạy nhất). Loại phòng chưa có dòng tồn nào được tính là còn đủ phòng.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getAvailableCounts(LocalDate checkin, LocalDate checkout) {
+        Map<Long, Integer> available = new HashMap<>();
+        for (RoomTypeCountView count : roomRepository.countRoomsByType()) {
+            available.put(count.getRoomTypeId(), count.getRooms().intValue());
+        }
+        for (RoomTypeInventory row : inventoryRepository.findByStayDateRange(checkin, checkout)) {
+            available.merge(row.getRoomType().getId(), Math.max(0, row.getTotal() - row.getSold()), Math::min);
+        }
+        return available;
+    }
+
+    /**
+     * Công suất phòng theo từng đêm trong [from, to).
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryOccupancyDto> getOccupancy(LocalDate from, LocalDate to) {
+        Map<Long, Integer> roomsByType = new HashMap<>();
+        for (RoomTypeCountView count : roomRepository.countRoomsByType()) {
+            roomsByType.put(count.getRoomTypeId(), count.getRooms().intValue());
+        }
+        int allRooms = roomsByType.values().stream().mapToInt(Integer::intValue).sum();
+
+        // Đêm không có dòng tồn nào nghĩa là chưa bán phòng nào, total lấy theo số phòng hiện tại
+        Map<LocalDate, int[]> byDate = new HashMap<>();
+        for (RoomTypeInventory row : inventoryRepository.findByStayDateRange(from, to)) {
+            int[] totals = byDate.computeIfAbsent(row.getStayDate(), d -> new int[]{allRooms, 0});
+            Long typeId = row.getRoomType().getId();
+            totals[0] += row.getTotal() - roomsByType.getOrDefault(typeId, 0);
+            totals[1] += row.getSold();
+        }
+
+        List<InventoryOccupancyDto> result = new ArrayList<>();
+        for (LocalDate date = from; date.isBefore(to); date = date.plusDays(1)) {
+            int[] totals = byDate.getOrDefault(date, new int[]{allRooms, 0});
+            double rate = totals[0] > 0 ? (double) totals[1] / totals[0] : 0;
+            result.add(new InventoryOccupancyDto(date, totals[0], totals[1], rate));
+        }
+        return result;
+    }
+
+    /**
+     * Đối soát định kỳ (mặc định 2h30 sáng mỗi ngày) và một lần khi khởi động.
+     * Lỗi được ghi log, không ném ra listener khởi động.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hotel.inventory.repairCron:0 30 2 * * *}")
+    public void scheduledRepair() {
+        try {
+            repair(LocalDate.now().minusDays(repairLookbackDays));
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát bảng tồn phòng: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tính lại total/sold cho mọi đêm từ ngày from trở đi dựa trên rooms và bookings,
+     * sửa các dòng bị lệch và tạo các dòng còn thiếu.
+     * Mỗi loại phòng được đối soát trong một transaction riêng (TransactionTemplate, vì gọi nội bộ không qua proxy):
+     * chỉ các dòng tồn của loại phòng đó bị khóa, và chỉ trong thời gian đối soát loại phòng đó.
+     * Đặt phòng thuộc các loại phòng khác không phải chờ.
+     */
+    public InventoryRepairResultDto repair(LocalDate from) {
+        int checked = 0;
+        int created = 0;
+        int drifted = 0;
+        for (RoomType roomType : roomTypeRepository.findAll()) {
+            int[] counts = transactionTemplate.execute(status -> repairRoomType(roomType.getId(), from));
+            checked += counts[0];
+            created += counts[1];
+            drifted += counts[2];
+        }
+
+        InventoryRepairResultDto result = new InventoryRepairResultDto(from, checked, created, drifted);
+        if (drifted > 0) {
+            log.warn("Đối soát tồn phòng từ {}: {} dòng bị lệch đã được sửa, {} dòng được tạo mới.", from, drifted, created);
+        } else {
+            log.info("Đối soát tồn phòng từ {}: không có dòng lệch, {} dòng được tạo mới.", from, created);
+        }
+        return result;
+    }
+
+    /**
+     * Đối soát các dòng tồn của một loại phòng, trả về {số dòng đã kiểm tra, số dòng tạo mới, số dòng bị lệch}.
+     * Khóa các dòng tồn của loại phòng trước khi đọc bất cứ thứ gì: snapshot (REPEATABLE READ) của transaction được tạo
+     * ở lần đọc đầu tiên sau đó, nên chứa mọi booking đã commit trước khi có khóa; booking commit sau đó phải chờ khóa
+     * và cộng / trừ trên giá trị mới. Nhờ vậy giá trị tuyệt đối ghi lại không xóa mất thay đổi đồng thời nào.
+     */
+    private int[] repairRoomType(Long roomTypeId, LocalDate from) {
+        List<RoomTypeInventory> rows = inventoryRepository.findByRoomTypeFromForUpdate(roomTypeId, from);
+        int total = (int) roomRepository.countByRoomTypeId(roomTypeId);
+
+        Map<LocalDate, Integer> expectedSold = new HashMap<>();
+        for (BookingNightsView view : bookingRepository.findActiveNightsFrom(roomTypeId, from)) {
+            LocalDate night = view.getCheckInDate().isBefore(from) ? from : view.getCheckInDate();
+            for (; night.isBefore(view.getCheckOutDate()); night = night.plusDays(1)) {
+                expectedSold.merge(night, 1, Integer::sum);
+            }
+        }
+
+        List<RoomTypeInventory> changed = new ArrayList<>();
+        int drifted = 0;
+        for (RoomTypeInventory row : rows) {
+            Integer expected = expectedSold.remove(row.getStayDate());
+            int sold = expected != null ? expected : 0;
+            if (row.getSold() != sold || row.getTotal() != total) {
+                log.warn("Tồn phòng bị lệch: loại phòng {}, đêm {}: total {} -> {}, sold {} -> {}",
+                        roomTypeId, row.getStayDate(), row.getTotal(), total, row.getSold(), sold);
+                row.setTotal(total);
+                row.setSold(sold);
+                changed.add(row);
+                drifted++;
+            }
+        }
+
+        // Các đêm có booking nhưng chưa có dòng tồn
+        for (Map.Entry<LocalDate, Integer> entry : expectedSold.entrySet()) {
+            RoomTypeInventory row = new RoomTypeInventory();
+            row.setRoomType(roomTypeRepository.getReferenceById(roomTypeId));
+            row.setStayDate(entry.getKey());
+            row.setTotal(total);
+            row.setSold(entry.getValue());
+            changed.add(row);
+        }
+        inventoryRepository.saveAll(changed);
+        return new int[]{rows.size(), expectedSold.size(), drifted};
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.hotel.service;
+
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.Customer;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.SearchTextMatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Chuẩn bị cột search_text khi khởi động:
+ * 1. Nếu bật hotel.search.fulltext, kiểm tra chỉ mục FULLTEXT (tạo bởi V5__fulltext_search_indexes.sql);
+ *    thiếu thì tắt FULLTEXT và tìm bằng LIKE. Không tự sửa lược đồ: lược đồ chỉ do Flyway thay đổi.
+ * 2. Điền bù search_text cho các booking / khách hàng cũ, theo lô 500 dòng mỗi transaction.
+ * Sau đó cột được giữ đúng bằng @PrePersist / @PreUpdate trong entity.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchTextMaintenance {
+
+    private final BookingRepository bookingRepository;
+    private final CustomerRepository customerRepository;
+    private final SearchTextMatcher searchTextMatcher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepare() {
+        if (searchTextMatcher.isFulltext()) {
+            boolean indexed = hasFulltextIndex("bookings", "ft_bookings_search_text")
+                    && hasFulltextIndex("customers", "ft_customers_search_text");
+            if (!indexed) {
+                searchTextMatcher.disableFulltext();
+            }
+        }
+        int bookings = backfillBookings();
+        int customers = backfillCustomers();
+        if (bookings > 0 || customers > 0) {
+            log.info("Đã điền bù search_text cho {} booking và {} khách hàng.", bookings, customers);
+        }
+    }
+
+    private boolean hasFulltextIndex(String table, String indexName) {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics " +
+                            "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? AND index_type = 'FULLTEXT'",
+                    Integer.class, table, indexName);
+            if (existing != null && existing > 0) {
+                return true;
+            }
+            log.error("Thiếu chỉ mục FULLTEXT {} trên {}.search_text (xem V5__fulltext_search_indexes.sql).", indexName, table);
+        } catch (Exception e) {
+            log.error("Không kiểm tra được chỉ mục FULLTEXT {}: {}", indexName, e.getMessage());
+        }
+        return false;
+    }
+
+    private int backfillBookings() {
+        int total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<Booking> batch = bookingRepository.findTop500BySearchTextIsNull();
+                batch.forEach(Booking::refreshSearchText);
+                return batch.size();
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+        }
+    }
+
+    private int backfillCustomers() {
+        int total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<Customer> batch = customerRepository.findTop500BySearchTextIsNull();
+                batch.forEach(Customer::refreshSearchText);
+                return batch.size();
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+        }
+    }
+}
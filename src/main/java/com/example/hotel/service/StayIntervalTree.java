@@ -0,0 +1,195 @@
+package com.example.hotel.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cây khoảng (interval tree) cho các kỳ lưu trú của MỘT phòng.
+ * Mỗi khoảng là [start, end) tính theo epoch day, kèm ID đặt phòng.
+ * Cài đặt bằng treap được tăng cường giá trị maxEnd của cây con,
+ * nên câu hỏi "khoảng [checkin, checkout) có chồng lên booking nào không?" chạy trong O(log n).
+ * Lớp này không thread-safe; RoomAvailabilityIndex chịu trách nhiệm khóa.
+ */
+public class StayIntervalTree {
+
+    private Node root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(long id, long start, long end) {
+        root = insert(root, new Node(id, start, end));
+        size++;
+    }
+
+    public boolean remove(long id, long start, long end) {
+        int before = size;
+        root = remove(root, id, start, end);
+        return size < before;
+    }
+
+    /**
+     * Có khoảng nào (khác excludeId) giao với [start, end) không?
+     */
+    public boolean overlaps(long start, long end, long excludeId) {
+        return overlaps(root, start, end, excludeId);
+    }
+
+    /**
+     * Trả về ID của tất cả các khoảng giao với [start, end).
+     */
+    public List<Long> findOverlapping(long start, long end) {
+        List<Long> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    // --- Treap ---
+
+    private Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (fresh.compareTo(node) < 0) {
+            node.left = insert(node.left, fresh);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, fresh);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node remove(Node node, long id, long start, long end) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node.start, node.id);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start, end);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start, end);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private boolean overlaps(Node node, long start, long end, long excludeId) {
+        while (node != null) {
+            if (node.maxEnd <= start) {
+                return false; // Không khoảng nào trong cây con này kết thúc sau start
+            }
+            if (node.start < end && node.end > start && node.id != excludeId) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd > start) {
+                // Khoảng bị loại trừ có thể nằm bên trái -> phải xét cả hai nhánh
+                if (overlaps(node.left, start, end, excludeId)) {
+                    return true;
+                }
+            }
+            if (node.start >= end) {
+                return false; // Mọi nút bên phải đều bắt đầu sau end
+            }
+            node = node.right;
+        }
+        return false;
+    }
+
+    private void collect(Node node, long start, long end, List<Long> result) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (node.start < end && node.end > start) {
+            result.add(node.id);
+        }
+        if (node.start < end) {
+            collect(node.right, start, end, result);
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int compare(long start, long id, long otherStart, long otherId) {
+        int cmp = Long.compare(start, otherStart);
+        return cmp != 0 ? cmp : Long.compare(id, otherId);
+    }
+
+    private static final class Node implements Comparable<Node> {
+        final long id;
+        final long start;
+        final long end;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        void update() {
+            long max = end;
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            return compare(start, id, other.start, other.id);
+        }
+    }
+}
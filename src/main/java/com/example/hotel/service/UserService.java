@@ -4,6 +4,8 @@ package com.example.hotel.service;
 import com.example.hotel.dto.ProfileUpdateRequest;
 import com.example.hotel.entity.User;
 import com.example.hotel.repository.UserRepository;
+import com.example.hotel.security.PrincipalCache;
+import com.example.hotel.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -25,6 +27,12 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
     // Đường dẫn thư mục lưu ảnh. (Bạn có thể đổi sang thư mục khác)
     // Cần đảm bảo thư mục "user-avatars" này tồn tại
     private final Path rootAvatarLocation = Paths.get("user-avatars");
@@ -105,5 +113,8 @@ public class UserService {
         // 2. Mã hóa và lưu mật khẩu mới
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        // 3. Thu hồi các token đã cấp trước khi đổi mật khẩu
+        tokenVersionRegistry.revokeUserTokens(user.getId());
+        principalCache.evictAdmin(username);
     }
 }
\ No newline at end of file
@@ -4,20 +4,30 @@ import com.example.hotel.dto.BookingDto;
 import com.example.hotel.dto.BookingHistoryDto;
 import com.example.hotel.dto.BookingRequestDTO;
 import com.example.hotel.dto.BookingResponseDTO;
+import com.example.hotel.dto.CursorPage;
 import com.example.hotel.entity.*;
 import com.example.hotel.repository.CustomerRepository;
-import com.example.hotel.repository.LoyaltyTierRepository;
 import com.example.hotel.security.jwt.JwtUtils;
-import com.example.hotel.service.LoyaltyAutomationService;
+import com.example.hotel.service.BookingMetrics;
+import com.example.hotel.service.LoyaltyTierService;
+import com.example.hotel.service.OutboxService;
+import com.example.hotel.service.RoomAvailabilityIndex;
+import com.example.hotel.service.CustomerStatsService;
+import com.example.hotel.service.RoomTypeInventoryService;
 import lombok.extern.slf4j.Slf4j;
 import com.example.hotel.exception.ResourceNotFoundException;
+import com.example.hotel.repository.BookingListRow;
 import com.example.hotel.repository.BookingRepository;
 import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.repository.SearchTextMatcher;
 import com.example.hotel.service.BookingService;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,9 +36,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.math.BigDecimal;
 import java.time.temporal.ChronoUnit;
 import java.util.stream.Collectors;
@@ -42,18 +56,84 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final RoomRepository roomRepository;
     private final CustomerRepository customerRepository;
-    private final LoyaltyAutomationService loyaltyAutomationService;
-    private final LoyaltyTierRepository loyaltyTierRepository;
+    private final OutboxService outboxService;
+    private final LoyaltyTierService loyaltyTierService;
     private final JwtUtils jwtUtils;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final RoomTypeInventoryService inventoryService;
+    private final SearchTextMatcher searchTextMatcher;
+    private final CustomerStatsService customerStatsService;
+    private final BookingMetrics bookingMetrics;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
+    // Các trường được phép dùng để phân trang theo con trỏ, kèm hàm đọc lại giá trị từ con trỏ
+    private static final Map<String, Function<String, Comparable<?>>> CURSOR_SORT_FIELDS = Map.of(
+            "createdDate", LocalDateTime::parse,
+            "checkInDate", LocalDate::parse,
+            "checkOutDate", LocalDate::parse,
+            "totalPrice", BigDecimal::new,
+            "id", Long::valueOf
+    );
+
 
 
     @Override
     @Transactional(readOnly = true)
-    public Page<BookingDto> findBookings(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search, Pageable pageable) {
-        Specification<Booking> spec = (root, query, cb) -> {
+    public Page<BookingDto> findBookings(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search,
+                                         boolean unpaidOnly, Pageable pageable) {
+        Specification<Booking> spec = buildBookingSpec(status, fromDate, toDate, roomTypeId, search, unpaidOnly);
+        // Projection một truy vấn (tổng đã thanh toán đọc từ cột amount_paid) thay vì nạp entity rồi nạp lười phòng / loại phòng / payments
+        Page<BookingListRow> rows = bookingRepository.findBookingRows(spec, pageable);
+        return rows.map(this::convertToDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookingDto> findBookingsByCursor(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search,
+                                                       boolean unpaidOnly, String sortField, Sort.Direction direction, String cursor, int size, boolean withTotal) {
+        if (!CURSOR_SORT_FIELDS.containsKey(sortField)) {
+            throw new IllegalArgumentException("Không hỗ trợ sắp xếp theo trường: " + sortField);
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Kích thước trang phải lớn hơn 0.");
+        }
+        Specification<Booking> filters = buildBookingSpec(status, fromDate, toDate, roomTypeId, search, unpaidOnly);
+
+        // Trang sau: chỉ lấy các dòng đứng sau (giá trị, id) cuối cùng của trang trước -> dùng chỉ mục, không OFFSET
+        Specification<Booking> spec = filters;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorPosition position = decodeCursor(cursor, sortField, direction);
+            Comparable<?> lastValue = position.value();
+            Long lastId = position.id();
+            spec = filters.and((root, query, cb) -> {
+                Predicate after = compare(cb, root.get(sortField), lastValue, direction);
+                if (sortField.equals("id")) {
+                    return after;
+                }
+                return cb.or(after, cb.and(cb.equal(root.get(sortField), lastValue),
+                        compare(cb, root.get("id"), lastId, direction)));
+            });
+        }
+
+        Sort sort = Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+        List<BookingListRow> rows = bookingRepository.findBookingRows(spec, sort, size + 1);
+
+        // Lấy dư một dòng để biết còn trang sau mà không cần COUNT
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        String nextCursor = hasNext ? encodeCursor(rows.get(rows.size() - 1), sortField, direction) : null;
+        Long total = withTotal ? bookingRepository.count(filters) : null;
+
+        List<BookingDto> content = rows.stream().map(this::convertToDto).collect(Collectors.toList());
+        return new CursorPage<>(content, nextCursor, hasNext, size, total);
+    }
+
+    private Specification<Booking> buildBookingSpec(String status, LocalDate fromDate, LocalDate toDate, Long roomTypeId, String search,
+                                                    boolean unpaidOnly) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (status != null && !status.isEmpty()) {
                 // Tách chuỗi status (VD: "PENDING,CONFIRMED,CHECKED_IN")
@@ -82,33 +162,69 @@ public class BookingServiceImpl implements BookingService {
             if (roomTypeId != null) {
                 predicates.add(cb.equal(root.get("room").get("roomType").get("id"), roomTypeId));
             }
-            if (search != null && !search.isEmpty()) {
-                String likePattern = "%" + search.toLowerCase() + "%";
-                predicates.add(cb.or(
-                        cb.like(cb.lower(root.get("customerFullName")), likePattern),
-                        cb.like(cb.lower(root.get("customerPhone")), likePattern),
-                        cb.like(cb.lower(root.get("bookingConfirmationCode")), likePattern),
-                        cb.like(cb.lower(root.get("room").get("roomNumber")), likePattern)
-                ));
+            if (search != null && !search.isBlank()) {
+                // Tên khách / SĐT / mã đặt phòng / số phòng nằm chung trong cột search_text (không dấu, có chỉ mục)
+                Predicate text = searchTextMatcher.matches(cb, root.get("searchText"), search);
+                String trimmed = search.trim();
+                if (trimmed.matches("\\d{1,18}")) { // Nếu search là số -> có thể là ID khách hàng
+                    text = cb.or(text, cb.equal(root.get("customer").get("id"), Long.parseLong(trimmed)));
+                }
+                predicates.add(text);
             }
-
-            if (search != null && search.matches("\\d+")) { // Nếu search là số
-                predicates.add(cb.or(
-                        // ... (các điều kiện cũ)
-                        cb.equal(root.get("customer").get("id"), Long.parseLong(search))
-                ));
+            if (unpaidOnly) {
+                // Còn nợ: total_price - amount_paid > 0 (không cần nạp bảng payments)
+                predicates.add(cb.greaterThan(cb.diff(root.<BigDecimal>get("totalPrice"), root.<BigDecimal>get("amountPaid")), BigDecimal.ZERO));
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        Page<Booking> bookings = bookingRepository.findAll(spec, pageable);
-        return bookings.map(this::convertToDto);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate compare(CriteriaBuilder cb, Expression path, Comparable value, Sort.Direction direction) {
+        return direction.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+
+    /**
+     * Con trỏ = Base64(trường|chiều|giá trị|id) của dòng cuối trang. Chứa cả trường và chiều sắp xếp
+     * để con trỏ của kiểu sắp xếp này không bị dùng nhầm cho kiểu sắp xếp khác.
+     */
+    private String encodeCursor(BookingListRow last, String sortField, Sort.Direction direction) {
+        Object value = switch (sortField) {
+            case "createdDate" -> last.createdDate();
+            case "checkInDate" -> last.checkInDate();
+            case "checkOutDate" -> last.checkOutDate();
+            case "totalPrice" -> last.totalPrice();
+            default -> last.id();
+        };
+        String raw = sortField + "|" + direction.name() + "|" + value + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CursorPosition decodeCursor(String cursor, String sortField, Sort.Direction direction) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Con trỏ phân trang không hợp lệ.");
+        }
+        if (parts.length != 4 || !parts[0].equals(sortField) || !parts[1].equals(direction.name())) {
+            throw new IllegalArgumentException("Con trỏ phân trang không khớp với kiểu sắp xếp hiện tại.");
+        }
+        try {
+            return new CursorPosition(CURSOR_SORT_FIELDS.get(sortField).apply(parts[2]), Long.valueOf(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Con trỏ phân trang không hợp lệ.");
+        }
+    }
+
+    private record CursorPosition(Comparable<?> value, Long id) {
     }
 
     @Override
     @Transactional(readOnly = true)
     public BookingDto getBookingById(Long id) {
-        Booking booking = bookingRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
+        BookingListRow booking = bookingRepository.findBookingRowById(id).orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: " + id));
         return convertToDto(booking);
     }
 
@@ -127,7 +243,13 @@ public class BookingServiceImpl implements BookingService {
 
         booking.setStatus(BookingStatus.PENDING);
         booking.setBookingConfirmationCode("#BK-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
-        Booking savedBooking = bookingRepository.save(booking);
+        // Kiểm tra trùng lịch + lưu là một bước nguyên tử theo phòng
+        Booking savedBooking = availabilityIndex.reserve(room.getId(), booking.getCheckInDate(), booking.getCheckOutDate(), null,
+                        () -> bookingRepository.save(booking))
+                .orElseThrow(() -> bookingMetrics.conflict("create",
+                        new IllegalStateException("Phòng " + room.getRoomNumber() + " đã có đặt phòng trong khoảng ngày này.")));
+        inventoryService.moveStay(null, RoomTypeInventoryService.Stay.of(savedBooking));
+        bookingMetrics.stage(BookingMetrics.Stage.CREATE);
         return convertToDto(savedBooking);
     }
 
@@ -135,8 +257,25 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     public BookingDto updateBooking(Long id, BookingDto bookingDto) {
         Booking booking = bookingRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Booking not found with id: "+ id));
+        RoomTypeInventoryService.Stay before = RoomTypeInventoryService.Stay.of(booking);
+        CustomerStatsService.Stay statsBefore = CustomerStatsService.Stay.of(booking);
         updateEntityFromDto(booking, bookingDto);
-        Booking updatedBooking = bookingRepository.save(booking);
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            Booking updatedBooking = bookingRepository.save(booking);
+            availabilityIndex.syncAfterCommit(updatedBooking);
+            customerStatsService.moveStay(statsBefore, CustomerStatsService.Stay.of(updatedBooking));
+            return convertToDto(updatedBooking);
+        }
+        // Đổi ngày hoặc đổi phòng -> kiểm tra trùng lịch (bỏ qua chính booking này) và lưu trong cùng một bước
+        Room room = booking.getRoom();
+        Booking updatedBooking = availabilityIndex.reserve(room.getId(), booking.getCheckInDate(), booking.getCheckOutDate(), id,
+                        () -> bookingRepository.save(booking))
+                .orElseThrow(() -> bookingMetrics.conflict("update",
+                        new IllegalStateException("Phòng " + room.getRoomNumber() + " đã có đặt phòng trong khoảng ngày này.")));
+        // Đổi ngày / đổi phòng -> chuyển tồn phòng từ khoảng cũ sang khoảng mới
+        inventoryService.moveStay(before, RoomTypeInventoryService.Stay.of(updatedBooking));
+        // Sửa ngày / giá / khách của booking đã trả phòng -> cập nhật bộ đếm lưu trú của khách
+        customerStatsService.moveStay(statsBefore, CustomerStatsService.Stay.of(updatedBooking));
         return convertToDto(updatedBooking);
     }
 
@@ -157,7 +296,12 @@ public class BookingServiceImpl implements BookingService {
             }
         }
 
+        RoomTypeInventoryService.Stay before = RoomTypeInventoryService.Stay.of(booking);
+        CustomerStatsService.Stay statsBefore = CustomerStatsService.Stay.of(booking);
         bookingRepository.deleteById(id);
+        availabilityIndex.removeAfterCommit(id);
+        inventoryService.moveStay(before, null);
+        customerStatsService.moveStay(statsBefore, null);
     }
 
 
@@ -251,18 +395,32 @@ public class BookingServiceImpl implements BookingService {
 
         // Cập nhật và lưu trạng thái ĐẶT PHÒNG
         log.info("Đang cập nhật trạng thái Booking...");
+        BookingStatus oldStatus = booking.getStatus();
+        RoomTypeInventoryService.Stay before = RoomTypeInventoryService.Stay.of(booking);
+        CustomerStatsService.Stay statsBefore = CustomerStatsService.Stay.of(booking);
         booking.setStatus(newStatus);
-        Booking updatedBooking = bookingRepository.save(booking); // <--- LƯU BOOKING
+        Booking updatedBooking;
+        if (oldStatus == BookingStatus.CANCELLED && newStatus != BookingStatus.CANCELLED && room != null) {
+            // Mở lại booking đã hủy -> phải giữ lại lịch của phòng như một booking mới
+            updatedBooking = availabilityIndex.reserve(room.getId(), booking.getCheckInDate(), booking.getCheckOutDate(), id,
+                            () -> bookingRepository.save(booking))
+                    .orElseThrow(() -> bookingMetrics.conflict("reopen",
+                            new IllegalStateException("Phòng " + room.getRoomNumber() + " đã có đặt phòng trong khoảng ngày này.")));
+        } else {
+            updatedBooking = bookingRepository.save(booking); // <--- LƯU BOOKING
+            availabilityIndex.syncAfterCommit(updatedBooking);
+        }
+        inventoryService.moveStay(before, RoomTypeInventoryService.Stay.of(updatedBooking)); // Hủy / mở lại booking
+        customerStatsService.moveStay(statsBefore, CustomerStatsService.Stay.of(updatedBooking)); // Trả phòng -> cộng bộ đếm của khách
         log.info("Đã cập nhật Booking. Trạng thái mới: {}", updatedBooking.getStatus().name());
+        if (newStatus != oldStatus) {
+            recordFunnelStage(newStatus);
+        }
 
-        // Xử lý điểm thưởng
-        if (newStatus == BookingStatus.CHECKED_OUT) {
-            log.info("Booking {} đã CHECKED_OUT, bắt đầu xử lý điểm thưởng.", id);
-            try {
-                loyaltyAutomationService.processBookingCheckout(updatedBooking);
-            } catch (Exception e) {
-                log.error("Lỗi nghiêm trọng khi xử lý điểm thưởng cho booking {}: {}", id, e.getMessage());
-            }
+        // Xử lý điểm thưởng: ghi sự kiện outbox trong cùng transaction, cộng điểm / nâng hạng chạy nền (OutboxService)
+        if (newStatus == BookingStatus.CHECKED_OUT && oldStatus != BookingStatus.CHECKED_OUT) {
+            outboxService.publish(OutboxEvent.BOOKING_CHECKED_OUT, updatedBooking.getId());
+            log.info("Booking {} đã CHECKED_OUT, đã xếp hàng xử lý điểm thưởng.", id);
         }
 
         log.info("--- KẾT THÚC updateBookingStatus ---");
@@ -289,6 +447,16 @@ public class BookingServiceImpl implements BookingService {
         return deletedBookings.map(this::convertToDto);
     }
 
+    private void recordFunnelStage(BookingStatus status) {
+        switch (status) {
+            case CONFIRMED -> bookingMetrics.stage(BookingMetrics.Stage.CONFIRM);
+            case CHECKED_IN -> bookingMetrics.stage(BookingMetrics.Stage.CHECK_IN);
+            case CHECKED_OUT -> bookingMetrics.stage(BookingMetrics.Stage.CHECK_OUT);
+            case CANCELLED -> bookingMetrics.stage(BookingMetrics.Stage.CANCEL);
+            default -> { } // Quay lại PENDING không phải một bước của phễu
+        }
+    }
+
     private BookingHistoryDto mapBookingToHistoryDto(Booking booking) {
         BookingHistoryDto dto = new BookingHistoryDto();
         dto.setBookingCode(booking.getBookingConfirmationCode());
@@ -312,47 +480,72 @@ public class BookingServiceImpl implements BookingService {
     }
 
     private BookingDto convertToDto(Booking booking) {
-        BookingDto dto = new BookingDto();
-        dto.setId(booking.getId());
-        dto.setCode(booking.getBookingConfirmationCode());
-        if (booking.getCreatedDate() != null) {
-            dto.setCreated(booking.getCreatedDate().format(dateTimeFormatter));
-        }
-        dto.setStatus(booking.getStatus().name().toLowerCase().replace("_", "-"));
-        dto.setCustomer(booking.getCustomerFullName());
-        dto.setPhone(booking.getCustomerPhone());
+        Room room = booking.getRoom();
+        RoomType roomType = room != null ? room.getRoomType() : null;
+        return convertToDto(new BookingListRow(
+                booking.getId(),
+                booking.getBookingConfirmationCode(),
+                booking.getCreatedDate(),
+                booking.getStatus(),
+                booking.getCustomerFullName(),
+                booking.getCustomerPhone(),
+                booking.getCustomer() != null ? booking.getCustomer().getId() : null,
+                room != null ? room.getId() : null,
+                room != null ? room.getRoomNumber() : null,
+                roomType != null ? roomType.getName() : null,
+                booking.getCheckInDate(),
+                booking.getCheckOutDate(),
+                booking.getTotalPrice(),
+                booking.getPricePerNight(),
+                booking.getActualCheckinTime(),
+                booking.getActualCheckoutTime(),
+                booking.getSoNguoiLon(),
+                booking.getSoTreEm(),
+                booking.getAmountPaid()));
+    }
 
-        if (booking.getCustomer() != null) {
-            dto.setCustomerId(booking.getCustomer().getId());
+    private BookingDto convertToDto(BookingListRow booking) {
+        BookingDto dto = new BookingDto();
+        dto.setId(booking.id());
+        dto.setCode(booking.bookingCode());
+        if (booking.createdDate() != null) {
+            dto.setCreated(booking.createdDate().format(dateTimeFormatter));
         }
-
-        if (booking.getRoom() != null) {
-            dto.setRoomId(booking.getRoom().getId());
-            dto.setRoomNumber(booking.getRoom().getRoomNumber());
+        dto.setStatus(booking.status().name().toLowerCase().replace("_", "-"));
+        dto.setCustomer(booking.customerFullName());
+        dto.setPhone(booking.customerPhone());
+        dto.setCustomerId(booking.customerId());
+
+        if (booking.roomId() != null) {
+            dto.setRoomId(booking.roomId());
+            dto.setRoomNumber(booking.roomNumber());
             // === SỬA LỖI POTENTIAL NULL POINTER ===
-            // Thêm kiểm tra null cho getRoomType()
-            if (booking.getRoom().getRoomType() != null) {
-                dto.setRoomType(booking.getRoom().getRoomType().getName());
+            // Thêm kiểm tra null cho loại phòng
+            if (booking.roomTypeName() != null) {
+                dto.setRoomType(booking.roomTypeName());
             } else {
                 dto.setRoomType("N/A (Loại phòng không xác định)");
             }
         }
-        dto.setCheckin(booking.getCheckInDate().format(dateFormatter));
-        dto.setCheckout(booking.getCheckOutDate().format(dateFormatter));
-        dto.setNights(ChronoUnit.DAYS.between(booking.getCheckInDate(), booking.getCheckOutDate()));
-        dto.setPricePerNight(booking.getPricePerNight());
-        dto.setTotal(booking.getTotalPrice());
-
-        if (booking.getActualCheckinTime() != null) {
-            dto.setActualCheckinTime(booking.getActualCheckinTime().format(dateTimeFormatter));
+        dto.setCheckin(booking.checkInDate().format(dateFormatter));
+        dto.setCheckout(booking.checkOutDate().format(dateFormatter));
+        dto.setNights(ChronoUnit.DAYS.between(booking.checkInDate(), booking.checkOutDate()));
+        dto.setPricePerNight(booking.pricePerNight());
+        dto.setTotal(booking.totalPrice());
+
+        if (booking.actualCheckinTime() != null) {
+            dto.setActualCheckinTime(booking.actualCheckinTime().format(dateTimeFormatter));
         }
-        if (booking.getActualCheckoutTime() != null) {
-            dto.setActualCheckoutTime(booking.getActualCheckoutTime().format(dateTimeFormatter));
+        if (booking.actualCheckoutTime() != null) {
+            dto.setActualCheckoutTime(booking.actualCheckoutTime().format(dateTimeFormatter));
         }
 
-        dto.setSoNguoiLon(booking.getSoNguoiLon());
-        dto.setSoTreEm(booking.getSoTreEm());
-        dto.setAmountPaid(booking.getAmountPaid());
+        dto.setSoNguoiLon(booking.soNguoiLon() != null ? booking.soNguoiLon() : 1);
+        dto.setSoTreEm(booking.soTreEm() != null ? booking.soTreEm() : 0);
+        dto.setAmountPaid(booking.amountPaid());
+        if (booking.totalPrice() != null && booking.amountPaid() != null) {
+            dto.setBalanceDue(booking.totalPrice().subtract(booking.amountPaid()));
+        }
 
         return dto;
     }
@@ -441,11 +634,8 @@ public class BookingServiceImpl implements BookingService {
         }
 
         // 2. Kiểm tra xem phòng có còn trống không (Kiểm tra lần 2 để đảm bảo)
-        List<Booking> conflicts = bookingRepository.findConflictingBookings(
-                request.getRoomId(), checkin, checkout
-        );
-        if (!conflicts.isEmpty()) {
-            throw new RuntimeException("Rất tiếc, phòng này vừa được đặt. Vui lòng chọn phòng khác.");
+        if (availabilityIndex.hasConflict(request.getRoomId(), checkin, checkout, null)) {
+            throw bookingMetrics.conflict("public", new RuntimeException("Rất tiếc, phòng này vừa được đặt. Vui lòng chọn phòng khác."));
         }
 
         // 3. Lấy thông tin Phòng
@@ -475,7 +665,13 @@ public class BookingServiceImpl implements BookingService {
         booking.setStatus(BookingStatus.PENDING); // Luôn là PENDING khi khách đặt
         booking.setBookingConfirmationCode(generateBookingCode()); // Hàm tạo mã ngẫu nhiên
 
-        Booking savedBooking = bookingRepository.save(booking);
+        // Kiểm tra lại và lưu dưới khóa dòng phòng trên DB: hai request đồng thời không thể cùng vượt qua bước 2
+        Booking savedBooking = availabilityIndex.reserve(room.getId(), checkin, checkout, null,
+                        () -> bookingRepository.save(booking))
+                .orElseThrow(() -> bookingMetrics.conflict("public",
+                        new RuntimeException("Rất tiếc, phòng này vừa được đặt. Vui lòng chọn phòng khác.")));
+        inventoryService.moveStay(null, RoomTypeInventoryService.Stay.of(savedBooking));
+        bookingMetrics.stage(BookingMetrics.Stage.CREATE);
 
         // (Tùy chọn: Gửi email xác nhận cho khách tại đây)
 
@@ -525,8 +721,7 @@ public class BookingServiceImpl implements BookingService {
         // LỖI QUAN TRỌNG: Entity Customer yêu cầu 'dateOfBirth' và 'loyaltyTier'
         // nhưng form không có. Chúng ta phải đặt giá trị mặc định.
 
-        LoyaltyTier defaultTier = loyaltyTierRepository.findById(1L) // Giả sử ID 1 là hạng "Đồng"
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy hạng thành viên mặc định (ID 1L)."));
+        LoyaltyTier defaultTier = loyaltyTierService.getDefaultTier(); // Hạng "Đồng" (điểm yêu cầu thấp nhất)
 
         Customer newCustomer = new Customer();
         newCustomer.setFullName(request.getCustomerName());
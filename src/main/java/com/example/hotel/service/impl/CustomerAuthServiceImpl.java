@@ -4,8 +4,8 @@ import com.example.hotel.dto.CustomerRegisterRequest;
 import com.example.hotel.entity.Customer;
 import com.example.hotel.entity.LoyaltyTier;
 import com.example.hotel.repository.CustomerRepository;
-import com.example.hotel.repository.LoyaltyTierRepository;
 import com.example.hotel.service.CustomerAuthService;
+import com.example.hotel.service.LoyaltyTierService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -16,7 +16,7 @@ public class CustomerAuthServiceImpl implements CustomerAuthService {
 
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
-    private final LoyaltyTierRepository loyaltyTierRepository;
+    private final LoyaltyTierService loyaltyTierService;
 
     @Override
     public Customer registerCustomer(CustomerRegisterRequest registerRequest) {
@@ -40,8 +40,7 @@ public class CustomerAuthServiceImpl implements CustomerAuthService {
         customer.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
 
         // Gán hạng thành viên mặc định
-        LoyaltyTier defaultTier = loyaltyTierRepository.findByName("Bronze")
-                .orElseThrow(() -> new RuntimeException("Lỗi: Không tìm thấy hạng Đồng."));
+        LoyaltyTier defaultTier = loyaltyTierService.getDefaultTier();
         customer.setLoyaltyTier(defaultTier);
         customer.setCurrentPoints(0);
 
@@ -2,23 +2,29 @@ package com.example.hotel.service.impl;
 
 import com.example.hotel.dto.CustomerRequestDTO;
 import com.example.hotel.dto.CustomerResponseDTO;
-import com.example.hotel.entity.Booking;
-import com.example.hotel.entity.BookingStatus;
 import com.example.hotel.entity.Customer;
 import com.example.hotel.entity.LoyaltyTier;
-import com.example.hotel.repository.BookingRepository;
-import com.example.hotel.repository.LoyaltyTierRepository;
 import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.SearchTextMatcher;
+import com.example.hotel.security.PrincipalCache;
+import com.example.hotel.security.TokenVersionRegistry;
 import com.example.hotel.service.CustomerService;
+import com.example.hotel.service.LoyaltyTierService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,9 +32,14 @@ import java.util.stream.Collectors;
 public class CustomerServiceImpl implements CustomerService {
 
     private final CustomerRepository customerRepository;
-    private final LoyaltyTierRepository loyaltyTierRepository;
-    private final BookingRepository bookingRepository;
+    private final LoyaltyTierService loyaltyTierService;
     private final PasswordEncoder passwordEncoder;
+    private final SearchTextMatcher searchTextMatcher;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PrincipalCache principalCache;
+
+    // Số kết quả tối đa của một lần tìm kiếm khách hàng
+    private static final int SEARCH_LIMIT = 100;
 
     @Override
     public CustomerResponseDTO createCustomer(CustomerRequestDTO customerRequest) {
@@ -43,9 +54,8 @@ public class CustomerServiceImpl implements CustomerService {
         // Chuyển DTO thành Entity
         Customer customer = mapToEntity(customerRequest);
 
-        // 1. Tìm hạng Bronze (ID 1, hoặc hạng có điểm yêu cầu thấp nhất)
-        LoyaltyTier defaultTier = loyaltyTierRepository.findById(1L)
-                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hạng mặc định (ID 1). Vui lòng kiểm tra CSDL."));
+        // 1. Hạng mặc định (hạng có điểm yêu cầu thấp nhất)
+        LoyaltyTier defaultTier = loyaltyTierService.getDefaultTier();
 
         // 2. Gán điểm và hạng cho khách hàng mới
         customer.setCurrentPoints(0);
@@ -63,23 +73,30 @@ public class CustomerServiceImpl implements CustomerService {
     public CustomerResponseDTO getCustomerById(Long customerId) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khách hàng với ID: " + customerId));
-        // Lấy booking chỉ cho khách hàng này để tính toán
-        List<Booking> customerBookings = bookingRepository.findByCustomerIdOrderByCheckInDateDesc(customerId);
-        return mapToResponseDTO(customer, customerBookings);
+        return mapToResponseDTO(customer);
     }
 
     @Override
     @Transactional(readOnly = true) // Thêm Transactional vì có truy vấn DB
-    public List<CustomerResponseDTO> getAllCustomers() {
-        // Lấy tất cả khách hàng
-        List<Customer> customers = customerRepository.findAll();
-        // Lấy tất cả booking (để tối ưu, tránh N+1 query)
-        // Lưu ý: Nếu có quá nhiều booking, cách này có thể tốn bộ nhớ.
-        // Cân nhắc dùng query tổng hợp (GROUP BY) nếu hiệu năng là vấn đề.
-        List<Booking> allBookings = bookingRepository.findAll();
-
-        return customers.stream()
-                .map(customer -> mapToResponseDTO(customer, allBookings)) // Gọi hàm map mới có booking list
+    public Map<String, Long> countCustomersByTier() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        customerRepository.countByTier().forEach(row -> counts.put(row.getTierName(), row.getCustomers()));
+        return counts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerResponseDTO> getCustomers(Pageable pageable) {
+        return customerRepository.findAllWithTier(pageable).map(this::mapToResponseDTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponseDTO> searchCustomers(String search) {
+        Specification<Customer> spec = (root, query, cb) -> searchTextMatcher.matches(cb, root.get("searchText"), search);
+        return customerRepository.findAll(spec, PageRequest.of(0, SEARCH_LIMIT, Sort.by("fullName")))
+                .stream()
+                .map(this::mapToResponseDTO)
                 .collect(Collectors.toList());
     }
 
@@ -97,18 +114,17 @@ public class CustomerServiceImpl implements CustomerService {
         existingCustomer.setAddress(customerRequest.getAddress());
 
         Customer updatedCustomer = customerRepository.save(existingCustomer);
-        // Lấy booking để tính lại số liệu (nếu cần cập nhật ngay) hoặc trả về số liệu cũ
-        List<Booking> customerBookings = bookingRepository.findByCustomerIdOrderByCheckInDateDesc(customerId);
-        return mapToResponseDTO(updatedCustomer, customerBookings);
+        return mapToResponseDTO(updatedCustomer);
     }
 
     @Override
     public void deleteCustomer(Long customerId) {
-        if (!customerRepository.existsById(customerId)) {
-            throw new EntityNotFoundException("Không tìm thấy khách hàng với ID: " + customerId);
-        }
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khách hàng với ID: " + customerId));
         // Thêm kiểm tra ràng buộc (ví dụ: không xóa nếu có booking đang diễn ra) nếu cần
         customerRepository.deleteById(customerId);
+        tokenVersionRegistry.evictCustomerAfterCommit(customerId); // Token của khách đã xóa không còn hợp lệ
+        principalCache.evictCustomer(customer.getEmail());
     }
 
     @Override
@@ -117,7 +133,6 @@ public class CustomerServiceImpl implements CustomerService {
         Customer customer = customerRepository.findByEmail(email)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy khách hàng với email: " + email));
 
-        // Dùng hàm mapToResponseDTO (phiên bản không cần list booking, nhanh hơn)
         return mapToResponseDTO(customer);
     }
 
@@ -166,6 +181,9 @@ public class CustomerServiceImpl implements CustomerService {
         // 3. Mã hóa và lưu mật khẩu mới
         customer.setPassword(passwordEncoder.encode(newPassword));
         customerRepository.save(customer);
+        // Token cấp trước khi đổi mật khẩu (vd. trên thiết bị bị lộ) không còn hợp lệ
+        tokenVersionRegistry.revokeCustomerTokens(customer.getId());
+        principalCache.evictCustomer(email);
     }
     // --- Hàm tiện ích để chuyển đổi (mapping) ---
 
@@ -181,58 +199,6 @@ public class CustomerServiceImpl implements CustomerService {
         return customer;
     }
 
-    private CustomerResponseDTO mapToResponseDTO(Customer entity, List<Booking> allBookings) {
-        CustomerResponseDTO dto = new CustomerResponseDTO();
-        dto.setId(entity.getId());
-        dto.setFullName(entity.getFullName());
-        dto.setIdNumber(entity.getIdNumber());
-        dto.setEmail(entity.getEmail());
-        dto.setDateOfBirth(entity.getDateOfBirth());
-        dto.setPhone(entity.getPhone());
-        dto.setAddress(entity.getAddress());
-        dto.setCreatedAt(entity.getCreatedAt());
-
-        // Thông tin hạng thành viên (giữ nguyên)
-        dto.setCurrentPoints(entity.getCurrentPoints());
-        if (entity.getLoyaltyTier() != null) {
-            dto.setLoyaltyTierId(entity.getLoyaltyTier().getId());
-            dto.setLoyaltyTierName(entity.getLoyaltyTier().getName());
-            dto.setLoyaltyBenefitsJson(entity.getLoyaltyTier().getBenefitsJson());
-        } else {
-            dto.setLoyaltyTierId(null); dto.setLoyaltyTierName("N/A"); dto.setLoyaltyBenefitsJson("[]");
-        }
-
-        // === TÍNH TOÁN THỐNG KÊ TỪ BOOKING ===
-        // Lọc booking chỉ của khách hàng này (nếu đầu vào là allBookings)
-        // Nếu đầu vào đã là customerBookings thì không cần lọc lại
-        List<Booking> customerBookings = allBookings.stream()
-                .filter(b -> b.getCustomer() != null && b.getCustomer().getId().equals(entity.getId()))
-                .collect(Collectors.toList());
-
-        // Lọc các booking đã hoàn thành (CHECKED_OUT)
-        List<Booking> completedBookings = customerBookings.stream()
-                .filter(b -> b.getStatus() == BookingStatus.CHECKED_OUT)
-                .collect(Collectors.toList());
-
-        // Tính toán
-        int bookingsCount = completedBookings.size();
-        long totalNights = completedBookings.stream()
-                .filter(b -> b.getCheckInDate() != null && b.getCheckOutDate() != null) // Đảm bảo ngày hợp lệ
-                .mapToLong(b -> ChronoUnit.DAYS.between(b.getCheckInDate(), b.getCheckOutDate()))
-                .sum();
-        BigDecimal totalSpend = completedBookings.stream()
-                .map(b -> b.getTotalPrice() != null ? b.getTotalPrice() : BigDecimal.ZERO) // Xử lý null totalPrice
-                .reduce(BigDecimal.ZERO, BigDecimal::add); // Cộng dồn lại
-
-        // Gán vào DTO
-        dto.setBookings(bookingsCount);
-        dto.setNights(totalNights);
-        dto.setSpend(totalSpend);
-
-        return dto;
-    }
-
-    // Hàm mapToResponseDTO cũ (không cần List<Booking>) - Dùng khi không cần tính thống kê
     private CustomerResponseDTO mapToResponseDTO(Customer entity) {
         CustomerResponseDTO dto = new CustomerResponseDTO();
         dto.setId(entity.getId());
@@ -254,10 +220,10 @@ public class CustomerServiceImpl implements CustomerService {
             dto.setLoyaltyTierId(null); dto.setLoyaltyTierName("N/A"); dto.setLoyaltyBenefitsJson("[]");
         }
 
-        // Không tính toán thống kê ở đây
-        dto.setBookings(0); // Hoặc null
-        dto.setNights(0L); // Hoặc null
-        dto.setSpend(BigDecimal.ZERO); // Hoặc null
+        // === THỐNG KÊ LƯU TRÚ (bộ đếm do CustomerStatsService duy trì, chỉ tính booking CHECKED_OUT) ===
+        dto.setBookings(entity.getStayCount() != null ? entity.getStayCount() : 0);
+        dto.setNights(entity.getStayNights() != null ? entity.getStayNights() : 0L);
+        dto.setSpend(entity.getTotalSpend() != null ? entity.getTotalSpend() : BigDecimal.ZERO);
 
         return dto;
     }
@@ -41,7 +41,10 @@ public class PaymentServiceImpl implements PaymentService {
         // 3. Lưu vào CSDL
         Payment savedPayment = paymentRepository.save(payment);
 
-        // 4. Trả về DTO cho frontend
+        // 4. Cộng vào tổng đã thanh toán của booking (một UPDATE, không nạp lại danh sách payments)
+        bookingRepository.addAmountPaid(booking.getId(), savedPayment.getAmount());
+
+        // 5. Trả về DTO cho frontend
         return convertToDto(savedPayment);
     }
 
@@ -1,22 +1,33 @@
 package com.example.hotel.service.impl;
 
 import com.example.hotel.dto.RoomDto;
+import com.example.hotel.dto.RoomTypeAvailabilityDto;
+import com.example.hotel.entity.Booking;
 import com.example.hotel.entity.Room;
 import com.example.hotel.entity.RoomStatus;
 import com.example.hotel.entity.RoomType;
 import com.example.hotel.exception.ResourceNotFoundException;
+import com.example.hotel.repository.BookingRepository;
 import com.example.hotel.repository.RoomRepository;
 import com.example.hotel.repository.RoomTypeRepository;
+import com.example.hotel.service.BookingMetrics;
+import com.example.hotel.service.RoomAvailabilityIndex;
 import com.example.hotel.service.RoomService;
+import com.example.hotel.service.RoomTypeInventoryService;
+import com.example.hotel.util.TextNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -29,6 +40,18 @@ public class RoomServiceImpl implements RoomService {
     @Autowired
     private RoomTypeRepository roomTypeRepository;
 
+    @Autowired
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private RoomTypeInventoryService inventoryService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
     @Override
     @Transactional(readOnly = true)
     public List<RoomDto> getAllRooms() {
@@ -51,6 +74,8 @@ public class RoomServiceImpl implements RoomService {
 
         Room room = convertToEntity(roomDto);
         Room savedRoom = roomRepository.save(room);
+        roomRepository.flush();
+        inventoryService.refreshTotal(savedRoom.getRoomType().getId()); // Số phòng của loại phòng thay đổi
         return convertToDto(savedRoom);
     }
 
@@ -68,7 +93,18 @@ public class RoomServiceImpl implements RoomService {
         }
         // =============================================================
 
+        String oldRoomNumber = existingRoom.getRoomNumber();
         existingRoom.setRoomNumber(roomDto.getRoomNumber());
+        if (!oldRoomNumber.equals(roomDto.getRoomNumber())) {
+            // Số phòng nằm trong search_text của các booking -> cập nhật lại khi đổi số phòng
+            String newKey = TextNormalizer.toSearchKey(roomDto.getRoomNumber());
+            bookingRepository.replaceRoomNumberInSearchText(id, TextNormalizer.toSearchKey(oldRoomNumber), newKey);
+            // Dòng câu lệnh trên bỏ sót (search_text cũ bị cắt mất số phòng) -> dựng lại từ các trường của booking
+            List<Long> stale = bookingRepository.findIdsWithoutRoomKeySuffix(id, newKey);
+            if (!stale.isEmpty()) {
+                bookingRepository.findAllById(stale).forEach(Booking::refreshSearchText);
+            }
+        }
         existingRoom.setStatus(RoomStatus.valueOf(roomDto.getStatus()));
         existingRoom.setFloor(roomDto.getFloor());
 
@@ -77,6 +113,7 @@ public class RoomServiceImpl implements RoomService {
             existingRoom.setPrice(roomDto.getPricePerNight());
         }
 
+        Long oldRoomTypeId = existingRoom.getRoomType().getId();
         if (roomDto.getRoomTypeId() != null) {
             RoomType roomType = roomTypeRepository.findById(roomDto.getRoomTypeId())
                     .orElseThrow(() -> new ResourceNotFoundException("RoomType not found with id: " + roomDto.getRoomTypeId()));
@@ -84,6 +121,12 @@ public class RoomServiceImpl implements RoomService {
         }
 
         Room updatedRoom = roomRepository.save(existingRoom);
+        if (!oldRoomTypeId.equals(updatedRoom.getRoomType().getId())) {
+            // Phòng chuyển sang loại khác -> cập nhật số phòng của cả hai loại trong bảng tồn
+            roomRepository.flush();
+            inventoryService.refreshTotal(oldRoomTypeId);
+            inventoryService.refreshTotal(updatedRoom.getRoomType().getId());
+        }
         return convertToDto(updatedRoom);
     }
 
@@ -91,10 +134,12 @@ public class RoomServiceImpl implements RoomService {
     @Override
     @Transactional
     public void deleteRoom(Long id) {
-        if (!roomRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Room not found with id: " + id);
-        }
+        Room room = roomRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Room not found with id: " + id));
+        Long roomTypeId = room.getRoomType().getId();
         roomRepository.deleteById(id);
+        roomRepository.flush();
+        inventoryService.refreshTotal(roomTypeId);
     }
 
     @Override
@@ -182,9 +227,15 @@ public class RoomServiceImpl implements RoomService {
         if (checkin.isAfter(checkout) || checkin.isEqual(checkout)) {
             throw new IllegalArgumentException("Ngày check-out phải sau ngày check-in.");
         }
+        bookingMetrics.stage(BookingMetrics.Stage.SEARCH);
 
-        // 1. Gọi Repository
-        List<Room> rooms = roomRepository.findAvailableRooms(checkin, checkout, totalGuests);
+        // 1. Lọc phòng trống: ưu tiên chỉ mục trong bộ nhớ, chỉ quay về truy vấn NOT IN khi chỉ mục chưa sẵn sàng
+        List<Room> rooms;
+        if (availabilityIndex.canAnswer(checkin)) {
+            rooms = availabilityIndex.filterFree(roomRepository.findBookableRooms(totalGuests), checkin, checkout);
+        } else {
+            rooms = roomRepository.findAvailableRooms(checkin, checkout, totalGuests);
+        }
 
         // 2. Chuyển List<Room> thành List<RoomDto>
         return rooms.stream().map(room -> {
@@ -218,4 +269,40 @@ public class RoomServiceImpl implements RoomService {
             return dto;
         }).collect(Collectors.toList());
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<RoomTypeAvailabilityDto> findAvailableRoomTypes(LocalDate checkin, LocalDate checkout, int totalGuests) {
+        if (checkin.isAfter(checkout) || checkin.isEqual(checkout)) {
+            throw new IllegalArgumentException("Ngày check-out phải sau ngày check-in.");
+        }
+        bookingMetrics.stage(BookingMetrics.Stage.SEARCH);
+
+        if (!availabilityIndex.canAnswer(checkin)) {
+            return roomRepository.countAvailableRoomsByType(checkin, checkout, totalGuests);
+        }
+
+        // Lọc phòng trống bằng chỉ mục rồi gộp theo loại phòng, chỉ trả về số lượng và khoảng giá
+        List<Room> rooms = availabilityIndex.filterFree(roomRepository.findBookableRooms(totalGuests), checkin, checkout);
+        Map<Long, RoomTypeAvailabilityDto> byType = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            RoomType rt = room.getRoomType();
+            RoomTypeAvailabilityDto dto = byType.get(rt.getId());
+            if (dto == null) {
+                byType.put(rt.getId(), new RoomTypeAvailabilityDto(
+                        rt.getId(), rt.getName(), rt.getCapacity(), 1L, room.getPrice(), room.getPrice()));
+                continue;
+            }
+            dto.setAvailableRooms(dto.getAvailableRooms() + 1);
+            if (room.getPrice().compareTo(dto.getMinPrice()) < 0) {
+                dto.setMinPrice(room.getPrice());
+            }
+            if (room.getPrice().compareTo(dto.getMaxPrice()) > 0) {
+                dto.setMaxPrice(room.getPrice());
+            }
+        }
+        List<RoomTypeAvailabilityDto> result = new ArrayList<>(byType.values());
+        result.sort(Comparator.comparing(RoomTypeAvailabilityDto::getMinPrice));
+        return result;
+    }
 }
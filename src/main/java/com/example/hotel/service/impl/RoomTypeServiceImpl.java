@@ -5,11 +5,11 @@ import com.example.hotel.entity.RoomType;
 import com.example.hotel.exception.ResourceNotFoundException;
 import com.example.hotel.repository.RoomTypeRepository;
 import com.example.hotel.service.RoomTypeService;
+import com.example.hotel.util.TextNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.text.Normalizer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -27,11 +27,8 @@ public class RoomTypeServiceImpl implements RoomTypeService {
         if (name == null || name.isEmpty()) {
             return "DEFAULT_CODE"; // Hoặc ném ra một exception
         }
-        // Chuyển chuỗi có dấu thành không dấu
-        String normalized = Normalizer.normalize(name, Normalizer.Form.NFD);
-        normalized = normalized.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        // Thay thế 'Đ' và 'đ'
-        normalized = normalized.replaceAll("[Đđ]", "D");
+        // Chuyển chuỗi có dấu thành không dấu (kể cả 'Đ' và 'đ')
+        String normalized = TextNormalizer.stripAccents(name);
         // Chuyển thành chữ hoa và thay thế khoảng trắng/ký tự đặc biệt bằng dấu gạch dưới
         return normalized.toUpperCase().replaceAll("\\s+", "_").replaceAll("[^A-Z0-9_]", "");
     }
@@ -40,23 +40,29 @@ public class UserDetailsImpl implements UserDetails {
     }
 
     public static UserDetailsImpl build(User user) {
-        List<GrantedAuthority> authorities;
-        if (user.getRole() != null && !user.getRole().isEmpty()) {
-            String role = "ROLE_" + user.getRole().toUpperCase();
-            authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
-        } else {
-            authorities = Collections.emptyList();
-        }
-
         return new UserDetailsImpl(
                 user.getId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
                 user.getFullName(),
-                authorities,
+                authoritiesOf(user.getRole()),
                 user.getIsActive());
     }
+
+    /**
+     * Principal dựng từ claims của JWT (AuthTokenFilter), không có email / họ tên / mật khẩu.
+     */
+    public static UserDetailsImpl fromToken(Long id, String username, String role) {
+        return new UserDetailsImpl(id, username, null, null, null, authoritiesOf(role), true);
+    }
+
+    public static List<GrantedAuthority> authoritiesOf(String role) {
+        if (role != null && !role.isEmpty()) {
+            return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+        }
+        return Collections.emptyList();
+    }
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,76 @@
+package com.example.hotel.util;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi tiếng Việt: bỏ dấu (NFD + xóa dấu kết hợp, Đ/đ -> D/d).
+ * Dùng cho mã loại phòng và cho các cột tìm kiếm không dấu (search_text).
+ */
+public final class TextNormalizer {
+
+    // Độ dài tối đa của cột search_text
+    public static final int SEARCH_TEXT_LENGTH = 500;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * "Nguyễn Văn Đức" -> "Nguyen Van Duc"
+     */
+    public static String stripAccents(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("");
+        return normalized.replace('Đ', 'D').replace('đ', 'd');
+    }
+
+    /**
+     * Khóa tìm kiếm: bỏ dấu, chữ thường, gộp khoảng trắng. "  Nguyễn  VĂN " -> "nguyen van"
+     */
+    public static String toSearchKey(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(stripAccents(text).toLowerCase()).replaceAll(" ").trim();
+    }
+
+    /**
+     * Ghép nhiều trường thành một chuỗi tìm kiếm đã chuẩn hóa (bỏ qua trường null / rỗng).
+     */
+    public static String toSearchText(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            String key = toSearchKey(part);
+            if (!key.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(key);
+            }
+        }
+        return sb.length() > SEARCH_TEXT_LENGTH ? sb.substring(0, SEARCH_TEXT_LENGTH) : sb.toString();
+    }
+
+    /**
+     * Như toSearchText, nhưng trường last luôn nằm trọn ở cuối chuỗi: khi quá SEARCH_TEXT_LENGTH thì cắt bớt phần đầu.
+     * Dùng cho search_text của booking, nơi số phòng ở cuối được thay bằng một câu lệnh UPDATE khi đổi số phòng.
+     */
+    public static String toSearchTextEndingWith(String last, String... parts) {
+        String head = toSearchText(parts);
+        String key = toSearchKey(last);
+        if (key.isEmpty() || head.isEmpty()) {
+            return toSearchText(head, key);
+        }
+        int room = SEARCH_TEXT_LENGTH - key.length() - 1;
+        if (room <= 0) {
+            return key.substring(0, Math.min(key.length(), SEARCH_TEXT_LENGTH));
+        }
+        return (head.length() > room ? head.substring(0, room) : head) + ' ' + key;
+    }
+}
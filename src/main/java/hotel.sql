@@ -1,4 +1,9 @@
 -- ===========================================
+-- LƯU Ý: lược đồ do Flyway quản lý (src/main/resources/db/migration), ứng dụng tự chạy migration khi khởi động.
+-- Phần tạo bảng dưới đây chính là V1__baseline_schema.sql; các cột / bảng / chỉ mục thêm về sau nằm trong V2 trở đi.
+-- Trên DB tạo bằng migration chỉ chạy phần DỮ LIỆU MẪU từ mục 2 (hạng thành viên đã có từ V6__default_loyalty_tiers.sql).
+-- ===========================================
+-- ===========================================
 -- TẠO DATABASE & CHỌN DATABASE
 -- ===========================================
 CREATE DATABASE IF NOT EXISTS hotel;
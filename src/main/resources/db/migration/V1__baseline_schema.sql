@@ -0,0 +1,140 @@
+-- ===========================================
+-- V1: LƯỢC ĐỒ GỐC
+-- Đúng phần tạo bảng của hotel.sql trước khi có Flyway (chưa có các cột / bảng / chỉ mục thêm về sau).
+-- DB cũ (tạo bằng hotel.sql rồi chạy ddl-auto=update) được baseline ở version 1 (spring.flyway.baseline-on-migrate)
+-- nên bỏ qua file này và chạy tiếp từ V2; mọi thay đổi từ V2 trở đi bỏ qua phần DB đã có, chạy được trên cả hai loại DB.
+-- ===========================================
+
+-- ===========================================
+-- BẢNG LOẠI PHÒNG (room_types)
+-- ===========================================
+CREATE TABLE room_types (
+                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                            type_code VARCHAR(50) UNIQUE NOT NULL,
+                            name VARCHAR(100) NOT NULL,
+                            description TEXT,
+                            base_price DECIMAL(10,2) NOT NULL,
+                            capacity INT NOT NULL,
+                            size INT,
+                            amenities JSON,
+                            points_earned INT NOT NULL DEFAULT 0 COMMENT 'Điểm cố định nhận được khi check-out',
+                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- ===========================================
+-- BẢNG PHÒNG (rooms)
+-- ===========================================
+CREATE TABLE rooms (
+                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       room_number VARCHAR(10) UNIQUE NOT NULL,
+                       room_type_id BIGINT NOT NULL,
+                       floor INT NOT NULL,
+                       status ENUM('AVAILABLE', 'OCCUPIED', 'MAINTENANCE', 'CLEANING', 'RESERVED') DEFAULT 'AVAILABLE',
+                       price DECIMAL(10,2) NOT NULL,
+                       amenities JSON,
+                       description TEXT,
+                       created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                       updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                       FOREIGN KEY (room_type_id) REFERENCES room_types(id)
+);
+
+-- ===========================================
+-- BẢNG HẠNG THÀNH VIÊN (loyalty_tiers)
+-- ===========================================
+CREATE TABLE loyalty_tiers (
+                               id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                               name VARCHAR(50) NOT NULL UNIQUE COMMENT 'Tên hạng: Bronze, Silver, Gold, Platinum',
+                               points_required INT NOT NULL DEFAULT 0 COMMENT 'Điểm tối thiểu để đạt hạng này',
+                               description TEXT,
+                               benefits_json JSON COMMENT 'Lưu danh sách quyền lợi (VD: ["Giảm giá 5%"])',
+                               INDEX (points_required)
+);
+
+-- ===========================================
+-- BẢNG KHÁCH HÀNG (customers)
+-- ===========================================
+CREATE TABLE customers (
+                           id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                           full_name VARCHAR(150) NOT NULL,
+                           id_number VARCHAR(20) NOT NULL UNIQUE COMMENT 'CCCD/CMND',
+                           email VARCHAR(255) UNIQUE NOT NULL,
+                           date_of_birth DATE NOT NULL,
+                           phone VARCHAR(20),
+                           address VARCHAR(255),
+                           current_points INT NOT NULL DEFAULT 0 COMMENT 'Tổng điểm tích lũy hiện tại',
+                           loyalty_tier_id BIGINT NOT NULL DEFAULT 1 COMMENT 'ID của hạng thành viên (FK)',
+                           created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                           updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                           FOREIGN KEY (loyalty_tier_id) REFERENCES loyalty_tiers(id)
+);
+
+-- ===========================================
+-- BẢNG ĐẶT PHÒNG (bookings)
+-- ===========================================
+CREATE TABLE bookings (
+                          id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                          booking_code VARCHAR(20) NOT NULL UNIQUE COMMENT 'Mã đặt phòng, ví dụ: BK-2457',
+                          customer_id BIGINT NOT NULL,
+                          room_id BIGINT NOT NULL,
+                          customer_full_name VARCHAR(100) NOT NULL,
+                          customer_phone VARCHAR(20) NOT NULL,
+                          check_in_date DATE NOT NULL,
+                          check_out_date DATE NOT NULL,
+                          price_per_night DECIMAL(10, 2) NOT NULL,
+                          total_price DECIMAL(12, 2) NOT NULL,
+                          status ENUM('PENDING', 'CONFIRMED', 'CHECKED_IN', 'CHECKED_OUT', 'CANCELLED') NOT NULL DEFAULT 'PENDING',
+                          created_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                          created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                          updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                          deleted BOOLEAN NOT NULL DEFAULT FALSE,
+                          so_nguoi_lon INT NOT NULL DEFAULT 1,
+                          so_tre_em INT NOT NULL DEFAULT 0,
+                          FOREIGN KEY (customer_id) REFERENCES customers(id),
+                          FOREIGN KEY (room_id) REFERENCES rooms(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+-- ===========================================
+-- BẢNG LỊCH SỬ TÍCH ĐIỂM (loyalty_point_transactions)
+-- ===========================================
+CREATE TABLE loyalty_point_transactions (
+                                            id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                            customer_id BIGINT NOT NULL,
+                                            booking_id BIGINT NULL COMMENT 'Liên kết với đặt phòng (nếu có)',
+                                            points_earned INT NOT NULL COMMENT 'Điểm nhận được (có thể âm nếu đổi quà)',
+                                            description VARCHAR(255),
+                                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                                            FOREIGN KEY (customer_id) REFERENCES customers(id),
+                                            FOREIGN KEY (booking_id) REFERENCES bookings(id),
+                                            INDEX (customer_id)
+);
+
+-- ===========================================
+-- BẢNG THANH TOÁN (payments)
+-- ===========================================
+CREATE TABLE payments (
+                          id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                          booking_id BIGINT NOT NULL,
+                          amount DECIMAL(10,2) NOT NULL,
+                          payment_method ENUM('CASH', 'CREDIT_CARD', 'BANK_TRANSFER', 'ONLINE') DEFAULT 'CASH',
+                          payment_status ENUM('PENDING', 'COMPLETED', 'FAILED', 'REFUNDED') DEFAULT 'PENDING',
+                          payment_date TIMESTAMP NULL,
+                          transaction_id VARCHAR(100),
+                          created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                          FOREIGN KEY (booking_id) REFERENCES bookings(id)
+);
+
+-- ===========================================
+-- BẢNG NGƯỜI DÙNG HỆ THỐNG (users)
+-- ===========================================
+CREATE TABLE users (
+                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       username VARCHAR(100) UNIQUE NOT NULL,
+                       email VARCHAR(255) UNIQUE NOT NULL,
+                       password VARCHAR(255) NOT NULL,
+                       full_name VARCHAR(200) NOT NULL,
+                       role ENUM('ADMIN', 'MANAGER', 'RECEPTIONIST', 'HOUSEKEEPING') DEFAULT 'RECEPTIONIST',
+                       is_active BOOLEAN DEFAULT TRUE,
+                       last_login TIMESTAMP NULL,
+                       created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                       updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
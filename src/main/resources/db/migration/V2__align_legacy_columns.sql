@@ -0,0 +1,121 @@
+-- ===========================================
+-- V2: ĐỒNG BỘ LƯỢC ĐỒ GỐC (hotel.sql) VỚI CÁC ENTITY
+-- Các cột entity có mà hotel.sql không có. DB cũ đã có sẵn phần lớn các cột này (ddl-auto=update tự thêm),
+-- DB tạo từ V1 thì chưa, nên mọi thay đổi đều đi qua các thủ tục *_if_missing bên dưới.
+-- ===========================================
+
+-- Thủ tục dùng chung cho các migration: chỉ thêm cột / chỉ mục / khóa ngoại khi DB chưa có
+-- (MySQL không có ADD COLUMN IF NOT EXISTS). Giữ lại trong schema cho các migration sau.
+-- Tham số khai báo utf8mb4: mặc định theo bảng mã của database, có thể không chứa được chú thích tiếng Việt.
+DROP PROCEDURE IF EXISTS flyway_add_column_if_missing;
+DROP PROCEDURE IF EXISTS flyway_add_index_if_missing;
+DROP PROCEDURE IF EXISTS flyway_add_foreign_key_if_missing;
+
+DELIMITER $$
+
+CREATE PROCEDURE flyway_add_column_if_missing(IN p_table VARCHAR(64) CHARACTER SET utf8mb4, IN p_column VARCHAR(64) CHARACTER SET utf8mb4, IN p_definition VARCHAR(1000) CHARACTER SET utf8mb4)
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND column_name = p_column) THEN
+        SET @flyway_ddl = CONCAT('ALTER TABLE ', p_table, ' ADD COLUMN ', p_column, ' ', p_definition);
+        PREPARE flyway_stmt FROM @flyway_ddl;
+        EXECUTE flyway_stmt;
+        DEALLOCATE PREPARE flyway_stmt;
+    END IF;
+END $$
+
+-- p_clause: phần sau ADD, vd. 'INDEX idx_x (a, b), ALGORITHM = INPLACE, LOCK = NONE'
+CREATE PROCEDURE flyway_add_index_if_missing(IN p_table VARCHAR(64) CHARACTER SET utf8mb4, IN p_index VARCHAR(64) CHARACTER SET utf8mb4, IN p_clause VARCHAR(1000) CHARACTER SET utf8mb4)
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND index_name = p_index) THEN
+        SET @flyway_ddl = CONCAT('ALTER TABLE ', p_table, ' ADD ', p_clause);
+        PREPARE flyway_stmt FROM @flyway_ddl;
+        EXECUTE flyway_stmt;
+        DEALLOCATE PREPARE flyway_stmt;
+    END IF;
+END $$
+
+CREATE PROCEDURE flyway_add_foreign_key_if_missing(IN p_table VARCHAR(64) CHARACTER SET utf8mb4, IN p_column VARCHAR(64) CHARACTER SET utf8mb4, IN p_referenced_table VARCHAR(64) CHARACTER SET utf8mb4)
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.key_column_usage
+                   WHERE table_schema = DATABASE() AND table_name = p_table AND column_name = p_column
+                     AND referenced_table_name = p_referenced_table) THEN
+        SET @flyway_ddl = CONCAT('ALTER TABLE ', p_table, ' ADD FOREIGN KEY (', p_column, ') REFERENCES ',
+                                 p_referenced_table, ' (id)');
+        PREPARE flyway_stmt FROM @flyway_ddl;
+        EXECUTE flyway_stmt;
+        DEALLOCATE PREPARE flyway_stmt;
+    END IF;
+END $$
+
+DELIMITER ;
+
+-- ===========================================
+-- room_types, rooms
+-- ===========================================
+CALL flyway_add_column_if_missing('room_types', 'area', 'DOUBLE NULL COMMENT ''Diện tích (m2)''');
+
+-- Entity ghi tiện nghi dạng "wifi, tv" (không phải JSON) -> cột JSON của hotel.sql từ chối
+ALTER TABLE room_types
+    MODIFY amenities TEXT NULL COMMENT 'Tiện nghi, phân tách bằng dấu phẩy';
+
+-- Entity cho phép phòng chưa có tầng
+ALTER TABLE rooms
+    MODIFY floor INT NULL;
+
+-- ===========================================
+-- users
+-- ===========================================
+-- users.role là ENUM trong hotel.sql nhưng entity ánh xạ String: ddl-auto=validate báo sai kiểu
+ALTER TABLE users
+    MODIFY role VARCHAR(50) NULL DEFAULT 'RECEPTIONIST' COMMENT 'ADMIN, MANAGER, RECEPTIONIST, HOUSEKEEPING';
+
+CALL flyway_add_column_if_missing('users', 'about', 'VARCHAR(1000) NULL');
+CALL flyway_add_column_if_missing('users', 'company', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'job', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'country', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'address', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'phone', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'avatar_url', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'twitter', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'facebook', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'instagram', 'VARCHAR(255) NULL');
+CALL flyway_add_column_if_missing('users', 'linkedin', 'VARCHAR(255) NULL');
+
+-- ===========================================
+-- customers
+-- ===========================================
+CALL flyway_add_column_if_missing('customers', 'password', 'VARCHAR(255) NULL');
+
+-- ===========================================
+-- bookings
+-- ===========================================
+-- Tên khách trên booking được chép từ customers.full_name (150 ký tự)
+ALTER TABLE bookings
+    MODIFY customer_full_name VARCHAR(150) NOT NULL;
+
+CALL flyway_add_column_if_missing('bookings', 'user_id', 'BIGINT NULL COMMENT ''Nhân viên tạo booking (nếu có)''');
+CALL flyway_add_foreign_key_if_missing('bookings', 'user_id', 'users');
+CALL flyway_add_column_if_missing('bookings', 'actual_checkin_time', 'DATETIME(6) NULL');
+CALL flyway_add_column_if_missing('bookings', 'actual_checkout_time', 'DATETIME(6) NULL');
+
+-- ===========================================
+-- payments
+-- ===========================================
+-- Entity ghi phương thức thanh toán vào cột method (chuỗi tự do) thay cho ENUM payment_method của hotel.sql.
+-- Khi cột vừa được thêm, chép giá trị từ payment_method cho các khoản thanh toán đã có.
+SET @payments_had_method = (SELECT COUNT(*) FROM information_schema.columns
+                            WHERE table_schema = DATABASE() AND table_name = 'payments' AND column_name = 'method');
+SET @payments_has_payment_method = (SELECT COUNT(*) FROM information_schema.columns
+                                    WHERE table_schema = DATABASE() AND table_name = 'payments' AND column_name = 'payment_method');
+
+CALL flyway_add_column_if_missing('payments', 'method', 'VARCHAR(50) NOT NULL DEFAULT ''CASH'' COMMENT ''CASH, BANK_TRANSFER, ...''');
+CALL flyway_add_column_if_missing('payments', 'notes', 'TEXT NULL');
+
+SET @flyway_ddl = IF(@payments_had_method = 0 AND @payments_has_payment_method > 0,
+                     'UPDATE payments SET method = payment_method WHERE payment_method IS NOT NULL',
+                     'DO 0');
+PREPARE flyway_stmt FROM @flyway_ddl;
+EXECUTE flyway_stmt;
+DEALLOCATE PREPARE flyway_stmt;
@@ -0,0 +1,31 @@
+-- ===========================================
+-- V3: CHỈ MỤC THEO CÁC TRUY VẤN CỦA REPOSITORY
+-- Tạo online (ALGORITHM = INPLACE, LOCK = NONE): bảng vẫn đọc / ghi được trong lúc tạo chỉ mục.
+-- Bỏ qua chỉ mục DB đã có (thủ tục trong V2), nên mỗi chỉ mục một lệnh ALTER.
+-- Sắp xếp danh sách booking theo created_date dùng idx_bookings_created_id (created_date, id, tạo ở V4) nên không tạo thêm.
+-- ===========================================
+
+-- Kiểm tra trùng lịch của một phòng (findConflictingBookings), truy vấn con NOT IN khi tìm phòng trống:
+-- room_id = ? AND check_in_date < ? AND check_out_date > ? AND status <> 'CANCELLED', đọc hết từ chỉ mục
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_room_stay',
+    'INDEX idx_bookings_room_stay (room_id, check_in_date, check_out_date, status), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- Lịch sử đặt phòng của khách (findByCustomerIdOrderByCheckInDateDesc), thống kê lưu trú theo khách (findCustomerStats)
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_customer_checkin',
+    'INDEX idx_bookings_customer_checkin (customer_id, check_in_date), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- Danh sách booking lọc theo trạng thái, mặc định sắp xếp created_date giảm dần
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_status_created',
+    'INDEX idx_bookings_status_created (status, created_date), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- Booking còn đêm từ hôm nay (findActiveNightsFrom, đối soát room_type_inventory) và lọc toDate
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_check_out',
+    'INDEX idx_bookings_check_out (check_out_date), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- Thanh toán của một booking theo ngày (findByBookingIdOrderByPaymentDateDesc), tính lại amount_paid
+CALL flyway_add_index_if_missing('payments', 'idx_payments_booking_date',
+    'INDEX idx_payments_booking_date (booking_id, payment_date), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- Lịch sử điểm của khách theo thời gian (findByCustomerIdOrderByCreatedAtDesc)
+CALL flyway_add_index_if_missing('loyalty_point_transactions', 'idx_loyalty_tx_customer_created',
+    'INDEX idx_loyalty_tx_customer_created (customer_id, created_at), ALGORITHM = INPLACE, LOCK = NONE');
@@ -0,0 +1,86 @@
+-- ===========================================
+-- V4: CỘT TÍNH SẴN, CỘT TÌM KIẾM VÀ CÁC BẢNG PHỤ TRỢ
+-- Giá trị của các cột mới được điền khi ứng dụng khởi động:
+-- amount_paid (BookingAmountPaidService), stay_count / stay_nights / total_spend (CustomerStatsService),
+-- search_text (SearchTextMaintenance), room_type_inventory (RoomTypeInventoryService).
+-- ===========================================
+
+-- ===========================================
+-- bookings
+-- ===========================================
+CALL flyway_add_column_if_missing('bookings', 'amount_paid',
+    'DECIMAL(12,2) NOT NULL DEFAULT 0 COMMENT ''Tổng đã thanh toán (SUM payments.amount)''');
+CALL flyway_add_column_if_missing('bookings', 'search_text',
+    'VARCHAR(500) NULL COMMENT ''Tên khách, SĐT, mã đặt phòng, số phòng (không dấu, chữ thường)''');
+
+-- Phân trang theo con trỏ (keyset)
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_created_id',
+    'INDEX idx_bookings_created_id (created_date, id), ALGORITHM = INPLACE, LOCK = NONE');
+CALL flyway_add_index_if_missing('bookings', 'idx_bookings_search_text',
+    'INDEX idx_bookings_search_text (search_text), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- ===========================================
+-- customers
+-- ===========================================
+CALL flyway_add_column_if_missing('customers', 'stay_count',
+    'INT NOT NULL DEFAULT 0 COMMENT ''Số lần ở (booking CHECKED_OUT)''');
+CALL flyway_add_column_if_missing('customers', 'stay_nights',
+    'BIGINT NOT NULL DEFAULT 0 COMMENT ''Tổng số đêm đã ở''');
+CALL flyway_add_column_if_missing('customers', 'total_spend',
+    'DECIMAL(14,2) NOT NULL DEFAULT 0 COMMENT ''Tổng chi tiêu''');
+CALL flyway_add_column_if_missing('customers', 'token_version',
+    'INT NOT NULL DEFAULT 0 COMMENT ''Tăng lên để thu hồi JWT đã cấp''');
+CALL flyway_add_column_if_missing('customers', 'search_text',
+    'VARCHAR(500) NULL COMMENT ''Họ tên, SĐT, email, CCCD (không dấu, chữ thường)''');
+
+CALL flyway_add_index_if_missing('customers', 'idx_customers_search_text',
+    'INDEX idx_customers_search_text (search_text), ALGORITHM = INPLACE, LOCK = NONE');
+
+-- ===========================================
+-- users
+-- ===========================================
+CALL flyway_add_column_if_missing('users', 'token_version',
+    'INT NOT NULL DEFAULT 0 COMMENT ''Tăng lên để thu hồi JWT đã cấp''');
+
+-- ===========================================
+-- BẢNG TỒN PHÒNG THEO LOẠI PHÒNG VÀ ĐÊM (room_type_inventory)
+-- ===========================================
+CREATE TABLE IF NOT EXISTS room_type_inventory (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    room_type_id BIGINT NOT NULL,
+    stay_date DATE NOT NULL,
+    total INT NOT NULL COMMENT 'Số phòng thuộc loại này',
+    sold INT NOT NULL COMMENT 'Số phòng đã được đặt trong đêm này',
+    FOREIGN KEY (room_type_id) REFERENCES room_types(id),
+    UNIQUE KEY uk_inventory_type_date (room_type_id, stay_date),
+    INDEX idx_inventory_date (stay_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ===========================================
+-- BẢNG OUTBOX (outbox_events): sự kiện ghi cùng transaction nghiệp vụ, xử lý nền bởi OutboxService
+-- ===========================================
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL COMMENT 'Ví dụ: BookingCheckedOut',
+    aggregate_id BIGINT NOT NULL COMMENT 'ID đối tượng liên quan (booking id)',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING, PROCESSED, FAILED',
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000) NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NULL DEFAULT CURRENT_TIMESTAMP(6),
+    processed_at DATETIME(6) NULL,
+    INDEX idx_outbox_status_next (status, next_attempt_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ===========================================
+-- BẢNG IDEMPOTENCY-KEY (idempotency_keys), dùng khi hotel.idempotency.store=database
+-- ===========================================
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id VARCHAR(200) PRIMARY KEY COMMENT 'Phạm vi endpoint + khóa client gửi lên',
+    request_hash VARCHAR(64) NOT NULL COMMENT 'SHA-256 nội dung request',
+    status_code INT NULL COMMENT 'NULL = đang xử lý',
+    response_body TEXT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    INDEX idx_idempotency_expires (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
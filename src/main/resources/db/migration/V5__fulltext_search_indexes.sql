@@ -0,0 +1,11 @@
+-- ===========================================
+-- V5: CHỈ MỤC FULLTEXT (ngram) CHO TÌM KIẾM KHÔNG DẤU (hotel.search.fulltext=true)
+-- Chỉ MySQL có parser ngram. Chỉ mục FULLTEXT không tạo được với LOCK = NONE: bảng chỉ đọc được trong lúc tạo.
+-- Khi khởi động, thiếu một trong hai chỉ mục thì SearchTextMaintenance tắt FULLTEXT và tìm bằng LIKE.
+-- ===========================================
+
+CALL flyway_add_index_if_missing('bookings', 'ft_bookings_search_text',
+    'FULLTEXT INDEX ft_bookings_search_text (search_text) WITH PARSER ngram');
+
+CALL flyway_add_index_if_missing('customers', 'ft_customers_search_text',
+    'FULLTEXT INDEX ft_customers_search_text (search_text) WITH PARSER ngram');
@@ -0,0 +1,9 @@
+-- ===========================================
+-- V6: DỮ LIỆU BẮT BUỘC - hạng thành viên (khách hàng mới nhận hạng có points_required thấp nhất)
+-- DB cũ đã có các hạng này từ hotel.sql: INSERT IGNORE bỏ qua dòng trùng id / tên.
+-- ===========================================
+INSERT IGNORE INTO loyalty_tiers (id, name, points_required, description, benefits_json) VALUES
+    (1, 'Bronze', 0, 'Thành viên mới', '["Tích điểm 1x", "WiFi miễn phí"]'),
+    (2, 'Silver', 500, 'Thành viên thân thiết', '["Giảm giá 5% F&B", "Check-in sớm"]'),
+    (3, 'Gold', 1500, 'Thành viên VIP', '["Giảm giá 10% F&B", "Nâng hạng phòng miễn phí (nếu có)", "Bữa sáng miễn phí"]'),
+    (4, 'Platinum', 3000, 'Thành viên cao cấp', '["Giảm giá 15% F&B", "Nâng hạng phòng miễn phí (luôn có)", "Phòng chờ VIP"]');
@@ -0,0 +1,19 @@
+-- ===========================================
+-- V7: MỖI BOOKING CHỈ CÓ MỘT GIAO DỊCH TÍCH ĐIỂM
+-- Hai instance xử lý cùng một sự kiện trả phòng có thể cùng qua bước existsByBookingId;
+-- chỉ mục UNIQUE khiến lần ghi thứ hai lỗi khóa trùng, LoyaltyAutomationService coi là "đã xử lý".
+-- booking_id NULL (cộng điểm thủ công) không bị ràng buộc.
+-- ===========================================
+
+-- Dữ liệu cũ bị cộng trùng: giữ liên kết ở giao dịch đầu tiên, các dòng sau vẫn là lịch sử điểm nhưng bỏ booking_id
+UPDATE loyalty_point_transactions t
+    JOIN (SELECT booking_id, MIN(id) AS first_id
+          FROM loyalty_point_transactions
+          WHERE booking_id IS NOT NULL
+          GROUP BY booking_id
+          HAVING COUNT(*) > 1) d ON d.booking_id = t.booking_id
+SET t.booking_id = NULL
+WHERE t.id <> d.first_id;
+
+CALL flyway_add_index_if_missing('loyalty_point_transactions', 'uk_loyalty_tx_booking',
+    'UNIQUE INDEX uk_loyalty_tx_booking (booking_id), ALGORITHM = INPLACE, LOCK = NONE');
@@ -0,0 +1,115 @@
+package com.example.hotel.security;
+
+import com.example.hotel.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chọn route theo thứ tự khai báo, bucket theo IP / chung của route và header Retry-After.
+ */
+class RateLimiterTest {
+
+    private static final long T0 = 1_000_000_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitProperties properties;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRoutes(List.of(
+                route("/api/public/rooms/available", 1, 2, 0, 0),
+                route("/api/public/bookings", 100, 100, 1, 3),
+                route("/api/public/**", 20, 40, 0, 0)));
+        rateLimiter = new RateLimiter(properties, meterRegistry);
+    }
+
+    @Test
+    void firstDeclaredMatchingRouteWins() {
+        assertThat(rateLimiter.match("/api/public/rooms/available").getPattern()).isEqualTo("/api/public/rooms/available");
+        assertThat(rateLimiter.match("/api/public/bookings").getPattern()).isEqualTo("/api/public/bookings");
+        assertThat(rateLimiter.match("/api/public/rooms/available/2").getPattern()).isEqualTo("/api/public/**");
+        assertThat(rateLimiter.match("/api/public/room-types").getPattern()).isEqualTo("/api/public/**");
+        assertThat(rateLimiter.match("/api/admin/bookings")).isNull();
+        assertThat(rateLimiter.match("/api/publicity")).isNull();
+    }
+
+    @Test
+    void eachClientIpHasItsOwnBucket() {
+        RateLimitProperties.Route route = rateLimiter.match("/api/public/rooms/available");
+
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.1", T0)).isZero();
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.1", T0)).isZero();
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.1", T0)).isEqualTo(1_000_000_000L);
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.2", T0)).isZero();
+        assertThat(rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void globalBucketIsSharedByAllClients() {
+        RateLimitProperties.Route route = rateLimiter.match("/api/public/bookings");
+
+        for (int i = 1; i <= 3; i++) {
+            assertThat(rateLimiter.tryAcquire(route, "10.0.0." + i, T0)).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.4", T0)).isEqualTo(1_000_000_000L);
+        assertThat(rateLimiter.tryAcquire(route, "10.0.0.4", T0 + 1_000_000_000L)).isZero();
+        assertThat(rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void retryAfterIsRoundedUpToWholeSeconds() {
+        assertThat(RateLimitFilter.retryAfterSeconds(1)).isEqualTo(1);
+        assertThat(RateLimitFilter.retryAfterSeconds(500_000_000L)).isEqualTo(1);
+        assertThat(RateLimitFilter.retryAfterSeconds(1_000_000_000L)).isEqualTo(1);
+        assertThat(RateLimitFilter.retryAfterSeconds(1_000_000_001L)).isEqualTo(2);
+        assertThat(RateLimitFilter.retryAfterSeconds(2_500_000_000L)).isEqualTo(3);
+    }
+
+    @Test
+    void filterAnswers429WithRetryAfterOnceTheBurstIsUsed() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(rateLimiter, properties);
+
+        assertThat(call(filter, "/api/public/rooms/available").getStatus()).isEqualTo(200);
+        assertThat(call(filter, "/api/public/rooms/available").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = call(filter, "/api/public/rooms/available");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        // Route không cấu hình -> không bị giới hạn
+        assertThat(call(filter, "/api/admin/bookings").getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse call(RateLimitFilter filter, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.9");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private double rejected() {
+        return meterRegistry.get("hotel.ratelimit.rejected").counter().count();
+    }
+
+    private static RateLimitProperties.Route route(String pattern, double perIpPerSecond, int perIpBurst,
+                                                   double globalPerSecond, int globalBurst) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPattern(pattern);
+        route.setPerIpPerSecond(perIpPerSecond);
+        route.setPerIpBurst(perIpBurst);
+        route.setGlobalPerSecond(globalPerSecond);
+        route.setGlobalBurst(globalBurst);
+        return route;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.hotel.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Token bucket với thời gian truyền vào tường minh (nanos), không phụ thuộc đồng hồ thật.
+ */
+class TokenBucketTest {
+
+    private static final long T0 = 1_000_000_000_000L;
+    private static final long INTERVAL = 500_000_000L; // 2 token / giây
+
+    @Test
+    void burstIsAllowedAtOnceThenTheNextRequestWaitsOneInterval() {
+        TokenBucket bucket = new TokenBucket(2, 3, T0);
+
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        assertThat(bucket.tryAcquire(T0)).isEqualTo(INTERVAL);
+        assertThat(bucket.tryAcquire(T0 + 100_000_000L)).isEqualTo(INTERVAL - 100_000_000L);
+    }
+
+    @Test
+    void tokensRefillAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, T0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(T0);
+        }
+
+        // Mỗi INTERVAL nạp lại đúng một token
+        assertThat(bucket.tryAcquire(T0 + INTERVAL)).isZero();
+        assertThat(bucket.tryAcquire(T0 + INTERVAL)).isEqualTo(INTERVAL);
+        assertThat(bucket.tryAcquire(T0 + 2 * INTERVAL - 1)).isEqualTo(1);
+        assertThat(bucket.tryAcquire(T0 + 2 * INTERVAL)).isZero();
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(2, 1, T0);
+        assertThat(bucket.tryAcquire(T0)).isZero();
+        for (int i = 0; i < 10; i++) {
+            assertThat(bucket.tryAcquire(T0)).isEqualTo(INTERVAL);
+        }
+
+        assertThat(bucket.tryAcquire(T0 + INTERVAL)).isZero();
+    }
+
+    @Test
+    void idleTimeNeverFillsMoreThanTheBurst() {
+        TokenBucket bucket = new TokenBucket(2, 3, T0);
+        long later = T0 + 60_000_000_000L;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isEqualTo(INTERVAL);
+    }
+
+    @Test
+    void rateAndBurstMustBePositive() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1, T0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, T0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
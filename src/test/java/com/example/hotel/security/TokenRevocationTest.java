@@ -0,0 +1,169 @@
+package com.example.hotel.security;
+
+import com.example.hotel.entity.Customer;
+import com.example.hotel.entity.LoyaltyTier;
+import com.example.hotel.entity.User;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.LoyaltyTierRepository;
+import com.example.hotel.repository.UserRepository;
+import com.example.hotel.security.jwt.JwtUtils;
+import com.example.hotel.service.UserService;
+import com.example.hotel.service.impl.CustomerServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Đổi mật khẩu phải thu hồi các JWT đã cấp: token mang "ver" cũ bị AuthTokenFilter từ chối.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Bảng phiên bản token chỉ được cập nhật sau khi commit
+class TokenRevocationTest {
+
+    private static final String JWT_SECRET = "YmV6S29kZXItU2VjcmV0S2V5LUZvci1KV1QtQXV0aGVudGljYXRpb24tU3ByaW5nQm9vdA==";
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoyaltyTierRepository loyaltyTierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private TransactionTemplate transactionTemplate;
+    private TokenVersionRegistry tokenVersionRegistry;
+    private JwtUtils jwtUtils;
+    private AuthTokenFilter authTokenFilter;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        tokenVersionRegistry = new TokenVersionRegistry(userRepository, customerRepository);
+
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+
+        authTokenFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(authTokenFilter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(authTokenFilter, "principalCache", mock(PrincipalCache.class));
+        ReflectionTestUtils.setField(authTokenFilter, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(authTokenFilter, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void adminTokenIssuedBeforePasswordChangeIsRejected() throws Exception {
+        int fixture = FIXTURES.incrementAndGet();
+        User user = new User();
+        user.setUsername("nhanvien" + fixture);
+        user.setEmail("nhanvien" + fixture + "@example.com");
+        user.setPassword(passwordEncoder.encode("mat-khau-cu"));
+        user.setRole("ADMIN");
+        User saved = transactionTemplate.execute(status -> userRepository.save(user));
+        tokenVersionRegistry.refresh();
+
+        String oldToken = jwtUtils.generateJwtToken(saved);
+        assertThat(filter("/api/users/profile", oldToken).getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(userService, "principalCache", mock(PrincipalCache.class));
+        ReflectionTestUtils.setField(userService, "tokenVersionRegistry", tokenVersionRegistry);
+        transactionTemplate.executeWithoutResult(status ->
+                userService.changePassword(saved.getUsername(), "mat-khau-cu", "mat-khau-moi"));
+
+        assertThat(filter("/api/users/profile", oldToken).getStatus()).isEqualTo(401);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        // Token cấp sau khi đổi mật khẩu mang phiên bản mới
+        String newToken = jwtUtils.generateJwtToken(userRepository.findById(saved.getId()).orElseThrow());
+        assertThat(filter("/api/users/profile", newToken).getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    @Test
+    void customerTokenIssuedBeforePasswordChangeIsRejected() throws Exception {
+        int fixture = FIXTURES.incrementAndGet();
+        Customer saved = transactionTemplate.execute(status -> {
+            LoyaltyTier tier = new LoyaltyTier();
+            tier.setName("Đồng " + fixture);
+            tier.setPointsRequired(0);
+            loyaltyTierRepository.save(tier);
+
+            Customer customer = new Customer();
+            customer.setFullName("Nguyễn Văn An");
+            customer.setIdNumber("0790000001" + fixture);
+            customer.setEmail("khach" + fixture + "@example.com");
+            customer.setPassword(passwordEncoder.encode("mat-khau-cu"));
+            customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            customer.setLoyaltyTier(tier);
+            return customerRepository.save(customer);
+        });
+        tokenVersionRegistry.refresh();
+
+        String oldToken = jwtUtils.generateCustomerToken(saved);
+        filter("/api/public/customer/profile", oldToken);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+
+        CustomerServiceImpl customerService = new CustomerServiceImpl(customerRepository, null, passwordEncoder, null,
+                tokenVersionRegistry, mock(PrincipalCache.class));
+        transactionTemplate.executeWithoutResult(status ->
+                customerService.changeCustomerPassword(saved.getEmail(), "mat-khau-cu", "mat-khau-moi"));
+
+        // Không có Authentication -> endpoint khách hàng trả 401 qua AuthEntryPointJwt
+        filter("/api/public/customer/profile", oldToken);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        String newToken = jwtUtils.generateCustomerToken(customerRepository.findById(saved.getId()).orElseThrow());
+        filter("/api/public/customer/profile", newToken);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    private MockHttpServletResponse filter(String path, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authTokenFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
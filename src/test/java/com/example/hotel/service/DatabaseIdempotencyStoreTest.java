@@ -0,0 +1,95 @@
+package com.example.hotel.service;
+
+import com.example.hotel.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * IdempotencyStore dùng bảng idempotency_keys trên H2: giữ khóa, lưu / bỏ khóa và
+ * không cho request đã bị giữ lại khóa ghi đè lên lần thực thi mới hơn.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Mỗi thao tác của store là một transaction riêng
+class DatabaseIdempotencyStoreTest {
+
+    private static final long TTL_SECONDS = 3600;
+    private static final long IN_PROGRESS_TIMEOUT_SECONDS = 60;
+
+    @Autowired
+    private IdempotencyKeyRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private DatabaseIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        store = new DatabaseIdempotencyStore(repository, new TransactionTemplate(transactionManager),
+                TTL_SECONDS, IN_PROGRESS_TIMEOUT_SECONDS);
+    }
+
+    @Test
+    void secondReserveSeesInProgressThenStoredResponse() {
+        IdempotencyStore.StoredResponse reservation = reservation("fp", 0);
+        assertThat(store.reserve("payments.record:k-1", reservation)).isNull();
+
+        IdempotencyStore.StoredResponse running = store.reserve("payments.record:k-1", reservation("fp", 0));
+        assertThat(running.isInProgress()).isTrue();
+        assertThat(running.fingerprint()).isEqualTo("fp");
+
+        store.complete("payments.record:k-1", reservation, response("fp", reservation));
+        IdempotencyStore.StoredResponse replay = store.reserve("payments.record:k-1", reservation("other", 0));
+        assertThat(replay.status()).isEqualTo(201);
+        assertThat(replay.body()).isEqualTo("{\"id\":1}");
+        assertThat(replay.fingerprint()).isEqualTo("fp");
+    }
+
+    @Test
+    void releaseLetsTheNextRequestReserveAgain() {
+        IdempotencyStore.StoredResponse reservation = reservation("fp", 0);
+        assertThat(store.reserve("k-2", reservation)).isNull();
+
+        store.release("k-2", reservation);
+
+        assertThat(repository.findById("k-2")).isEmpty();
+        assertThat(store.reserve("k-2", reservation("fp", 0))).isNull();
+    }
+
+    @Test
+    void abandonedReservationCannotCompleteOrReleaseAfterTakeOver() {
+        // Instance đầu giữ khóa rồi treo quá inProgressTimeoutSeconds, lần gửi lại giữ lại khóa
+        IdempotencyStore.StoredResponse stale = reservation("fp", -2 * IN_PROGRESS_TIMEOUT_SECONDS);
+        IdempotencyStore.StoredResponse current = reservation("fp", 0);
+        assertThat(store.reserve("k-3", stale)).isNull();
+        assertThat(store.reserve("k-3", current)).isNull();
+
+        store.release("k-3", stale);
+        store.complete("k-3", stale, new IdempotencyStore.StoredResponse("fp", 500, "{}", stale.createdAt()));
+        assertThat(store.reserve("k-3", reservation("fp", 0)).isInProgress()).isTrue();
+
+        store.complete("k-3", current, response("fp", current));
+        assertThat(store.reserve("k-3", reservation("fp", 0)).status()).isEqualTo(201);
+    }
+
+    private static IdempotencyStore.StoredResponse reservation(String fingerprint, long offsetSeconds) {
+        return IdempotencyStore.StoredResponse.inProgress(fingerprint, System.currentTimeMillis() + offsetSeconds * 1000);
+    }
+
+    private static IdempotencyStore.StoredResponse response(String fingerprint, IdempotencyStore.StoredResponse reservation) {
+        return new IdempotencyStore.StoredResponse(fingerprint, 201, "{\"id\":1}", reservation.createdAt());
+    }
+}
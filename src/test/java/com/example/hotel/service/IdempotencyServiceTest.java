@@ -0,0 +1,124 @@
+package com.example.hotel.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Idempotency-Key với store trong bộ nhớ: trả lại phản hồi đã lưu, 422 khi khác nội dung,
+ * 409 khi request đầu còn đang chạy và bỏ khóa khi request thất bại.
+ */
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "payments.record";
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(new InMemoryIdempotencyStore(100, 3600, 60),
+                new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void retryWithSameKeyReplaysStoredResponseWithoutExecutingAgain() {
+        ResponseEntity<?> first = idempotencyService.execute(SCOPE, "k-1", Map.of("amount", 500000), this::created);
+        ResponseEntity<?> replay = idempotencyService.execute(SCOPE, "k-1", Map.of("amount", 500000), this::created);
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(replay.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(replay.getBody()).isEqualTo("{\"id\":1}");
+        assertThat(meterRegistry.get("hotel.idempotency.replayed").counter().count()).isEqualTo(1);
+
+        // Cùng khóa ở endpoint khác không bị lẫn
+        idempotencyService.execute("public.bookings", "k-1", Map.of("amount", 500000), this::created);
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() {
+        idempotencyService.execute(SCOPE, "k-2", Map.of("amount", 500000), this::created);
+
+        ResponseEntity<?> mismatch = idempotencyService.execute(SCOPE, "k-2", Map.of("amount", 900000), this::created);
+
+        assertThat(mismatch.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void retryWhileFirstRequestIsRunningGetsConflict() {
+        AtomicReference<ResponseEntity<?>> concurrent = new AtomicReference<>();
+        ResponseEntity<?> first = idempotencyService.execute(SCOPE, "k-3", Map.of("amount", 500000), () -> {
+            concurrent.set(idempotencyService.execute(SCOPE, "k-3", Map.of("amount", 500000), this::created));
+            return created();
+        });
+
+        assertThat(concurrent.get().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void failedRequestReleasesKeySoRetryExecutesAgain() {
+        assertThatThrownBy(() -> idempotencyService.execute(SCOPE, "k-4", Map.of("amount", 500000), () -> {
+            throw new IllegalStateException("Booking không tồn tại");
+        })).isInstanceOf(IllegalStateException.class);
+        ResponseEntity<?> badRequest = idempotencyService.execute(SCOPE, "k-4", Map.of("amount", 500000),
+                () -> ResponseEntity.badRequest().body(Map.of("message", "Số tiền không hợp lệ")));
+        assertThat(badRequest.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        ResponseEntity<?> retry = idempotencyService.execute(SCOPE, "k-4", Map.of("amount", 500000), this::created);
+
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void requestWithoutKeyAlwaysExecutes() {
+        idempotencyService.execute(SCOPE, null, Map.of("amount", 500000), this::created);
+        idempotencyService.execute(SCOPE, "", Map.of("amount", 500000), this::created);
+
+        assertThat(executions).hasValue(2);
+        assertThat(idempotencyService.execute(SCOPE, "x".repeat(101), Map.of(), this::created).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void inMemoryStoreIgnoresCompleteAndReleaseFromTakenOverReservation() {
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, 3600, 60);
+        long now = System.currentTimeMillis();
+        // Request đầu bị treo quá inProgressTimeoutSeconds, lần gửi lại giữ lại khóa
+        IdempotencyStore.StoredResponse stale = IdempotencyStore.StoredResponse.inProgress("fp", now - 120_000);
+        IdempotencyStore.StoredResponse current = IdempotencyStore.StoredResponse.inProgress("fp", now);
+        assertThat(store.reserve("k", stale)).isNull();
+        assertThat(store.reserve("k", current)).isNull();
+
+        store.release("k", stale);
+        store.complete("k", stale, new IdempotencyStore.StoredResponse("fp", 500, "{}", stale.createdAt()));
+        assertThat(store.reserve("k", IdempotencyStore.StoredResponse.inProgress("fp", now))).isEqualTo(current);
+
+        store.complete("k", current, new IdempotencyStore.StoredResponse("fp", 201, "{\"id\":2}", now));
+        assertThat(store.reserve("k", IdempotencyStore.StoredResponse.inProgress("fp", now)).status()).isEqualTo(201);
+    }
+
+    private ResponseEntity<?> created() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", executions.incrementAndGet()));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.hotel.service;
+
+import com.example.hotel.entity.OutboxEvent;
+import com.example.hotel.entity.OutboxStatus;
+import com.example.hotel.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outbox trên H2: xử lý, thử lại với thời gian chờ tăng dần, FAILED sau maxAttempts lần
+ * và bỏ qua sự kiện đang bị instance khác khóa.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Mỗi sự kiện được xử lý trong transaction riêng như khi chạy nền
+class OutboxServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private LoyaltyAutomationService loyaltyAutomationService;
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        loyaltyAutomationService = mock(LoyaltyAutomationService.class);
+        outboxService = new OutboxService(outboxEventRepository, loyaltyAutomationService, transactionTemplate,
+                new SimpleMeterRegistry(), BATCH_SIZE, MAX_ATTEMPTS, RETRY_DELAY_SECONDS);
+    }
+
+    @Test
+    void dueEventIsProcessedOnce() {
+        Long id = publish(1L);
+
+        assertThat(outboxService.processDue()).isEqualTo(1);
+        assertThat(outboxService.processDue()).isZero();
+
+        OutboxEvent event = outboxEventRepository.findById(id).orElseThrow();
+        assertThat(event.getStatus()).isEqualTo(OutboxStatus.PROCESSED);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getProcessedAt()).isNotNull();
+        verify(loyaltyAutomationService).processBookingCheckout(1L);
+    }
+
+    @Test
+    void failedEventIsRetriedWithGrowingBackoffThenMarkedFailed() {
+        doThrow(new IllegalStateException("DB tạm thời lỗi")).when(loyaltyAutomationService).processBookingCheckout(anyLong());
+        Long id = publish(2L);
+
+        outboxService.processDue();
+        OutboxEvent first = outboxEventRepository.findById(id).orElseThrow();
+        assertThat(first.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLastError()).contains("DB tạm thời lỗi");
+        assertThat(first.getNextAttemptAt()).isCloseTo(LocalDateTime.now().plusSeconds(RETRY_DELAY_SECONDS), within(5, ChronoUnit.SECONDS));
+        // Chưa đến hạn -> không bị lấy lại
+        assertThat(outboxService.processDue()).isZero();
+
+        makeDue(id);
+        outboxService.processDue();
+        OutboxEvent second = outboxEventRepository.findById(id).orElseThrow();
+        assertThat(second.getAttempts()).isEqualTo(2);
+        assertThat(Duration.between(LocalDateTime.now(), second.getNextAttemptAt()))
+                .isBetween(Duration.ofSeconds(2 * RETRY_DELAY_SECONDS - 5), Duration.ofSeconds(2 * RETRY_DELAY_SECONDS));
+
+        makeDue(id);
+        outboxService.processDue();
+        OutboxEvent failed = outboxEventRepository.findById(id).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+        assertThat(failed.getAttempts()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(outboxService.getFailedEvents(10)).extracting("id").containsExactly(id);
+
+        // Thử lại thủ công: về PENDING, đếm lại từ đầu và được xử lý ở lần quét sau
+        doNothing().when(loyaltyAutomationService).processBookingCheckout(anyLong());
+        outboxService.retry(id);
+        assertThat(outboxService.processDue()).isEqualTo(1);
+        assertThat(outboxEventRepository.findById(id).orElseThrow().getStatus()).isEqualTo(OutboxStatus.PROCESSED);
+    }
+
+    @Test
+    void duplicateKeyForAnAlreadyAppliedEventCountsAsProcessed() {
+        doThrow(new DataIntegrityViolationException("uk_loyalty_tx_booking")).when(loyaltyAutomationService).processBookingCheckout(3L);
+        when(loyaltyAutomationService.isBookingCheckoutProcessed(3L)).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("fk_bookings")).when(loyaltyAutomationService).processBookingCheckout(4L);
+        Long applied = publish(3L);
+        Long broken = publish(4L);
+
+        outboxService.processDue();
+
+        assertThat(outboxEventRepository.findById(applied).orElseThrow().getStatus()).isEqualTo(OutboxStatus.PROCESSED);
+        OutboxEvent retried = outboxEventRepository.findById(broken).orElseThrow();
+        assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void drainStopsWhenDueEventsAreHeldByAnotherInstance() throws Exception {
+        List<Long> ids = List.of(publish(5L), publish(6L)); // Đúng một lô đầy
+        // Instance khác đang giữ khóa: FOR UPDATE SKIP LOCKED trên MySQL trả về rỗng
+        OutboxEventRepository lockedElsewhere = mock(OutboxEventRepository.class, AdditionalAnswers.delegatesTo(outboxEventRepository));
+        doReturn(Optional.empty()).when(lockedElsewhere).findByIdForProcessing(anyLong());
+        OutboxService otherNode = new OutboxService(lockedElsewhere, loyaltyAutomationService, transactionTemplate,
+                new SimpleMeterRegistry(), BATCH_SIZE, MAX_ATTEMPTS, RETRY_DELAY_SECONDS);
+
+        assertThat(otherNode.processDue()).isZero();
+        // Trước đây drain lặp mãi vì findDueIds vẫn trả về cả lô đầy
+        CompletableFuture.runAsync(otherNode::drain).get(5, TimeUnit.SECONDS);
+        verify(lockedElsewhere, times(2)).findDueIds(any(), any());
+        verify(loyaltyAutomationService, never()).processBookingCheckout(anyLong());
+
+        outboxService.drain();
+        assertThat(outboxEventRepository.findAllById(ids)).extracting(OutboxEvent::getStatus)
+                .containsOnly(OutboxStatus.PROCESSED);
+    }
+
+    private Long publish(Long bookingId) {
+        return transactionTemplate.execute(status -> {
+            outboxService.publish(OutboxEvent.BOOKING_CHECKED_OUT, bookingId);
+            return outboxEventRepository.findAll().stream()
+                    .filter(e -> e.getAggregateId().equals(bookingId))
+                    .findFirst()
+                    .orElseThrow()
+                    .getId();
+        });
+    }
+
+    private void makeDue(Long id) {
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(id)
+                .ifPresent(event -> event.setNextAttemptAt(LocalDateTime.now().minusSeconds(1))));
+    }
+}
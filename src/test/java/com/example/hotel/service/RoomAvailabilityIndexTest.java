@@ -0,0 +1,163 @@
+package com.example.hotel.service;
+
+import com.example.hotel.entity.Booking;
+import com.example.hotel.entity.BookingStatus;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.BookingStayView;
+import com.example.hotel.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomAvailabilityIndexTest {
+
+    private static final LocalDate CHECKIN = LocalDate.of(2026, 12, 24);
+    private static final LocalDate CHECKOUT = LocalDate.of(2026, 12, 27);
+
+    private BookingRepository bookingRepository;
+    private RoomAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.findActiveStays(any())).thenReturn(List.of());
+        index = new RoomAvailabilityIndex(bookingRepository, mock(RoomRepository.class), new SimpleMeterRegistry());
+        index.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rollbackRemovesTheReservedStay() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThat(index.reserve(1L, CHECKIN, CHECKOUT, null, () -> booking(10L))).isPresent();
+        assertThat(index.isFree(1L, CHECKIN, CHECKOUT)).isFalse(); // Request đến sau thấy ngay, trước khi commit
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(index.isFree(1L, CHECKIN, CHECKOUT)).isTrue();
+        assertThat(index.hasConflict(1L, CHECKIN, CHECKOUT, null)).isFalse();
+    }
+
+    @Test
+    void failingWriterLeavesIndexUntouched() {
+        assertThatThrownBy(() -> index.reserve(1L, CHECKIN, CHECKOUT, null, () -> {
+            throw new IllegalStateException("INSERT lỗi");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(index.isFree(1L, CHECKIN, CHECKOUT)).isTrue();
+        assertThat(index.reserve(1L, CHECKIN, CHECKOUT, null, () -> booking(11L))).isPresent();
+    }
+
+    @Test
+    void bookingKnownOnlyToTheDatabaseIsRejectedAndAddedToTheIndex() {
+        // Booking do instance khác ghi: chỉ mục không biết, DB thì có
+        Booking other = booking(20L);
+        other.setCheckInDate(CHECKIN.plusDays(1));
+        other.setCheckOutDate(CHECKOUT.plusDays(1));
+        when(bookingRepository.findConflictingBookingsForUpdate(eq(1L), any(), any())).thenReturn(List.of(other));
+
+        assertThat(index.reserve(1L, CHECKIN, CHECKOUT, null, () -> booking(21L))).isEmpty();
+        assertThat(index.hasConflict(1L, CHECKIN, CHECKOUT, null)).isTrue();
+    }
+
+    @Test
+    void reservationOnAnotherRoomIsNotBlockedByAWriterInProgress() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<Booking>> slow = CompletableFuture.supplyAsync(() ->
+                index.reserve(1L, CHECKIN, CHECKOUT, null, () -> {
+                    writing.countDown();
+                    await(release);
+                    return booking(30L);
+                }));
+        try {
+            assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Phòng 1 đang ở trong writer; phòng 2 vẫn đặt được ngay (không có khóa trong JVM dùng chung giữa các phòng)
+            CompletableFuture<Optional<Booking>> other = CompletableFuture.supplyAsync(() ->
+                    index.reserve(2L, CHECKIN, CHECKOUT, null, () -> booking(31L)));
+            assertThat(other.get(5, TimeUnit.SECONDS)).isPresent();
+            assertThat(slow).isNotDone();
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isPresent();
+    }
+
+    @Test
+    void periodicRebuildPicksUpBookingsFromOtherInstancesAndKeepsChangesMadeMeanwhile() {
+        when(bookingRepository.findActiveStays(any())).thenAnswer(invocation -> {
+            // Trong lúc đang nạp từ DB, instance này đặt phòng 2 (chưa có trong kết quả truy vấn)
+            assertThat(index.reserve(2L, CHECKIN, CHECKOUT, null, () -> booking(41L))).isPresent();
+            return List.of(stay(40L, 1L)); // Booking do instance khác ghi
+        });
+
+        index.rebuild();
+
+        assertThat(index.isFree(1L, CHECKIN, CHECKOUT)).isFalse();
+        assertThat(index.isFree(2L, CHECKIN, CHECKOUT)).isFalse();
+    }
+
+    private static BookingStayView stay(Long id, Long roomId) {
+        return new BookingStayView() {
+            public Long getId() {
+                return id;
+            }
+
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            public LocalDate getCheckInDate() {
+                return CHECKIN;
+            }
+
+            public LocalDate getCheckOutDate() {
+                return CHECKOUT;
+            }
+        };
+    }
+
+    private static Booking booking(Long id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStatus(BookingStatus.PENDING);
+        booking.setCheckInDate(CHECKIN);
+        booking.setCheckOutDate(CHECKOUT);
+        return booking;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
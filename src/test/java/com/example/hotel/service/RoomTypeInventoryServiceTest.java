@@ -0,0 +1,239 @@
+package com.example.hotel.service;
+
+import com.example.hotel.dto.InventoryRepairResultDto;
+import com.example.hotel.entity.*;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.repository.RoomTypeInventoryRepository;
+import com.example.hotel.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Bảng tồn phòng trên H2 (chế độ MySQL cho INSERT ... ON DUPLICATE KEY UPDATE).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RoomTypeInventoryServiceTest {
+
+    private static final LocalDate NIGHT = LocalDate.of(2026, 12, 24);
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private RoomTypeInventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        inventoryService = new RoomTypeInventoryService(inventoryRepository, bookingRepository, roomRepository,
+                roomTypeRepository, transactionTemplate);
+    }
+
+    @Test
+    void moveStayShiftsSoldNightsAndNeverGoesBelowZero() {
+        RoomType roomType = roomType();
+        room(roomType);
+        room(roomType);
+
+        inventoryService.moveStay(null, new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT, NIGHT.plusDays(2)));
+        inventoryService.moveStay(null, new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT, NIGHT.plusDays(1)));
+        assertThat(sold(roomType)).containsOnly(entry(NIGHT, 2), entry(NIGHT.plusDays(1), 1));
+
+        // Đổi ngày booking thứ nhất sang một đêm sau đó
+        inventoryService.moveStay(new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT, NIGHT.plusDays(2)),
+                new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT.plusDays(1), NIGHT.plusDays(3)));
+        assertThat(sold(roomType)).containsOnly(entry(NIGHT, 1), entry(NIGHT.plusDays(1), 1), entry(NIGHT.plusDays(2), 1));
+
+        // Hủy hai lần cùng một đêm: lần thứ hai không làm sold âm, đêm chưa có dòng thì không tạo dòng
+        RoomTypeInventoryService.Stay single = new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT, NIGHT.plusDays(1));
+        inventoryService.moveStay(single, null);
+        inventoryService.moveStay(single, null);
+        inventoryService.moveStay(new RoomTypeInventoryService.Stay(roomType.getId(), NIGHT.minusDays(5), NIGHT.minusDays(4)), null);
+        assertThat(sold(roomType)).containsOnly(entry(NIGHT, 0), entry(NIGHT.plusDays(1), 1), entry(NIGHT.plusDays(2), 1));
+        assertThat(inventoryRepository.findByStayDateRange(NIGHT, NIGHT.plusDays(3)))
+                .allSatisfy(row -> assertThat(row.getTotal()).isEqualTo(2));
+    }
+
+    @Test
+    void repairFixesDriftedRowsAndCreatesMissingOnes() {
+        RoomType roomType = roomType();
+        Room room = room(roomType);
+        room(roomType);
+        Customer customer = customer();
+        booking(customer, room, NIGHT, NIGHT.plusDays(2), BookingStatus.CONFIRMED);
+        booking(customer, room, NIGHT, NIGHT.plusDays(1), BookingStatus.CANCELLED);
+        booking(customer, room, NIGHT.minusDays(3), NIGHT.minusDays(1), BookingStatus.CHECKED_OUT); // Trước from
+
+        // Đêm đầu sold sai, đêm thứ hai chưa có dòng, đêm thứ ba không còn booking nào
+        inventory(roomType, NIGHT, 2, 5);
+        inventory(roomType, NIGHT.plusDays(2), 2, 1);
+        em.flush();
+        em.clear();
+
+        InventoryRepairResultDto result = inventoryService.repair(NIGHT);
+
+        assertThat(result.getRowsDrifted()).isEqualTo(2);
+        assertThat(result.getRowsCreated()).isEqualTo(1);
+        assertThat(sold(roomType)).containsOnly(entry(NIGHT, 1), entry(NIGHT.plusDays(1), 1), entry(NIGHT.plusDays(2), 0));
+
+        InventoryRepairResultDto again = inventoryService.repair(NIGHT);
+        assertThat(again.getRowsDrifted()).isZero();
+        assertThat(again.getRowsCreated()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Khóa phải được giữ bởi một transaction khác đã commit dữ liệu
+    void repairLockOnOneRoomTypeDoesNotBlockBookingsOfAnother() throws Exception {
+        RoomType[] types = transactionTemplate.execute(status -> {
+            RoomType repaired = roomType();
+            RoomType booked = roomType();
+            inventory(repaired, NIGHT, 1, 0);
+            inventory(booked, NIGHT, 1, 0);
+            return new RoomType[]{repaired, booked};
+        });
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> repair = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            inventoryRepository.findByRoomTypeFromForUpdate(types[0].getId(), NIGHT); // Như repairRoomType đang chạy
+            locked.countDown();
+            await(release);
+        }));
+        try {
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Void> booking = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                    inventoryService.moveStay(null, new RoomTypeInventoryService.Stay(types[1].getId(), NIGHT, NIGHT.plusDays(1)))));
+            booking.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            repair.get(15, TimeUnit.SECONDS);
+            transactionTemplate.executeWithoutResult(status -> {
+                inventoryRepository.deleteAll();
+                roomTypeRepository.deleteAll(List.of(types));
+            });
+        }
+    }
+
+    private Map<LocalDate, Integer> sold(RoomType roomType) {
+        // Cập nhật bằng câu lệnh native không đi qua persistence context: đọc lại từ DB
+        em.flush();
+        em.clear();
+        return inventoryRepository.findByStayDateRange(NIGHT.minusYears(1), NIGHT.plusYears(1)).stream()
+                .filter(row -> row.getRoomType().getId().equals(roomType.getId()))
+                .collect(Collectors.toMap(RoomTypeInventory::getStayDate, RoomTypeInventory::getSold));
+    }
+
+    private RoomType roomType() {
+        int fixture = FIXTURES.incrementAndGet();
+        RoomType roomType = new RoomType();
+        roomType.setTypeCode("T" + fixture);
+        roomType.setName("Loại " + fixture);
+        roomType.setCapacity(2);
+        roomType.setBasePrice(new BigDecimal("500000"));
+        return roomTypeRepository.save(roomType);
+    }
+
+    private Room room(RoomType roomType) {
+        Room room = new Room();
+        room.setRoomNumber("R" + FIXTURES.incrementAndGet());
+        room.setRoomType(roomType);
+        room.setStatus(RoomStatus.AVAILABLE);
+        room.setPrice(new BigDecimal("500000"));
+        return roomRepository.save(room);
+    }
+
+    private void inventory(RoomType roomType, LocalDate night, int total, int sold) {
+        RoomTypeInventory row = new RoomTypeInventory();
+        row.setRoomType(roomType);
+        row.setStayDate(night);
+        row.setTotal(total);
+        row.setSold(sold);
+        inventoryRepository.save(row);
+    }
+
+    private Customer customer() {
+        LoyaltyTier tier = new LoyaltyTier();
+        tier.setName("Đồng");
+        tier.setPointsRequired(0);
+        em.persist(tier);
+
+        Customer customer = new Customer();
+        customer.setFullName("Nguyễn Văn An");
+        customer.setIdNumber("079000000001");
+        customer.setEmail("khach@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        customer.setLoyaltyTier(tier);
+        return em.persist(customer);
+    }
+
+    private void booking(Customer customer, Room room, LocalDate checkin, LocalDate checkout, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setRoom(room);
+        booking.setCustomerFullName(customer.getFullName());
+        booking.setCustomerPhone("0900000000");
+        booking.setCheckInDate(checkin);
+        booking.setCheckOutDate(checkout);
+        booking.setPricePerNight(room.getPrice());
+        booking.setTotalPrice(room.getPrice());
+        booking.setStatus(status);
+        booking.setBookingConfirmationCode("BK-" + FIXTURES.incrementAndGet());
+        em.persist(booking);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(15, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.hotel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StayIntervalTreeTest {
+
+    @Test
+    void detectsOverlapOnHalfOpenRanges() {
+        StayIntervalTree tree = new StayIntervalTree();
+        tree.insert(1, 10, 13); // đêm 10, 11, 12
+
+        assertThat(tree.overlaps(13, 15, Long.MIN_VALUE)).isFalse(); // check-in đúng ngày check-out
+        assertThat(tree.overlaps(7, 10, Long.MIN_VALUE)).isFalse();  // check-out đúng ngày check-in
+        assertThat(tree.overlaps(12, 14, Long.MIN_VALUE)).isTrue();
+        assertThat(tree.overlaps(8, 20, Long.MIN_VALUE)).isTrue();
+        assertThat(tree.overlaps(11, 12, 1)).isFalse();               // loại trừ chính booking đang sửa
+    }
+
+    @Test
+    void removeDropsOnlyTheGivenStay() {
+        StayIntervalTree tree = new StayIntervalTree();
+        tree.insert(1, 10, 13);
+        tree.insert(2, 10, 13);
+
+        assertThat(tree.remove(1, 10, 13)).isTrue();
+        assertThat(tree.remove(1, 10, 13)).isFalse();
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.findOverlapping(0, 100)).containsExactly(2L);
+    }
+
+    @Test
+    void matchesBruteForceOnRandomStays() {
+        Random random = new Random(7);
+        StayIntervalTree tree = new StayIntervalTree();
+        List<long[]> stays = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(5000);
+            long[] stay = {i, start, start + 1 + random.nextInt(10)};
+            stays.add(stay);
+            tree.insert(stay[0], stay[1], stay[2]);
+        }
+        for (int i = 0; i < 500; i++) {
+            long[] removed = stays.remove(random.nextInt(stays.size()));
+            tree.remove(removed[0], removed[1], removed[2]);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(5100);
+            long end = start + 1 + random.nextInt(5);
+            long exclude = random.nextInt(2000);
+            boolean expected = stays.stream()
+                    .anyMatch(s -> s[0] != exclude && s[1] < end && s[2] > start);
+            assertThat(tree.overlaps(start, end, exclude)).isEqualTo(expected);
+        }
+    }
+}
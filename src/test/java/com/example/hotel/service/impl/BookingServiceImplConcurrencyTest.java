@@ -0,0 +1,227 @@
+package com.example.hotel.service.impl;
+
+import com.example.hotel.dto.BookingRequestDTO;
+import com.example.hotel.entity.Customer;
+import com.example.hotel.entity.LoyaltyTier;
+import com.example.hotel.entity.Room;
+import com.example.hotel.entity.RoomStatus;
+import com.example.hotel.entity.RoomType;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.LoyaltyTierRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.repository.RoomTypeRepository;
+import com.example.hotel.service.RoomAvailabilityIndex;
+import com.example.hotel.support.BookingServiceFixture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Đặt phòng đồng thời trên H2 thật: khóa dòng rooms (SELECT ... FOR UPDATE) là thứ quyết định,
+ * mỗi request chạy trong transaction riêng như khi đi qua proxy @Transactional.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-concurrency;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Dữ liệu phải commit để các luồng khác thấy
+class BookingServiceImplConcurrencyTest {
+
+    private static final int REQUESTS = 40;
+    private static final int THREADS = 16;
+    // Bằng số sọc khóa trước đây: hai phòng có id cách nhau 64 từng dùng chung một khóa trong JVM
+    private static final int ROOMS = 65;
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoyaltyTierRepository loyaltyTierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private BookingServiceImpl bookingService;
+    private List<Room> rooms;
+    private String customerIdNumber;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        int fixture = FIXTURES.incrementAndGet();
+        customerIdNumber = "0790000000" + fixture;
+        rooms = transactionTemplate.execute(status -> {
+            LoyaltyTier tier = new LoyaltyTier();
+            tier.setName("Đồng " + fixture);
+            tier.setPointsRequired(0);
+            loyaltyTierRepository.save(tier);
+
+            Customer customer = new Customer();
+            customer.setFullName("Nguyễn Văn An");
+            customer.setIdNumber(customerIdNumber);
+            customer.setEmail("khach" + fixture + "@example.com");
+            customer.setPhone("0900000000");
+            customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            customer.setLoyaltyTier(tier);
+            customerRepository.save(customer);
+
+            RoomType roomType = new RoomType();
+            roomType.setTypeCode("STD" + fixture);
+            roomType.setName("Tiêu chuẩn " + fixture);
+            roomType.setCapacity(2);
+            roomType.setBasePrice(new BigDecimal("500000"));
+            roomTypeRepository.save(roomType);
+
+            List<Room> created = new ArrayList<>();
+            for (int i = 0; i < ROOMS; i++) {
+                Room room = new Room();
+                room.setRoomNumber(fixture + "-" + i);
+                room.setRoomType(roomType);
+                room.setStatus(RoomStatus.AVAILABLE);
+                room.setPrice(new BigDecimal("500000"));
+                created.add(roomRepository.save(room));
+            }
+            return created;
+        });
+
+        RoomAvailabilityIndex availabilityIndex = new RoomAvailabilityIndex(bookingRepository, roomRepository, new SimpleMeterRegistry());
+        availabilityIndex.rebuild();
+        bookingService = BookingServiceFixture.create()
+                .repositories(bookingRepository, roomRepository, customerRepository)
+                .availabilityIndex(availabilityIndex)
+                .build();
+    }
+
+    @Test
+    void exactlyOneOfManyConcurrentBookingsForTheSameRoomSucceeds() throws Exception {
+        Long roomId = rooms.get(0).getId();
+        LocalDate checkin = LocalDate.of(2026, 12, 24);
+        LocalDate checkout = LocalDate.of(2026, 12, 27);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                results.add(pool.submit(() -> {
+                    startGate.await();
+                    return book(roomId, "2026-12-24", "2026-12-27");
+                }));
+            }
+            startGate.countDown();
+            int successes = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+            assertThat(successes).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(bookingRepository.findConflictingBookings(roomId, checkin, checkout)).hasSize(1);
+    }
+
+    @Test
+    void bookingAnotherRoomDoesNotWaitForARoomLockedByAnotherTransaction() throws Exception {
+        Room locked = rooms.get(0);
+        Room other = rooms.stream()
+                .filter(r -> r.getId() == locked.getId() + 64)
+                .findFirst()
+                .orElseThrow();
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            roomRepository.findByIdForUpdate(locked.getId()); // Một transaction khác (vd. instance khác) đang đặt phòng này
+            holding.countDown();
+            await(release);
+        }));
+        try {
+            assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> book(locked.getId(), "2027-01-10", "2027-01-12"));
+            Thread.sleep(200); // Để request trên phòng bị khóa kịp vào chờ khóa dòng
+            CompletableFuture<Boolean> free = CompletableFuture.supplyAsync(() -> book(other.getId(), "2027-01-10", "2027-01-12"));
+
+            assertThat(free.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(waiting).isNotDone();
+
+            release.countDown();
+            assertThat(waiting.get(15, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            holder.get(15, TimeUnit.SECONDS);
+        }
+    }
+
+    private boolean book(Long roomId, String checkin, String checkout) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    bookingService.createPublicBooking(request(roomId, checkin, checkout), null));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private BookingRequestDTO request(Long roomId, String checkin, String checkout) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setRoomId(roomId);
+        request.setCheckin(checkin);
+        request.setCheckout(checkout);
+        request.setSoNguoiLon(2);
+        request.setTotal(new BigDecimal("1500000"));
+        request.setCustomerIdNumber(customerIdNumber);
+        request.setCustomerEmail("khach@example.com");
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(15, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.hotel.service.impl;
+
+import com.example.hotel.dto.BookingDto;
+import com.example.hotel.dto.BookingHistoryDto;
+import com.example.hotel.entity.*;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.support.BookingServiceFixture;
+import com.example.hotel.util.TextNormalizer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.hotel.support.SqlStatementAssertions.assertMaxStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Số câu lệnh SQL cho một trang danh sách đặt phòng phải cố định (dữ liệu + COUNT),
+ * không tăng theo số booking trong trang (N+1 khi nạp lười phòng / loại phòng / payments).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false", // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.hotel.config.SqlStatementCounter"
+})
+class BookingServiceImplQueryCountTest {
+
+    private static final int BOOKINGS = 60;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private BookingServiceImpl bookingService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        bookingService = BookingServiceFixture.create()
+                .repositories(bookingRepository, roomRepository, customerRepository)
+                .build();
+
+        LoyaltyTier tier = new LoyaltyTier();
+        tier.setName("Đồng");
+        tier.setPointsRequired(0);
+        em.persist(tier);
+
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            // Mỗi booking một phòng, một loại phòng, một khách và hai khoản thanh toán riêng -> N+1 sẽ lộ rõ
+            RoomType roomType = new RoomType();
+            roomType.setTypeCode("T" + i);
+            roomType.setName("Loại " + i);
+            roomType.setCapacity(2);
+            roomType.setBasePrice(new BigDecimal("500000"));
+            em.persist(roomType);
+
+            Room room = new Room();
+            room.setRoomNumber("R" + i);
+            room.setRoomType(roomType);
+            room.setStatus(RoomStatus.AVAILABLE);
+            room.setPrice(new BigDecimal("500000"));
+            em.persist(room);
+
+            Customer customer = new Customer();
+            customer.setFullName("Khách " + i);
+            customer.setIdNumber("ID" + i);
+            customer.setEmail("khach" + i + "@example.com");
+            customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            customer.setLoyaltyTier(tier);
+            em.persist(customer);
+
+            Booking booking = new Booking();
+            booking.setCustomer(customer);
+            booking.setRoom(room);
+            booking.setCustomerFullName(customer.getFullName());
+            booking.setCustomerPhone("09000000" + i);
+            booking.setCheckInDate(start.plusDays(i));
+            booking.setCheckOutDate(start.plusDays(i + 2));
+            booking.setPricePerNight(new BigDecimal("500000"));
+            booking.setTotalPrice(new BigDecimal("1000000"));
+            booking.setStatus(BookingStatus.CONFIRMED);
+            booking.setBookingConfirmationCode("BK-" + i);
+            em.persist(booking);
+
+            for (int p = 0; p < 2; p++) {
+                Payment payment = new Payment();
+                payment.setBooking(booking);
+                payment.setAmount(new BigDecimal("100000"));
+                payment.setMethod("CASH");
+                payment.setPaymentDate(LocalDateTime.now());
+                em.persist(payment);
+                bookingRepository.addAmountPaid(booking.getId(), payment.getAmount()); // như PaymentServiceImpl.recordPayment
+            }
+        }
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void statementCountPerPageDoesNotGrowWithPageSize() {
+        long small = statementsFor(PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "createdDate")));
+        long large = statementsFor(PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdDate")));
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(2); // 1 truy vấn dữ liệu + 1 COUNT
+    }
+
+    @Test
+    void projectionCarriesRoomTypeAndAmountPaid() {
+        Page<BookingDto> page = bookingService.findBookings(null, null, null, null, null, false,
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.ASC, "checkInDate")));
+
+        assertThat(page.getTotalElements()).isEqualTo(BOOKINGS);
+        BookingDto first = page.getContent().get(0);
+        assertThat(first.getRoomType()).isEqualTo("Loại 0");
+        assertThat(first.getRoomNumber()).isEqualTo("R0");
+        assertThat(first.getAmountPaid()).isEqualByComparingTo("200000");
+        assertThat(first.getNights()).isEqualTo(2);
+    }
+
+    @Test
+    void unpaidFilterAndBalanceSortUseTheAmountPaidColumn() {
+        Long paidInFull = bookingRepository.findAll().get(0).getId();
+        bookingRepository.addAmountPaid(paidInFull, new BigDecimal("800000"));
+        em.clear();
+
+        Page<BookingDto> page = bookingService.findBookings(null, null, null, null, null, true,
+                PageRequest.of(0, 100, Sort.by(Sort.Direction.ASC, "balanceDue")));
+
+        assertThat(page.getTotalElements()).isEqualTo(BOOKINGS - 1);
+        assertThat(page.getContent()).noneMatch(dto -> dto.getId().equals(paidInFull));
+        assertThat(page.getContent().get(0).getBalanceDue()).isEqualByComparingTo("800000");
+    }
+
+    @Test
+    void getBookingByIdUsesASingleStatement() {
+        Long id = bookingRepository.findAll().get(0).getId();
+        em.clear();
+        statistics.clear();
+
+        BookingDto dto = bookingService.getBookingById(id);
+
+        assertThat(dto.getAmountPaid()).isEqualByComparingTo("200000");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bookingHistoryLoadsRoomsWithTheBookings() {
+        // Một khách có nhiều booking ở các phòng / loại phòng khác nhau -> N+1 nếu nạp lười phòng trong vòng lặp
+        Customer customer = customerRepository.findAll().get(0);
+        List<Room> rooms = roomRepository.findAll();
+        for (int i = 1; i <= 10; i++) {
+            Booking booking = new Booking();
+            booking.setCustomer(customer);
+            booking.setRoom(rooms.get(i));
+            booking.setCustomerFullName(customer.getFullName());
+            booking.setCustomerPhone("0911111111");
+            booking.setCheckInDate(LocalDate.of(2026, 1, i));
+            booking.setCheckOutDate(LocalDate.of(2026, 1, i + 1));
+            booking.setPricePerNight(new BigDecimal("500000"));
+            booking.setTotalPrice(new BigDecimal("500000"));
+            booking.setStatus(BookingStatus.CHECKED_OUT);
+            booking.setBookingConfirmationCode("BK-H" + i);
+            em.persist(booking);
+        }
+        em.flush();
+        em.clear();
+
+        // existsById + một truy vấn booking (kèm phòng, loại phòng)
+        List<BookingHistoryDto> history = assertMaxStatements(2,
+                () -> bookingService.getBookingHistoryByCustomerId(customer.getId()));
+
+        assertThat(history).hasSize(11);
+        assertThat(history).allMatch(dto -> dto.getRoomTypeName().startsWith("Loại "));
+    }
+
+    @Test
+    void searchMatchesFieldsInsideSearchText() {
+        // "r7" là số phòng (trường cuối), "bk-12" là mã đặt phòng (giữa chuỗi)
+        Page<BookingDto> byRoom = bookingService.findBookings(null, null, null, null, "R7", false, PageRequest.of(0, 50));
+        Page<BookingDto> byCode = bookingService.findBookings(null, null, null, null, "BK-12", false, PageRequest.of(0, 50));
+
+        assertThat(byRoom.getContent()).extracting(BookingDto::getRoomNumber).containsExactly("R7");
+        assertThat(byCode.getContent()).extracting(BookingDto::getRoomNumber).containsExactly("R12");
+    }
+
+    @Test
+    void roomNumberChangeRewritesSearchTextWithoutLoadingBookings() {
+        Booking booking = bookingRepository.findAll().get(3);
+        em.clear();
+
+        int updated = bookingRepository.replaceRoomNumberInSearchText(booking.getRoom().getId(), "r3", "p303");
+        em.clear();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getSearchText())
+                .isEqualTo("khach 3 090000003 bk-3 p303");
+    }
+
+    @Test
+    void roomNumberStaysAtTheEndOfTruncatedSearchText() {
+        Booking booking = bookingRepository.findAll().get(4);
+        booking.setCustomerFullName("a".repeat(250));
+        booking.setCustomerPhone("0".repeat(250));
+        em.flush();
+        em.clear();
+
+        String before = bookingRepository.findById(booking.getId()).orElseThrow().getSearchText();
+        assertThat(before).hasSize(TextNormalizer.SEARCH_TEXT_LENGTH).endsWith(" r4");
+
+        int updated = bookingRepository.replaceRoomNumberInSearchText(booking.getRoom().getId(), "r4", "phong-404");
+        em.clear();
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(bookingRepository.findById(booking.getId()).orElseThrow().getSearchText())
+                .hasSize(TextNormalizer.SEARCH_TEXT_LENGTH)
+                .startsWith("a".repeat(250))
+                .endsWith(" phong-404");
+    }
+
+    @Test
+    void rowsWithoutTheRoomKeySuffixAreReportedForRebuild() {
+        Booking legacy = bookingRepository.findAll().get(5);
+        Booking current = bookingRepository.findAll().get(6);
+        // search_text ghi trước khi số phòng được giữ ở cuối: bị cắt mất số phòng
+        em.getEntityManager().createNativeQuery("UPDATE bookings SET search_text = 'khach 5' WHERE id = :id")
+                .setParameter("id", legacy.getId())
+                .executeUpdate();
+        em.clear();
+
+        assertThat(bookingRepository.findIdsWithoutRoomKeySuffix(legacy.getRoom().getId(), "r5")).containsExactly(legacy.getId());
+        assertThat(bookingRepository.findIdsWithoutRoomKeySuffix(current.getRoom().getId(), "r6")).isEmpty();
+    }
+
+    private long statementsFor(PageRequest pageable) {
+        em.clear();
+        statistics.clear();
+        Page<BookingDto> page = bookingService.findBookings("confirmed", null, null, null, null, false, pageable);
+        assertThat(page.getContent()).hasSize(pageable.getPageSize());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.hotel.service.impl;
+
+import com.example.hotel.dto.RoomTypeAvailabilityDto;
+import com.example.hotel.entity.*;
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.service.BookingMetrics;
+import com.example.hotel.service.RoomAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Số phòng trống theo loại phòng phải giống nhau dù lọc bằng chỉ mục trong bộ nhớ
+ * hay bằng truy vấn GROUP BY (khi chỉ mục chưa sẵn sàng).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false" // Migration viết cho MySQL, H2 dùng schema sinh từ entity
+})
+class RoomServiceImplAvailabilityTest {
+
+    private static final LocalDate CHECKIN = LocalDate.of(2026, 12, 24);
+    private static final LocalDate CHECKOUT = LocalDate.of(2026, 12, 27);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private RoomAvailabilityIndex availabilityIndex;
+    private RoomServiceImpl roomService;
+
+    @BeforeEach
+    void setUp() {
+        LoyaltyTier tier = new LoyaltyTier();
+        tier.setName("Đồng");
+        tier.setPointsRequired(0);
+        em.persist(tier);
+
+        Customer customer = new Customer();
+        customer.setFullName("Nguyễn Văn An");
+        customer.setIdNumber("079000000001");
+        customer.setEmail("khach@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        customer.setLoyaltyTier(tier);
+        em.persist(customer);
+
+        RoomType standard = roomType("STD", "Tiêu chuẩn", 2);
+        RoomType family = roomType("FAM", "Gia đình", 4);
+
+        // Tiêu chuẩn: 4 phòng, 1 đang bảo trì, 1 bị đặt trùng ngày -> còn 2 (500k, 650k)
+        Room booked = room("101", standard, "500000", RoomStatus.AVAILABLE);
+        room("102", standard, "500000", RoomStatus.AVAILABLE);
+        room("103", standard, "650000", RoomStatus.AVAILABLE);
+        room("104", standard, "400000", RoomStatus.MAINTENANCE);
+        // Gia đình: 2 phòng, chỉ có booking đã hủy và booking trả phòng đúng ngày đến -> còn cả 2 (900k, 1.2tr)
+        Room cancelled = room("201", family, "900000", RoomStatus.AVAILABLE);
+        Room adjacent = room("202", family, "1200000", RoomStatus.AVAILABLE);
+
+        booking(customer, booked, CHECKIN.plusDays(1), CHECKOUT.plusDays(1), BookingStatus.CONFIRMED);
+        booking(customer, cancelled, CHECKIN, CHECKOUT, BookingStatus.CANCELLED);
+        booking(customer, adjacent, CHECKIN.minusDays(2), CHECKIN, BookingStatus.CHECKED_OUT);
+        em.flush();
+        em.clear();
+
+        availabilityIndex = new RoomAvailabilityIndex(bookingRepository, roomRepository, new SimpleMeterRegistry());
+        roomService = new RoomServiceImpl();
+        ReflectionTestUtils.setField(roomService, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(roomService, "availabilityIndex", availabilityIndex);
+        ReflectionTestUtils.setField(roomService, "bookingMetrics", new BookingMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void indexAndGroupByFallbackReturnTheSameCounts() {
+        // Chỉ mục chưa dựng -> truy vấn GROUP BY
+        List<RoomTypeAvailabilityDto> fromQuery = roomService.findAvailableRoomTypes(CHECKIN, CHECKOUT, 2);
+
+        availabilityIndex.rebuild();
+        List<RoomTypeAvailabilityDto> fromIndex = roomService.findAvailableRoomTypes(CHECKIN, CHECKOUT, 2);
+
+        for (List<RoomTypeAvailabilityDto> result : List.of(fromQuery, fromIndex)) {
+            assertThat(result)
+                    .extracting(RoomTypeAvailabilityDto::getRoomTypeName, RoomTypeAvailabilityDto::getAvailableRooms)
+                    .containsExactly(tuple("Tiêu chuẩn", 2L), tuple("Gia đình", 2L));
+            assertThat(result.get(0).getMinPrice()).isEqualByComparingTo("500000");
+            assertThat(result.get(0).getMaxPrice()).isEqualByComparingTo("650000");
+            assertThat(result.get(1).getMinPrice()).isEqualByComparingTo("900000");
+            assertThat(result.get(1).getMaxPrice()).isEqualByComparingTo("1200000");
+        }
+    }
+
+    @Test
+    void guestCountFiltersOutSmallerRoomTypes() {
+        availabilityIndex.rebuild();
+
+        assertThat(roomService.findAvailableRoomTypes(CHECKIN, CHECKOUT, 3))
+                .extracting(RoomTypeAvailabilityDto::getRoomTypeName, RoomTypeAvailabilityDto::getAvailableRooms)
+                .containsExactly(tuple("Gia đình", 2L));
+    }
+
+    private RoomType roomType(String code, String name, int capacity) {
+        RoomType roomType = new RoomType();
+        roomType.setTypeCode(code);
+        roomType.setName(name);
+        roomType.setCapacity(capacity);
+        roomType.setBasePrice(new BigDecimal("500000"));
+        return em.persist(roomType);
+    }
+
+    private Room room(String number, RoomType roomType, String price, RoomStatus status) {
+        Room room = new Room();
+        room.setRoomNumber(number);
+        room.setRoomType(roomType);
+        room.setStatus(status);
+        room.setPrice(new BigDecimal(price));
+        return em.persist(room);
+    }
+
+    private void booking(Customer customer, Room room, LocalDate checkin, LocalDate checkout, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setCustomer(customer);
+        booking.setRoom(room);
+        booking.setCustomerFullName(customer.getFullName());
+        booking.setCustomerPhone("0900000000");
+        booking.setCheckInDate(checkin);
+        booking.setCheckOutDate(checkout);
+        booking.setPricePerNight(room.getPrice());
+        booking.setTotalPrice(room.getPrice());
+        booking.setStatus(status);
+        booking.setBookingConfirmationCode("BK-" + room.getRoomNumber());
+        em.persist(booking);
+    }
+}
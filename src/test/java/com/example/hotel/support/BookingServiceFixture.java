@@ -0,0 +1,80 @@
+package com.example.hotel.support;
+
+import com.example.hotel.repository.BookingRepository;
+import com.example.hotel.repository.CustomerRepository;
+import com.example.hotel.repository.RoomRepository;
+import com.example.hotel.repository.SearchTextMatcher;
+import com.example.hotel.security.jwt.JwtUtils;
+import com.example.hotel.service.BookingMetrics;
+import com.example.hotel.service.CustomerStatsService;
+import com.example.hotel.service.LoyaltyTierService;
+import com.example.hotel.service.OutboxService;
+import com.example.hotel.service.RoomAvailabilityIndex;
+import com.example.hotel.service.RoomTypeInventoryService;
+import com.example.hotel.service.impl.BookingServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Dựng BookingServiceImpl cho test: mọi phụ thuộc mặc định là mock (hoặc bản thật nhẹ như SearchTextMatcher, BookingMetrics),
+ * test chỉ thay những phụ thuộc nó quan tâm, vd.
+ * {@code BookingServiceFixture.create().repositories(bookingRepository, roomRepository, customerRepository).build()}.
+ * Thêm phụ thuộc mới cho BookingServiceImpl chỉ cần sửa lớp này.
+ */
+public final class BookingServiceFixture {
+
+    private BookingRepository bookingRepository = mock(BookingRepository.class);
+    private RoomRepository roomRepository = mock(RoomRepository.class);
+    private CustomerRepository customerRepository = mock(CustomerRepository.class);
+    private OutboxService outboxService = mock(OutboxService.class);
+    private LoyaltyTierService loyaltyTierService = mock(LoyaltyTierService.class);
+    private JwtUtils jwtUtils = mock(JwtUtils.class);
+    private RoomAvailabilityIndex availabilityIndex = mock(RoomAvailabilityIndex.class);
+    private RoomTypeInventoryService inventoryService = mock(RoomTypeInventoryService.class);
+    private SearchTextMatcher searchTextMatcher = new SearchTextMatcher(false);
+    private CustomerStatsService customerStatsService = mock(CustomerStatsService.class);
+    private BookingMetrics bookingMetrics = new BookingMetrics(new SimpleMeterRegistry());
+
+    private BookingServiceFixture() {
+    }
+
+    public static BookingServiceFixture create() {
+        return new BookingServiceFixture();
+    }
+
+    public BookingServiceFixture repositories(BookingRepository bookingRepository,
+                                              RoomRepository roomRepository,
+                                              CustomerRepository customerRepository) {
+        this.bookingRepository = bookingRepository;
+        this.roomRepository = roomRepository;
+        this.customerRepository = customerRepository;
+        return this;
+    }
+
+    public BookingServiceFixture availabilityIndex(RoomAvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+        return this;
+    }
+
+    public BookingServiceFixture outboxService(OutboxService outboxService) {
+        this.outboxService = outboxService;
+        return this;
+    }
+
+    public BookingServiceFixture inventoryService(RoomTypeInventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+        return this;
+    }
+
+    public BookingServiceFixture customerStatsService(CustomerStatsService customerStatsService) {
+        this.customerStatsService = customerStatsService;
+        return this;
+    }
+
+    public BookingServiceImpl build() {
+        return new BookingServiceImpl(bookingRepository, roomRepository, customerRepository,
+                outboxService, loyaltyTierService, jwtUtils, availabilityIndex, inventoryService,
+                searchTextMatcher, customerStatsService, bookingMetrics);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.hotel.support;
+
+import com.example.hotel.config.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+/**
+ * Kiểm tra số câu lệnh SQL của một thao tác (service, repository hoặc request MockMvc), vd.
+ * {@code assertMaxStatements(2, () -> bookingService.findBookings(...))}.
+ * Cần hibernate.session_factory.statement_inspector=com.example.hotel.config.SqlStatementCounter
+ * (đã có trong application.properties).
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(int max, Supplier<T> action) {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            T result = action.get();
+            if (scope.count() > max) {
+                String repeated = scope.mostRepeated()
+                        .map(e -> e.getValue() + " lần: " + e.getKey())
+                        .orElse("");
+                throw new AssertionError("Mong đợi tối đa " + max + " câu lệnh SQL nhưng có " + scope.count()
+                        + ". Câu lặp nhiều nhất " + repeated);
+            }
+            return result;
+        }
+    }
+
+    public static void assertMaxStatements(int max, Runnable action) {
+        assertMaxStatements(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+}